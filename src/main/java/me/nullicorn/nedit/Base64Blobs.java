@@ -0,0 +1,89 @@
+package me.nullicorn.nedit;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import me.nullicorn.nedit.exception.NBTParseException;
+import me.nullicorn.nedit.type.NBTCompound;
+
+/**
+ * Decodes and parses Base64-encoded NBT data using a buffer and {@link NBTInputStream}s that are
+ * reused by each thread, instead of allocating new ones for every string. Gzipped data is inflated
+ * by the parser itself, which borrows an inflater from the {@link ZlibPool} for each string that
+ * needs one.
+ *
+ * @author Nullicorn
+ */
+final class Base64Blobs {
+
+    private static final ThreadLocal<Base64Blobs> LOCAL = ThreadLocal.withInitial(Base64Blobs::new);
+
+    /**
+     * Buffers that grow larger than this are discarded after use, so that a single large string
+     * does not hold onto memory for the life of the thread.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1 << 20;
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * @return The calling thread's decoder.
+     */
+    static Base64Blobs get() {
+        return LOCAL.get();
+    }
+
+    private byte[] decoded = new byte[INITIAL_BUFFER_SIZE];
+
+    // Reusable parsers for each combination of interning options.
+    private final NBTInputStream[] parsers = new NBTInputStream[4];
+
+    private Base64Blobs() {
+    }
+
+    /**
+     * @see NBTReader#readBase64(String, boolean, boolean)
+     */
+    NBTCompound read(String base64, boolean internNames, boolean internValues) throws IOException {
+        try {
+            byte[] encoded = base64.getBytes(StandardCharsets.ISO_8859_1);
+            int maxLength = (int) ((encoded.length + 3L) / 4 * 3);
+            if (decoded.length < maxLength) {
+                decoded = new byte[maxLength];
+            }
+            int length = Base64.getDecoder().decode(encoded, decoded);
+            boolean gzipped = length >= 2 && decoded[0] == (byte) 0x1F && decoded[1] == (byte) 0x8B;
+
+            NBTInputStream parser = parser(internNames, internValues);
+            parser.reset(decoded, 0, length);
+            try {
+                NBTCompound compound = parser.readFully();
+                // Reading to the end of the gzipped data checks its trailer.
+                if (gzipped && parser.read() != -1) {
+                    throw new NBTParseException("Unexpected data after NBT compound");
+                }
+                return compound;
+            } finally {
+                parser.release();
+                parser.reset(EMPTY, 0, 0);
+            }
+        } finally {
+            if (decoded.length > MAX_RETAINED_BUFFER_SIZE) {
+                decoded = new byte[INITIAL_BUFFER_SIZE];
+            }
+        }
+    }
+
+    private NBTInputStream parser(boolean internNames, boolean internValues) {
+        int index = (internNames ? 2 : 0) | (internValues ? 1 : 0);
+        NBTInputStream parser = parsers[index];
+        if (parser == null) {
+            parser = new NBTInputStream(new ByteArrayInputStream(EMPTY), internNames, internValues);
+            parsers[index] = parser;
+        }
+        return parser;
+    }
+}
@@ -0,0 +1,218 @@
+package me.nullicorn.nedit;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Inflates gzipped data from another stream, like a {@link GZIPInputStream}, except that it can be
+ * pointed at a different stream, and its {@link Inflater} is borrowed from the {@link ZlibPool}.
+ * The inflater is kept when the stream is pointed elsewhere, and is released once the end of the
+ * gzipped data is reached or the stream is {@link #release() released}.
+ * <p>
+ * Like a {@link GZIPInputStream}, concatenated gzip members are read as one continuous stream.
+ * Unlike one, any other data after the last member's trailer causes a {@link ZipException},
+ * rather than being silently ignored.
+ *
+ * @author Nullicorn
+ */
+final class GzipInput extends InputStream {
+
+    // Gzip header flags.
+    private static final int FHCRC    = 2;
+    private static final int FEXTRA   = 4;
+    private static final int FNAME    = 8;
+    private static final int FCOMMENT = 16;
+
+    private final CRC32  crc    = new CRC32();
+    private final byte[] buffer = new byte[512];
+    private final byte[] single = new byte[1];
+
+    private Inflater    inflater; // Null unless borrowed from the pool.
+    private InputStream source;
+    private int         position;
+    private int         end;
+    private long        inflatedSize;
+    private boolean     finished;
+
+    /**
+     * Points the stream at the start of new gzipped data, and reads its header.
+     *
+     * @throws ZipException If the data does not start with a valid gzip header.
+     */
+    void reset(InputStream source) throws IOException {
+        this.source = source;
+        position = 0;
+        end = 0;
+        finished = false;
+
+        if (inflater == null) {
+            inflater = ZlibPool.inflater();
+        }
+        readHeader();
+    }
+
+    /**
+     * Returns the stream's inflater to the pool, if it has one. Any gzipped data that has not been
+     * read yet can no longer be read.
+     */
+    void release() {
+        if (inflater != null) {
+            ZlibPool.release(inflater);
+            inflater = null;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            return -1;
+        } else if (inflater == null) {
+            throw new IOException("Stream closed");
+        } else if (len == 0) {
+            return 0;
+        }
+
+        try {
+            int inflated;
+            while ((inflated = inflater.inflate(b, off, len)) == 0) {
+                if (inflater.finished()) {
+                    readTrailer();
+                    if (!hasNextMember()) {
+                        finished = true;
+                        release();
+                        return -1;
+                    }
+                    readHeader();
+                } else if (inflater.needsDictionary()) {
+                    throw new ZipException("Unsupported preset dictionary");
+                } else if (inflater.needsInput()) {
+                    position = end;
+                    if (!fill()) {
+                        throw new EOFException("Unexpected end of ZLIB input stream");
+                    }
+                    inflater.setInput(buffer, 0, end);
+                }
+            }
+
+            crc.update(b, off, inflated);
+            inflatedSize += inflated;
+            return inflated;
+        } catch (DataFormatException e) {
+            String message = e.getMessage();
+            throw new ZipException(message != null ? message : "Invalid ZLIB data format");
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return finished ? 0 : 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        release();
+        source.close();
+    }
+
+    /**
+     * Reads the header of a gzip member, and prepares the inflater to read the member's data.
+     */
+    private void readHeader() throws IOException {
+        if (readSourceShort() != 0x8B1F) {
+            throw new ZipException("Not in GZIP format");
+        } else if (readSourceByte() != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+        int flags = readSourceByte();
+        skipSource(6); // Modification time, extra flags, and OS.
+
+        if ((flags & FEXTRA) != 0) {
+            skipSource(readSourceShort());
+        }
+        if ((flags & FNAME) != 0) {
+            while (readSourceByte() != 0) {
+                // Skip the file name.
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (readSourceByte() != 0) {
+                // Skip the comment.
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            skipSource(2);
+        }
+
+        crc.reset();
+        inflatedSize = 0;
+        inflater.reset();
+        inflater.setInput(buffer, position, end - position);
+    }
+
+    private void readTrailer() throws IOException {
+        position = end - inflater.getRemaining();
+        long expectedCrc = readSourceInt() & 0xFFFFFFFFL;
+        long expectedSize = readSourceInt() & 0xFFFFFFFFL;
+        if (expectedCrc != crc.getValue() || expectedSize != (inflatedSize & 0xFFFFFFFFL)) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+    }
+
+    /**
+     * @return {@code true} if another gzip member follows the one whose trailer was just read, or
+     * {@code false} if the source has ended.
+     * @throws ZipException If the source has more data, but it is not another gzip member.
+     */
+    private boolean hasNextMember() throws IOException {
+        if (position == end && !fill()) {
+            return false;
+        } else if ((buffer[position] & 0xFF) != 0x1F) {
+            throw new ZipException("Unexpected data after GZIP trailer");
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the contents of the buffer with more bytes from the source.
+     *
+     * @return {@code false} if the source has no more bytes.
+     */
+    private boolean fill() throws IOException {
+        int read = source.read(buffer, 0, buffer.length);
+        position = 0;
+        end = Math.max(read, 0);
+        return read > 0;
+    }
+
+    private int readSourceByte() throws IOException {
+        if (position == end && !fill()) {
+            throw new EOFException();
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private int readSourceShort() throws IOException {
+        return readSourceByte() | readSourceByte() << 8;
+    }
+
+    private int readSourceInt() throws IOException {
+        return readSourceShort() | readSourceShort() << 16;
+    }
+
+    private void skipSource(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            readSourceByte();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package me.nullicorn.nedit;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes gzipped data to another stream, like a {@link GZIPOutputStream}, except that its {@link
+ * Deflater} is borrowed from the {@link ZlibPool} and returned once the data is finished.
+ *
+ * @author Nullicorn
+ */
+final class GzipOutput extends DeflaterOutputStream {
+
+    private static final byte[] HEADER = {
+        (byte) 0x1F, (byte) 0x8B, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private final CRC32 crc = new CRC32();
+
+    private boolean released;
+
+    /**
+     * @throws IOException If the gzip header could not be written.
+     */
+    GzipOutput(OutputStream out) throws IOException {
+        super(out, ZlibPool.deflater(), 512);
+        try {
+            out.write(HEADER);
+        } catch (IOException e) {
+            release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (released) {
+            throw new IOException("write beyond end of stream");
+        }
+        super.write(b, off, len);
+        crc.update(b, off, len);
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (released) {
+            return;
+        }
+
+        try {
+            super.finish();
+
+            long size = def.getBytesRead();
+            long checksum = crc.getValue();
+            out.write(new byte[]{
+                (byte) checksum, (byte) (checksum >> 8),
+                (byte) (checksum >> 16), (byte) (checksum >> 24),
+                (byte) size, (byte) (size >> 8), (byte) (size >> 16), (byte) (size >> 24)
+            });
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Returns the stream's deflater to the pool, if it has not been already. Nothing else can be
+     * written to the stream afterwards.
+     */
+    void release() {
+        if (!released) {
+            released = true;
+            ZlibPool.release(def);
+        }
+    }
+}
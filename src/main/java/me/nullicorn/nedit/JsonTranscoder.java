@@ -0,0 +1,665 @@
+package me.nullicorn.nedit;
+
+import static me.nullicorn.nedit.SNBTReader.peekChar;
+import static me.nullicorn.nedit.SNBTReader.readChar;
+import static me.nullicorn.nedit.SNBTReader.skipWhitespace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import me.nullicorn.nedit.SNBTReader.Input;
+import me.nullicorn.nedit.exception.NBTParseException;
+import me.nullicorn.nedit.type.TagType;
+
+/**
+ * Converts NBT data between its binary format and JSON, for {@link NBTTranscoder}. See the
+ * transcoder's documentation for how each NBT type is represented in JSON.
+ *
+ * @author Nullicorn
+ */
+final class JsonTranscoder {
+
+    // Names of the single-key JSON objects used for types that JSON has no equivalent for.
+    private static final String BYTE_MARKER       = "$byte";
+    private static final String SHORT_MARKER      = "$short";
+    private static final String LONG_MARKER       = "$long";
+    private static final String FLOAT_MARKER      = "$float";
+    private static final String DOUBLE_MARKER     = "$double";
+    private static final String BYTE_ARRAY_MARKER = "$bytes";
+    private static final String INT_ARRAY_MARKER  = "$ints";
+    private static final String LONG_ARRAY_MARKER = "$longs";
+
+    /**
+     * Prefixed to tag names that start with the same character as the markers, so that they are
+     * not confused for one.
+     */
+    private static final char NAME_ESCAPE = '$';
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /*
+     *
+     * ============ BINARY TO JSON ============
+     *
+     */
+
+    /**
+     * Converts a binary NBT compound to JSON as it is read.
+     */
+    static void write(NBTInputStream in, Appendable out) throws IOException {
+        in.gunzipIfNecessary();
+        TagType rootType = in.readTagId();
+        if (rootType == TagType.END) {
+            out.append("{}");
+            return;
+        } else if (rootType != TagType.COMPOUND) {
+            throw new IOException("Expected COMPOUND at NBT root, but got " + rootType);
+        }
+        in.readString(); // Skip root name; typically empty anyways.
+        writeValue(TagType.COMPOUND, in, out);
+    }
+
+    private static void writeValue(TagType type, NBTInputStream in, Appendable out)
+        throws IOException {
+        int length;
+        switch (type) {
+            case BYTE:
+                appendMarked(BYTE_MARKER, Byte.toString(in.readByte()), out);
+                break;
+            case SHORT:
+                appendMarked(SHORT_MARKER, Short.toString(in.readShort()), out);
+                break;
+            case INT:
+                out.append(Integer.toString(in.readInt()));
+                break;
+            case LONG:
+                appendMarked(LONG_MARKER, Long.toString(in.readLong()), out);
+                break;
+            case FLOAT:
+                float f = in.readFloat();
+                String floatString = Float.isFinite(f)
+                    ? Float.toString(f)
+                    : '"' + Float.toString(f) + '"';
+                appendMarked(FLOAT_MARKER, floatString, out);
+                break;
+            case DOUBLE:
+                // Doubles always have a decimal point or exponent, unlike ints.
+                double d = in.readDouble();
+                if (Double.isFinite(d)) {
+                    out.append(Double.toString(d));
+                } else {
+                    appendMarked(DOUBLE_MARKER, '"' + Double.toString(d) + '"', out);
+                }
+                break;
+            case STRING:
+                writeString(in.readString(), out);
+                break;
+
+            case COMPOUND:
+                out.append('{');
+                TagType tagType;
+                boolean isFirst = true;
+                while ((tagType = in.readTagId()) != TagType.END) {
+                    if (tagType == null) {
+                        throw new NBTParseException("Unknown tag ID for TAG_Compound");
+                    }
+                    if (!isFirst) {
+                        out.append(',');
+                    }
+                    isFirst = false;
+
+                    String name = in.readString();
+                    writeString(name.isEmpty() || name.charAt(0) != NAME_ESCAPE
+                        ? name
+                        : NAME_ESCAPE + name, out);
+                    out.append(':');
+                    writeValue(tagType, in, out);
+                }
+                out.append('}');
+                break;
+
+            case LIST:
+                TagType contentType = in.readTagId();
+                if (contentType == null) {
+                    throw new NBTParseException("Unknown tag ID for TAG_List");
+                }
+                length = in.readInt();
+                out.append('[');
+                for (int i = 0; i < length; i++) {
+                    if (i != 0) {
+                        out.append(',');
+                    }
+                    writeValue(contentType, in, out);
+                }
+                out.append(']');
+                break;
+
+            case BYTE_ARRAY:
+            case INT_ARRAY:
+            case LONG_ARRAY:
+                length = in.readInt();
+                if (length < 0) {
+                    throw new NBTParseException(new NegativeArraySizeException(
+                        "Array was prefixed with a negative length"));
+                }
+
+                out.append("{\"").append(type == TagType.BYTE_ARRAY
+                    ? BYTE_ARRAY_MARKER
+                    : type == TagType.INT_ARRAY ? INT_ARRAY_MARKER : LONG_ARRAY_MARKER);
+                out.append("\":[");
+                for (int i = 0; i < length; i++) {
+                    if (i != 0) {
+                        out.append(',');
+                    }
+                    long element = type == TagType.BYTE_ARRAY
+                        ? in.readByte()
+                        : type == TagType.INT_ARRAY ? in.readInt() : in.readLong();
+                    out.append(Long.toString(element));
+                }
+                out.append("]}");
+                break;
+
+            default:
+                throw new NBTParseException("Unexpected " + type + " tag");
+        }
+    }
+
+    /**
+     * Appends a single-key object that marks the type of a {@code value}.
+     */
+    private static void appendMarked(String marker, String value, Appendable out)
+        throws IOException {
+        out.append("{\"").append(marker).append("\":").append(value).append('}');
+    }
+
+    /**
+     * Appends a JSON string literal, escaping any characters that need it.
+     */
+    private static void writeString(String value, Appendable out) throws IOException {
+        out.append('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '"' && c != '\\' && c >= ' ') {
+                continue;
+            }
+
+            out.append(value, start, i).append('\\');
+            switch (c) {
+                case '"':
+                case '\\':
+                    out.append(c);
+                    break;
+                case '\n':
+                    out.append('n');
+                    break;
+                case '\r':
+                    out.append('r');
+                    break;
+                case '\t':
+                    out.append('t');
+                    break;
+                default:
+                    out.append("u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+                    break;
+            }
+            start = i + 1;
+        }
+        out.append(value, start, value.length()).append('"');
+    }
+
+    /*
+     *
+     * ============ JSON TO BINARY ============
+     *
+     */
+
+    /**
+     * Converts a JSON object to a binary NBT compound as it is parsed. Like {@link
+     * SNBTReader#transcode(Reader, NBTOutputStream)}, each list's elements are buffered until the
+     * list ends.
+     */
+    static void read(Reader reader, NBTOutputStream out) throws IOException {
+        Input input = new Input(reader);
+        skipWhitespace(input);
+        if (readChar(input) != '{') {
+            throw new NBTParseException("Expected JSON object at NBT root");
+        }
+
+        out.writeTagType(TagType.COMPOUND);
+        out.writeString("");
+        skipWhitespace(input);
+        if (peekChar(input) == '}') {
+            input.position++;
+            out.writeTagType(TagType.END);
+            return;
+        }
+        readCompound(input, out, readName(input));
+    }
+
+    /**
+     * Converts the JSON value at the current index of an input to binary NBT.
+     *
+     * @param name The name to write before the value, preceded by its type, or {@code null} if the
+     *             value is a list element (which has neither)
+     * @return The type of the value that was written
+     */
+    private static TagType readValue(Input input, NBTOutputStream out, String name)
+        throws IOException {
+        int firstChar = peekChar(input);
+        switch (firstChar) {
+            case '{':
+                input.position++;
+                skipWhitespace(input);
+                if (peekChar(input) == '}') {
+                    input.position++;
+                    writeHeader(TagType.COMPOUND, name, out);
+                    out.writeTagType(TagType.END);
+                    return TagType.COMPOUND;
+                }
+
+                // Objects with a marker as their first name are values of that type.
+                int start = input.position;
+                String firstName = readString(input);
+                TagType markedType = getMarkedType(firstName);
+                if (markedType == null) {
+                    input.position = start;
+                    writeHeader(TagType.COMPOUND, name, out);
+                    readCompound(input, out, readName(input));
+                    return TagType.COMPOUND;
+                }
+
+                readNameSeparator(input);
+                writeHeader(markedType, name, out);
+                readMarkedValue(markedType, input, out);
+                skipWhitespace(input);
+                if (readChar(input) != '}') {
+                    throw new NBTParseException("JSON object with " + firstName +
+                                                " cannot have other names");
+                }
+                return markedType;
+
+            case '[':
+                writeHeader(TagType.LIST, name, out);
+                readList(input, out);
+                return TagType.LIST;
+
+            case '"':
+                String value = readString(input);
+                writeHeader(TagType.STRING, name, out);
+                out.writeString(value);
+                return TagType.STRING;
+
+            case 't':
+            case 'f':
+                boolean bool = readKeyword(input, firstChar == 't' ? "true" : "false");
+                writeHeader(TagType.BYTE, name, out);
+                out.writeByte(bool ? 1 : 0);
+                return TagType.BYTE;
+
+            default:
+                String number = readNumber(input);
+                if (isDecimal(number)) {
+                    writeHeader(TagType.DOUBLE, name, out);
+                    out.writeDouble(parseDouble(number));
+                    return TagType.DOUBLE;
+                }
+
+                // Integers that are too big for an int are read as longs anyway.
+                long integer = parseLong(number);
+                TagType type = integer == (int) integer ? TagType.INT : TagType.LONG;
+                writeHeader(type, name, out);
+                if (type == TagType.INT) {
+                    out.writeInt((int) integer);
+                } else {
+                    out.writeLong(integer);
+                }
+                return type;
+        }
+    }
+
+    /**
+     * Converts the rest of a JSON object to a binary compound, starting at the value of its first
+     * member.
+     */
+    private static void readCompound(Input input, NBTOutputStream out, String firstName)
+        throws IOException {
+        String name = firstName;
+        while (true) {
+            readNameSeparator(input);
+            readValue(input, out, name);
+
+            skipWhitespace(input);
+            int next = readChar(input);
+            if (next == '}') {
+                break;
+            } else if (next != ',') {
+                throw new NBTParseException("Invalid separator in JSON object");
+            }
+            skipWhitespace(input);
+            input.discard();
+            name = readName(input);
+        }
+        out.writeTagType(TagType.END);
+    }
+
+    private static void readList(Input input, NBTOutputStream out) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        NBTOutputStream elements = new NBTOutputStream(buffer, false);
+        TagType contentType = TagType.END;
+        int size = 0;
+
+        input.position++; // Opening bracket.
+        skipWhitespace(input);
+        if (peekChar(input) == ']') {
+            input.position++;
+        } else {
+            while (true) {
+                input.discard();
+                TagType type = readValue(input, elements, null);
+                if (size == 0) {
+                    contentType = type;
+                } else if (type != contentType) {
+                    throw new NBTParseException("JSON array element has type " + type +
+                                                ", but the array contains " + contentType + "s");
+                }
+                size++;
+
+                skipWhitespace(input);
+                int next = readChar(input);
+                if (next == ']') {
+                    break;
+                } else if (next != ',') {
+                    throw new NBTParseException("Invalid separator in JSON array");
+                }
+                skipWhitespace(input);
+            }
+        }
+
+        out.writeTagType(contentType);
+        out.writeInt(size);
+        buffer.writeTo(out);
+    }
+
+    /**
+     * Reads the value of a single-key object that marks its type, e.g. the {@code 5} in {@code
+     * {"$byte": 5}}, and writes it as that type.
+     */
+    private static void readMarkedValue(TagType type, Input input, NBTOutputStream out)
+        throws IOException {
+        switch (type) {
+            case BYTE:
+                out.writeByte((int) parseInteger(readNumber(input), Byte.MIN_VALUE,
+                    Byte.MAX_VALUE));
+                break;
+            case SHORT:
+                out.writeShort((int) parseInteger(readNumber(input), Short.MIN_VALUE,
+                    Short.MAX_VALUE));
+                break;
+            case LONG:
+                out.writeLong(parseLong(readNumber(input)));
+                break;
+            case FLOAT:
+                out.writeFloat(peekChar(input) == '"'
+                    ? (float) parseDouble(readString(input))
+                    : parseFloat(readNumber(input)));
+                break;
+            case DOUBLE:
+                out.writeDouble(parseDouble(peekChar(input) == '"'
+                    ? readString(input)
+                    : readNumber(input)));
+                break;
+            default:
+                readArray(type, input, out);
+                break;
+        }
+    }
+
+    /**
+     * Reads the JSON array of a typed array's elements, and writes them as a typed array.
+     */
+    private static void readArray(TagType type, Input input, NBTOutputStream out)
+        throws IOException {
+        if (readChar(input) != '[') {
+            throw new NBTParseException("Expected JSON array of " + type + " elements");
+        }
+
+        long min = type == TagType.BYTE_ARRAY ? Byte.MIN_VALUE
+            : type == TagType.INT_ARRAY ? Integer.MIN_VALUE : Long.MIN_VALUE;
+        long max = type == TagType.BYTE_ARRAY ? Byte.MAX_VALUE
+            : type == TagType.INT_ARRAY ? Integer.MAX_VALUE : Long.MAX_VALUE;
+
+        long[] elements = new long[16];
+        int size = 0;
+        skipWhitespace(input);
+        if (peekChar(input) == ']') {
+            input.position++;
+        } else {
+            while (true) {
+                if (size == elements.length) {
+                    elements = Arrays.copyOf(elements, size * 2);
+                }
+                elements[size++] = parseInteger(readNumber(input), min, max);
+
+                skipWhitespace(input);
+                int next = readChar(input);
+                if (next == ']') {
+                    break;
+                } else if (next != ',') {
+                    throw new NBTParseException("Invalid separator in JSON array");
+                }
+                skipWhitespace(input);
+            }
+        }
+
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            if (type == TagType.BYTE_ARRAY) {
+                out.writeByte((int) elements[i]);
+            } else if (type == TagType.INT_ARRAY) {
+                out.writeInt((int) elements[i]);
+            } else {
+                out.writeLong(elements[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes a value's type and name before the value itself, unless the value is a list element.
+     */
+    private static void writeHeader(TagType type, String name, NBTOutputStream out)
+        throws IOException {
+        if (name != null) {
+            out.writeTagType(type);
+            out.writeString(name);
+        }
+    }
+
+    /**
+     * @return The type of value that an object with the {@code marker} as its only name holds, or
+     * {@code null} if the marker is just a regular name.
+     */
+    private static TagType getMarkedType(String marker) {
+        switch (marker) {
+            case BYTE_MARKER:
+                return TagType.BYTE;
+            case SHORT_MARKER:
+                return TagType.SHORT;
+            case LONG_MARKER:
+                return TagType.LONG;
+            case FLOAT_MARKER:
+                return TagType.FLOAT;
+            case DOUBLE_MARKER:
+                return TagType.DOUBLE;
+            case BYTE_ARRAY_MARKER:
+                return TagType.BYTE_ARRAY;
+            case INT_ARRAY_MARKER:
+                return TagType.INT_ARRAY;
+            case LONG_ARRAY_MARKER:
+                return TagType.LONG_ARRAY;
+            default:
+                return null;
+        }
+    }
+
+    /*
+     *
+     * ============ TOKENS ============
+     *
+     */
+
+    /**
+     * Reads the name of an object member, removing the escape added to names that start with the
+     * same character as the markers.
+     */
+    private static String readName(Input input) throws IOException {
+        String name = readString(input);
+        if (getMarkedType(name) != null) {
+            throw new NBTParseException("JSON object with " + name + " cannot have other names");
+        }
+        return name.isEmpty() || name.charAt(0) != NAME_ESCAPE
+            ? name
+            : name.substring(1);
+    }
+
+    private static void readNameSeparator(Input input) throws IOException {
+        skipWhitespace(input);
+        if (readChar(input) != ':') {
+            throw new NBTParseException("Invalid name separator in JSON object");
+        }
+        skipWhitespace(input);
+    }
+
+    private static String readString(Input input) throws IOException {
+        if (readChar(input) != '"') {
+            throw new NBTParseException("Expected JSON string");
+        }
+
+        // Strings without escapes are sliced out in one step.
+        int start = input.position;
+        int c;
+        while ((c = readChar(input)) != '"') {
+            if (c == '\\') {
+                return readEscapedString(input, start);
+            }
+        }
+        return input.subSequence(start, input.position - 1);
+    }
+
+    /**
+     * Reads the rest of a JSON string, starting at the first backslash after the {@code start}.
+     */
+    private static String readEscapedString(Input input, int start) throws IOException {
+        StringBuilder value = new StringBuilder();
+        value.append(input, start, input.position - 1);
+
+        int c = '\\';
+        do {
+            if (c != '\\') {
+                value.append((char) c);
+                continue;
+            }
+
+            c = readChar(input);
+            switch (c) {
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    int codeUnit = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(readChar(input), 16);
+                        if (digit == -1) {
+                            throw new NBTParseException("Invalid unicode escape in JSON string");
+                        }
+                        codeUnit = codeUnit * 16 + digit;
+                    }
+                    value.append((char) codeUnit);
+                    break;
+                default:
+                    // Quotes, backslashes, and forward slashes are escaped as themselves.
+                    value.append((char) c);
+                    break;
+            }
+        } while ((c = readChar(input)) != '"');
+        return value.toString();
+    }
+
+    /**
+     * @return The characters of the JSON number at the current index of an input.
+     */
+    private static String readNumber(Input input) throws IOException {
+        int start = input.position;
+        int c;
+        while ((c = input.peek(0)) == '-' || c == '+' || c == '.' || c == 'e' || c == 'E'
+               || c >= '0' && c <= '9') {
+            input.position++;
+        }
+        if (input.position == start) {
+            throw new NBTParseException("Unexpected character in JSON: " + (char) peekChar(input));
+        }
+        return input.subSequence(start, input.position);
+    }
+
+    private static boolean readKeyword(Input input, String keyword) throws IOException {
+        for (int i = 0; i < keyword.length(); i++) {
+            if (readChar(input) != keyword.charAt(i)) {
+                throw new NBTParseException("Unexpected character in JSON");
+            }
+        }
+        return keyword.equals("true");
+    }
+
+    private static boolean isDecimal(String number) {
+        return number.indexOf('.') != -1 || number.indexOf('e') != -1 || number.indexOf('E') != -1;
+    }
+
+    private static long parseInteger(String number, long min, long max) throws NBTParseException {
+        long value = parseLong(number);
+        if (value < min || value > max) {
+            throw new NBTParseException("JSON number is out of range: " + number);
+        }
+        return value;
+    }
+
+    private static long parseLong(String number) throws NBTParseException {
+        try {
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            throw new NBTParseException("Invalid JSON integer: " + number, e);
+        }
+    }
+
+    private static float parseFloat(String number) throws NBTParseException {
+        try {
+            return Float.parseFloat(number);
+        } catch (NumberFormatException e) {
+            throw new NBTParseException("Invalid JSON number: " + number, e);
+        }
+    }
+
+    private static double parseDouble(String number) throws NBTParseException {
+        try {
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw new NBTParseException("Invalid JSON number: " + number, e);
+        }
+    }
+
+    private JsonTranscoder() {
+        throw new UnsupportedOperationException("JsonTranscoder should not be instantiated");
+    }
+}
@@ -1,10 +1,15 @@
 package me.nullicorn.nedit;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
 import me.nullicorn.nedit.exception.NBTParseException;
 import me.nullicorn.nedit.type.NBTCompound;
 import me.nullicorn.nedit.type.NBTList;
@@ -13,14 +18,39 @@ import me.nullicorn.nedit.type.TagType;
 /**
  * An InputStream that reads and deserializes binary data in the <a href=https://wiki.vg/NBT>NBT
  * format</a>
+ * <p>
+ * A stream can be pointed at new data using {@link #reset(InputStream)} or {@link #reset(byte[],
+ * int, int)}, so that a single instance can be reused (e.g. one per thread) to read many small
+ * pieces of data. Reused streams keep their buffers, their {@link Inflater} for gzipped data, and
+ * their cache of interned strings, instead of creating them again for each piece. Streams that are
+ * not {@link #close() closed} should be {@link #release() released} once they are no longer needed,
+ * so that their inflater can be used elsewhere.
  *
  * @author Nullicorn
  */
 public class NBTInputStream extends DataInputStream {
 
+    /**
+     * The most strings that are remembered by a stream after interning them. Once full, the cache
+     * is cleared.
+     */
+    private static final int MAX_INTERN_CACHE_SIZE = 4096;
+
+    /**
+     * Scratch buffers that grow larger than this are not kept for reading later arrays.
+     */
+    private static final int MAX_SCRATCH_SIZE = 1 << 16;
+
     protected final boolean internNames;
     protected final boolean internValues;
 
+    // Each of these is created when first needed, and kept when the stream is reset.
+    private ArrayInput          arrayInput;
+    private PeekInput           peekInput;
+    private GzipInput           gzipInput;
+    private Map<String, String> internCache;
+    private byte[]              scratch;
+
     /**
      * Same as {@link NBTInputStream#NBTInputStream(InputStream, boolean, boolean)}, but all
      * interning is disabled by default
@@ -50,6 +80,71 @@ public class NBTInputStream extends DataInputStream {
         this.internValues = internValues;
     }
 
+    /**
+     * Points the stream at new data, which is read from the start the next time the stream is
+     * used. The previous underlying stream is not closed.
+     *
+     * @param inputStream An input stream of valid NBT data; may also be gzipped
+     * @see #reset(byte[], int, int)
+     */
+    public synchronized void reset(InputStream inputStream) {
+        if (inputStream == null) {
+            throw new NullPointerException("Input stream cannot be null");
+        }
+        this.in = inputStream;
+    }
+
+    /**
+     * Points the stream at a range of bytes, which are read from the start the next time the
+     * stream is used. Unlike {@link #reset(InputStream)}, no new objects are created to read the
+     * bytes once the stream has been reset this way before.
+     *
+     * @param bytes  An array containing valid NBT data; may also be gzipped
+     * @param offset The index in the array that the data starts at
+     * @param length The number of bytes of data in the array
+     * @throws IndexOutOfBoundsException If the range is not inside the array
+     */
+    public synchronized void reset(byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || length > bytes.length - offset) {
+            throw new IndexOutOfBoundsException(
+                "Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length "
+                + bytes.length);
+        }
+
+        if (arrayInput == null) {
+            arrayInput = new ArrayInput();
+        }
+        arrayInput.reset(bytes, offset, length);
+        this.in = arrayInput;
+    }
+
+    /**
+     * Returns the {@link Inflater} that the stream uses for gzipped data, if it has one, to a pool
+     * shared by all streams. Inflaters hold native memory that is otherwise only freed once the
+     * stream is closed, or the end of the gzipped data is read. The stream can still be reset and
+     * used afterwards, but the rest of any gzipped data it was reading cannot be read.
+     * <p>
+     * Unlike {@link #close()}, this does not close the underlying stream.
+     */
+    public synchronized void release() {
+        if (gzipInput != null) {
+            gzipInput.release();
+        }
+    }
+
+    /**
+     * Closes the underlying stream and {@link #release() releases} the stream's {@link Inflater},
+     * if it has one.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            release();
+        } finally {
+            super.close();
+        }
+    }
+
     /**
      * Read an NBT compound from the inputStream
      *
@@ -142,7 +237,12 @@ public class NBTInputStream extends DataInputStream {
     public String readString(boolean intern) throws IOException {
         String utf = readUTF();
         if (intern) {
-            return utf.intern();
+            if (internCache == null) {
+                internCache = new HashMap<>();
+            } else if (internCache.size() >= MAX_INTERN_CACHE_SIZE) {
+                internCache.clear();
+            }
+            return internCache.computeIfAbsent(utf, String::intern);
         }
         return utf;
     }
@@ -162,8 +262,8 @@ public class NBTInputStream extends DataInputStream {
             return new long[0];
         }
 
-        byte[] bytes = new byte[length * 8];
-        readFully(bytes);
+        byte[] bytes = scratch(length * 8L);
+        readFully(bytes, 0, length * 8);
         int byteIndex = 0;
 
         long[] longArray = new long[length];
@@ -191,8 +291,8 @@ public class NBTInputStream extends DataInputStream {
                     "TAG_Int_Array was prefixed with a negative length"));
         }
 
-        byte[] bytes = new byte[length * 4];
-        readFully(bytes);
+        byte[] bytes = scratch(length * 4L);
+        readFully(bytes, 0, length * 4);
         int byteIndex = 0;
 
         int[] intArray = new int[length];
@@ -285,19 +385,109 @@ public class NBTInputStream extends DataInputStream {
     }
 
     /**
-     * Check if the underlying InputStream contains gzipped data. If it does, it is wrapped in a
-     * {@link GZIPInputStream}
+     * Check if the underlying InputStream contains gzipped data. If it does, it is inflated the
+     * same way as by a {@link GZIPInputStream}
      */
     public synchronized void gunzipIfNecessary() throws IOException {
-        this.in = new PushbackInputStream(this.in, 2);
+        InputStream source = this.in;
+        boolean gzipped;
+
+        if (source == arrayInput) {
+            gzipped = arrayInput.isGzipped();
+        } else {
+            PushbackInputStream pushback;
+            if (source == peekInput || source instanceof GzipInput) {
+                pushback = new PushbackInputStream(source, 2);
+            } else {
+                if (peekInput == null) {
+                    peekInput = new PeekInput();
+                }
+                peekInput.reset(source);
+                pushback = peekInput;
+            }
+            this.in = pushback;
+
+            byte byte1 = (byte) read();
+            byte byte2 = (byte) read();
+            pushback.unread(new byte[]{byte1, byte2});
+
+            // Check for gzip header (0x1F8B)
+            gzipped = byte1 == 31 && byte2 == -117;
+        }
+
+        if (gzipped) {
+            if (source instanceof GzipInput) {
+                // Data that was gzipped more than once. The inner layer needs its own inflater,
+                // which it releases once the end of its data is read.
+                GzipInput nested = new GzipInput();
+                try {
+                    nested.reset(this.in);
+                } catch (IOException e) {
+                    nested.release();
+                    throw e;
+                }
+                this.in = nested;
+            } else {
+                if (gzipInput == null) {
+                    gzipInput = new GzipInput();
+                }
+                gzipInput.reset(this.in);
+                this.in = gzipInput;
+            }
+        }
+    }
+
+    /**
+     * @return A buffer of at least {@code size} bytes, which may be reused by later calls.
+     * @throws NBTParseException If the {@code size} is too large for an array.
+     */
+    private byte[] scratch(long size) throws NBTParseException {
+        if (size > Integer.MAX_VALUE) {
+            throw new NBTParseException("Array is too large to be read: " + size + " bytes");
+        } else if (size > MAX_SCRATCH_SIZE) {
+            return new byte[(int) size];
+        } else if (scratch == null || scratch.length < size) {
+            scratch = new byte[(int) Math.max(size, 64)];
+        }
+        return scratch;
+    }
 
-        byte byte1 = (byte) read();
-        byte byte2 = (byte) read();
-        ((PushbackInputStream) this.in).unread(new byte[]{byte1, byte2});
+    /* ============ REUSABLE STREAMS ============ */
+
+    /**
+     * A {@link ByteArrayInputStream} that can be pointed at a different array.
+     */
+    private static final class ArrayInput extends ByteArrayInputStream {
+
+        ArrayInput() {
+            super(new byte[0]);
+        }
+
+        void reset(byte[] bytes, int offset, int length) {
+            buf = bytes;
+            pos = offset;
+            count = offset + length;
+            mark = offset;
+        }
+
+        boolean isGzipped() {
+            return count - pos >= 2 && buf[pos] == 31 && buf[pos + 1] == -117;
+        }
+    }
+
+    /**
+     * A {@link PushbackInputStream}, with room for two bytes, that can be pointed at a different
+     * stream.
+     */
+    private static final class PeekInput extends PushbackInputStream {
+
+        PeekInput() {
+            super(null, 2);
+        }
 
-        // Check for gzip header (0x1F8B)
-        if (byte1 == 31 && byte2 == -117) {
-            this.in = new GZIPInputStream(this.in);
+        void reset(InputStream source) {
+            in = source;
+            pos = buf.length;
         }
     }
-}
\ No newline at end of file
+}
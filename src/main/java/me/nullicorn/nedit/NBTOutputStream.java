@@ -5,7 +5,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Map.Entry;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.Deflater;
 import me.nullicorn.nedit.exception.NBTSerializationException;
 import me.nullicorn.nedit.type.NBTCompound;
 import me.nullicorn.nedit.type.NBTList;
@@ -13,13 +13,22 @@ import me.nullicorn.nedit.type.TagType;
 
 /**
  * An OutputStream for serializing data in the <a href=https://wiki.vg/NBT>NBT format</a>
+ * <p>
+ * Compressed streams borrow a {@link Deflater} from a pool shared by all streams, and return it
+ * once the gzipped data is finished, either by {@link #writeFully(NBTCompound) writeFully()} or by
+ * {@link #close()}. Streams that are abandoned before then should be {@link #release() released}.
  *
  * @author Nullicorn
  */
 public class NBTOutputStream extends DataOutputStream {
 
+    /**
+     * @param out      The stream that the NBT data is written to
+     * @param compress Whether or not the NBT data will be gzipped
+     * @throws IOException If the gzip header could not be written
+     */
     public NBTOutputStream(OutputStream out, boolean compress) throws IOException {
-        super(compress ? new GZIPOutputStream(out) : out);
+        super(compress ? new GzipOutput(out) : out);
     }
 
     /**
@@ -52,9 +61,34 @@ public class NBTOutputStream extends DataOutputStream {
             writeString(rootCompoundName);
             writeCompound(compound);
 
-            if (out instanceof GZIPOutputStream) {
-                ((GZIPOutputStream) out).finish();
-            }
+            finish();
+        }
+    }
+
+    /**
+     * Finishes writing gzipped data to the underlying stream without closing it, if the stream is
+     * compressed. Otherwise, the stream is just flushed.
+     *
+     * @throws IOException If the data could not be written
+     */
+    void finish() throws IOException {
+        flush();
+        if (out instanceof GzipOutput) {
+            ((GzipOutput) out).finish();
+        }
+    }
+
+    /**
+     * Returns the stream's {@link Deflater}, if it is compressed and has not finished yet, to a
+     * pool shared by all streams. Nothing else can be written to a compressed stream afterwards,
+     * and the gzipped data it has written so far is left incomplete.
+     * <p>
+     * This is only needed for streams that are abandoned before {@link #writeFully(NBTCompound)
+     * writeFully()} or {@link #close()} is called, such as when writing fails.
+     */
+    public void release() {
+        if (out instanceof GzipOutput) {
+            ((GzipOutput) out).release();
         }
     }
 
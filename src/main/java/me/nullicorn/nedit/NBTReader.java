@@ -1,12 +1,21 @@
 package me.nullicorn.nedit;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Base64;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import me.nullicorn.nedit.exception.NBTParseException;
 import me.nullicorn.nedit.type.NBTCompound;
 import me.nullicorn.nedit.type.TagType;
 
@@ -40,8 +49,98 @@ public final class NBTReader {
      * @see NBTInputStream#NBTInputStream(InputStream, boolean, boolean)
      */
     public static NBTCompound readBase64(String base64, boolean internNames, boolean internValues) throws IOException {
-        ByteArrayInputStream b64In = new ByteArrayInputStream(Base64.getDecoder().decode(base64));
-        return read(b64In, internNames, internValues);
+        return Base64Blobs.get().read(base64, internNames, internValues);
+    }
+
+    /**
+     * Read NBT data from many Base64 strings at once, using the {@link ForkJoinPool#commonPool()
+     * common pool}
+     *
+     * @param base64 Base64-encoded strings containing NBT data (each may be gzipped)
+     * @return The parsed compounds, in the same order as the strings they were read from
+     * @throws IOException If any of the strings could not be read properly
+     * @see #readAllBase64(Collection, Executor, boolean, boolean)
+     */
+    public static List<NBTCompound> readAllBase64(Collection<String> base64) throws IOException {
+        return readAllBase64(base64, ForkJoinPool.commonPool(), false, false);
+    }
+
+    /**
+     * Same as {@link #readAllBase64(Collection)}, but the strings are read using the supplied
+     * executor, with additional control over the interning of tag names and values
+     * <p>
+     * The strings are split into contiguous groups, a few per thread, each of which is read as a
+     * single task. Each thread reuses its own buffers and {@link java.util.zip.Inflater Inflater}
+     * for every string it reads, including in later calls to this method or to {@link
+     * #readBase64(String)}.
+     *
+     * @param executor     The executor that the strings are read on. If this is a {@link
+     *                     ForkJoinPool}, its parallelism decides how many groups the strings are
+     *                     split into
+     * @param internNames  Whether or not tag names inside of compounds will be interned
+     * @param internValues Whether or not {@link TagType#STRING} values inside compounds and lists
+     *                     will be interned
+     * @throws IOException If any of the strings is not valid Base64 or could not be read properly.
+     *                     The exception names the index of the first string that failed, and the
+     *                     original exception is its cause
+     * @see #readAllBase64(Collection)
+     * @see #readBase64(String, boolean, boolean)
+     */
+    public static List<NBTCompound> readAllBase64(Collection<String> base64, Executor executor, boolean internNames, boolean internValues) throws IOException {
+        Objects.requireNonNull(base64, "Base64 strings cannot be null");
+        Objects.requireNonNull(executor, "Executor cannot be null");
+
+        String[] blobs = base64.toArray(new String[0]);
+        NBTCompound[] results = new NBTCompound[blobs.length];
+        if (blobs.length == 0) {
+            return new ArrayList<>();
+        }
+
+        int parallelism = executor instanceof ForkJoinPool
+            ? ((ForkJoinPool) executor).getParallelism()
+            : Runtime.getRuntime().availableProcessors();
+        int groups = Math.min(blobs.length, Math.max(parallelism, 1) * 4);
+
+        // The first failure in each group, and the index of the string that caused it.
+        Throwable[] failures = new Throwable[groups];
+        int[] failedIndices = new int[groups];
+
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[groups];
+        for (int group = 0; group < groups; group++) {
+            int id = group;
+            int start = (int) ((long) blobs.length * group / groups);
+            int end = (int) ((long) blobs.length * (group + 1) / groups);
+
+            tasks[group] = CompletableFuture.runAsync(() -> {
+                Base64Blobs decoder = Base64Blobs.get();
+                for (int i = start; i < end; i++) {
+                    try {
+                        results[i] = decoder.read(blobs[i], internNames, internValues);
+                    } catch (IOException | RuntimeException e) {
+                        failures[id] = e;
+                        failedIndices[id] = i;
+                        return;
+                    }
+                }
+            }, executor);
+        }
+
+        try {
+            CompletableFuture.allOf(tasks).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading Base64 NBT");
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to read Base64 NBT", e.getCause());
+        }
+
+        for (int group = 0; group < groups; group++) {
+            if (failures[group] != null) {
+                throw new NBTParseException(
+                    "Unable to read Base64 NBT at index " + failedIndices[group], failures[group]);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(results));
     }
 
     /**
@@ -99,7 +198,12 @@ public final class NBTReader {
      * @see NBTInputStream#NBTInputStream(InputStream, boolean, boolean)
      */
     public static NBTCompound read(InputStream inputStream, boolean internNames, boolean internValues) throws IOException {
-        return new NBTInputStream(inputStream, internNames, internValues).readFully();
+        NBTInputStream in = new NBTInputStream(inputStream, internNames, internValues);
+        try {
+            return in.readFully();
+        } finally {
+            in.release();
+        }
     }
 
     private NBTReader() {
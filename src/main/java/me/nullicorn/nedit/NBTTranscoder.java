@@ -0,0 +1,145 @@
+package me.nullicorn.nedit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.Objects;
+
+/**
+ * A utility class for converting NBT data between its binary, stringified (SNBT), and JSON formats
+ * <p>
+ * Data is converted in a single pass as it is read, without building an {@link
+ * me.nullicorn.nedit.type.NBTCompound NBTCompound} first. This allows files that are too large to
+ * hold in memory as a tree (let alone a tree and a string at once) to be converted anyway. The
+ * result is the same as reading the data using {@link NBTReader} or {@link SNBTReader}, and then
+ * writing it using {@link NBTWriter} or {@link SNBTWriter}, except that tags are kept in the order
+ * they were read in.
+ * <p>
+ * Binary NBT can also be converted to and from JSON. Since JSON only has one number type, the
+ * types that are likely to be most common are written as plain JSON values, and the rest are
+ * written as objects with a single member whose name indicates the type:
+ * <ul>
+ *     <li>Compounds, lists, and strings are JSON objects, arrays, and strings.</li>
+ *     <li>Ints are JSON numbers without a decimal point or exponent, e.g. {@code 5}.</li>
+ *     <li>Doubles are JSON numbers with a decimal point or exponent, e.g. {@code 5.0}.</li>
+ *     <li>Bytes, shorts, longs, and floats are {@code {"$byte": 5}}, {@code {"$short": 5}}, {@code
+ *     {"$long": 5}}, and {@code {"$float": 5.0}} respectively.</li>
+ *     <li>Byte, int, and long arrays are {@code {"$bytes": [1, 2]}}, {@code {"$ints": [1, 2]}}, and
+ *     {@code {"$longs": [1, 2]}} respectively.</li>
+ *     <li>Floats and doubles that are infinite or NaN, which JSON numbers cannot represent, are
+ *     {@code {"$float": "NaN"}} and {@code {"$double": "Infinity"}} for example.</li>
+ * </ul>
+ * Tag names that start with {@code $} are written with an extra {@code $} in front, so that they
+ * are never confused for a type. When converting from JSON, the extra {@code $} is removed. Also,
+ * {@code true} and {@code false} become the bytes {@code 1} and {@code 0}, and numbers without a
+ * decimal point or exponent that are too large for an int become longs. Empty lists are given the
+ * {@link me.nullicorn.nedit.type.TagType#END END} type, since JSON does not say what they hold.
+ * <p>
+ * Streams and readers passed to these methods are not closed, and are read from or written to in
+ * small pieces, so they should be buffered.
+ *
+ * @author Nullicorn
+ */
+public final class NBTTranscoder {
+
+    /**
+     * Converts binary NBT data to SNBT.
+     *
+     * @param binary An input stream of binary NBT data, which may be gzipped. The root tag must be
+     *               a compound.
+     * @param snbt   The destination that the SNBT is appended to
+     * @param pretty Whether or not the SNBT will be pretty-printed
+     * @throws IOException If the binary data could not be read or is not valid NBT, or if the SNBT
+     *                     could not be appended to its destination
+     * @see SNBTWriter#write(Object, Appendable, boolean)
+     */
+    public static void binaryToSnbt(InputStream binary, Appendable snbt, boolean pretty) throws IOException {
+        Objects.requireNonNull(binary, "Input stream cannot be null");
+        Objects.requireNonNull(snbt, "Destination cannot be null");
+
+        NBTInputStream in = new NBTInputStream(binary);
+        try {
+            SNBTWriter.transcode(in, snbt, pretty);
+        } finally {
+            in.release();
+        }
+    }
+
+    /**
+     * Converts SNBT data to binary NBT. The elements of each list are buffered (in binary form)
+     * until the list ends, since binary lists are prefixed by their size.
+     *
+     * @param snbt     A reader of SNBT data. The root value must be a compound.
+     * @param binary   The output stream that the binary NBT data is written to. Its root compound
+     *                 is given an empty name.
+     * @param compress Whether or not the binary data will be gzipped
+     * @throws IOException If the SNBT data could not be read or is not valid, or if the binary data
+     *                     could not be written
+     * @see NBTOutputStream#writeFully(me.nullicorn.nedit.type.NBTCompound)
+     */
+    public static void snbtToBinary(Reader snbt, OutputStream binary, boolean compress) throws IOException {
+        Objects.requireNonNull(snbt, "Reader cannot be null");
+        Objects.requireNonNull(binary, "Output stream cannot be null");
+
+        NBTOutputStream out = new NBTOutputStream(binary, compress);
+        try {
+            SNBTReader.transcode(snbt, out);
+            out.finish();
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * Converts binary NBT data to JSON, using the mapping described {@link NBTTranscoder above}.
+     *
+     * @param binary An input stream of binary NBT data, which may be gzipped. The root tag must be
+     *               a compound.
+     * @param json   The destination that the JSON is appended to, such as a {@link
+     *               java.io.Writer}
+     * @throws IOException If the binary data could not be read or is not valid NBT, or if the JSON
+     *                     could not be appended to its destination
+     */
+    public static void binaryToJson(InputStream binary, Appendable json) throws IOException {
+        Objects.requireNonNull(binary, "Input stream cannot be null");
+        Objects.requireNonNull(json, "Destination cannot be null");
+
+        NBTInputStream in = new NBTInputStream(binary);
+        try {
+            JsonTranscoder.write(in, json);
+        } finally {
+            in.release();
+        }
+    }
+
+    /**
+     * Converts JSON data to binary NBT, using the mapping described {@link NBTTranscoder above}.
+     * The elements of each array are buffered (in binary form) until the array ends, since binary
+     * lists are prefixed by their size.
+     *
+     * @param json     A reader of JSON data. The root value must be an object.
+     * @param binary   The output stream that the binary NBT data is written to. Its root compound
+     *                 is given an empty name.
+     * @param compress Whether or not the binary data will be gzipped
+     * @throws IOException If the JSON data could not be read, is not valid, or cannot be
+     *                     represented as NBT (e.g. arrays with mixed types), or if the binary data
+     *                     could not be written
+     */
+    public static void jsonToBinary(Reader json, OutputStream binary, boolean compress) throws IOException {
+        Objects.requireNonNull(json, "Reader cannot be null");
+        Objects.requireNonNull(binary, "Output stream cannot be null");
+
+        NBTOutputStream out = new NBTOutputStream(binary, compress);
+        try {
+            JsonTranscoder.read(json, out);
+            out.finish();
+        } finally {
+            out.release();
+        }
+    }
+
+    private NBTTranscoder() {
+        throw new UnsupportedOperationException("NBTTranscoder should not be instantiated");
+    }
+}
@@ -169,7 +169,12 @@ public final class NBTWriter {
      * @see #write(NBTCompound, OutputStream, boolean)
      */
     public static void write(NBTCompound data, OutputStream outputStream, String rootCompoundName, boolean useCompression) throws IOException {
-        new NBTOutputStream(outputStream, useCompression).writeFully(data, rootCompoundName);
+        NBTOutputStream out = new NBTOutputStream(outputStream, useCompression);
+        try {
+            out.writeFully(data, rootCompoundName);
+        } finally {
+            out.release();
+        }
     }
 
     private NBTWriter() {
@@ -0,0 +1,141 @@
+package me.nullicorn.nedit;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import me.nullicorn.nedit.SNBTReader.Input;
+import me.nullicorn.nedit.exception.NBTParseException;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.TagType;
+
+/**
+ * Reads the elements of an SNBT list one at a time, directly from the {@link java.io.Reader} that
+ * the list is in.
+ * <p>
+ * Cursors are returned by {@link SNBTReader#seekList(java.io.Reader, String) seekList(...)}, and
+ * allow lists that are too large to fit in memory to be processed anyway. Nothing is kept from
+ * elements that were already read, so each one can be garbage collected as soon as the caller is
+ * done with it. Elements that are not needed can be {@link #skip(int) skipped} without being
+ * parsed.
+ * <p>
+ * Unlike binary NBT, SNBT lists do not declare their size or type up-front, so both are only
+ * known as the elements are read.
+ *
+ * @author Nullicorn
+ * @see me.nullicorn.nedit.filter.ListCursor
+ */
+public final class SNBTListCursor {
+
+    private final Input   input;
+    private final boolean internNames;
+    private final boolean internValues;
+
+    private TagType contentType; // Null until the first element is read.
+    private int     index;
+    private boolean isAtElement; // Whether the input is positioned at the next element.
+    private boolean hasEnded;
+
+    SNBTListCursor(Input input, boolean internNames, boolean internValues) {
+        this.input = input;
+        this.internNames = internNames;
+        this.internValues = internValues;
+    }
+
+    /**
+     * @return The NBT type of all elements in the list, or {@code null} if no elements have been
+     * read yet.
+     */
+    public TagType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return The number of elements that were already read or skipped.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return {@code true} if there are elements that have not been read or skipped yet. Otherwise
+     * {@code false}.
+     * @throws IOException If the reader could not be read from, or if the list is not valid SNBT.
+     */
+    public boolean hasNext() throws IOException {
+        if (!isAtElement && !hasEnded) {
+            isAtElement = SNBTReader.seekElement(input, index == 0);
+            hasEnded = !isAtElement;
+        }
+        return isAtElement;
+    }
+
+    /**
+     * Reads the next element from the reader.
+     *
+     * @throws IOException            If the element could not be read, or if its type is different
+     *                                from the elements before it.
+     * @throws NoSuchElementException If there are no elements left.
+     */
+    public Object next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        isAtElement = false;
+
+        Object element = SNBTReader.readElement(input, internNames, internValues);
+        TagType type = TagType.fromObject(element);
+        if (contentType == null) {
+            contentType = type;
+        } else if (type != contentType) {
+            throw new NBTParseException("SNBT list entry has type " + type +
+                                        ", but the list contains " + contentType + "s");
+        }
+
+        index++;
+        return element;
+    }
+
+    /**
+     * Same as {@link #next()}, but for lists of compounds.
+     *
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#COMPOUND COMPOUND}, or if it was not known yet
+     *                               and the element that was read is not a compound.
+     */
+    public NBTCompound nextCompound() throws IOException {
+        if (contentType != null && contentType != TagType.COMPOUND) {
+            throw new IllegalStateException("Cannot get COMPOUND from a list of " +
+                                            contentType + "s");
+        }
+
+        Object element = next();
+        if (contentType != TagType.COMPOUND) {
+            throw new IllegalStateException("Cannot get COMPOUND from a list of " +
+                                            contentType + "s");
+        }
+        return (NBTCompound) element;
+    }
+
+    /**
+     * Skips up to {@code n} elements without parsing them. The types of skipped elements are not
+     * checked.
+     *
+     * @return The number of elements skipped, which is less than {@code n} if there were fewer
+     * elements left.
+     * @throws IOException              If the elements could not be skipped.
+     * @throws IllegalArgumentException If {@code n} is negative.
+     */
+    public int skip(int n) throws IOException {
+        if (n < 0) {
+            throw new IllegalArgumentException("Cannot skip a negative number of elements: " + n);
+        }
+
+        int skipped = 0;
+        while (skipped < n && hasNext()) {
+            isAtElement = false;
+            SNBTReader.skipElement(input);
+            index++;
+            skipped++;
+        }
+        return skipped;
+    }
+}
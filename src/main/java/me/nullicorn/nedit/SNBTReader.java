@@ -1,12 +1,16 @@
 package me.nullicorn.nedit;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
-import java.lang.reflect.Array;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Predicate;
 import me.nullicorn.nedit.exception.NBTParseException;
+import me.nullicorn.nedit.filter.FilterNode;
+import me.nullicorn.nedit.filter.FilteredTag;
+import me.nullicorn.nedit.filter.NBTFilter;
 import me.nullicorn.nedit.type.NBTCompound;
 import me.nullicorn.nedit.type.NBTList;
 import me.nullicorn.nedit.type.TagType;
@@ -34,22 +38,32 @@ public final class SNBTReader {
     private static final char STRING_DELIMITER_2 = '\'';
     private static final char STRING_ESCAPE      = '\\';
 
-    private static final String BYTE_PATTERN   = "^[+-]?\\d+[Bb]$";
-    private static final String SHORT_PATTERN  = "^[+-]?\\d+[Ss]$";
-    private static final String INT_PATTERN    = "^[+-]?\\d+$";
-    private static final String LONG_PATTERN   = "^[+-]?\\d+[Ll]$";
-    private static final String FLOAT_PATTERN  = "^[+-]?[0-9]*\\.?[0-9]+[Ff]$";
-    private static final String DOUBLE_PATTERN = "^[+-]?[0-9]*\\.?[0-9]+[Dd]$";
+    /**
+     * Powers of ten that can be represented exactly by a double, used to parse short decimal
+     * literals without rounding twice.
+     */
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
 
     /**
-     * Used to find and delete suffixes from numeric literals.
+     * Same as {@link #DOUBLE_POWERS_OF_TEN}, but for floats.
      */
-    private static final String LITERAL_SUFFIX_PATTERN = "[BbDdFfLlSs]$";
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
 
     /**
-     * All characters that can be used in strings without quotation marks (including tag names).
+     * The number of elements that byte, int, and long arrays have room for before they are first
+     * grown.
      */
-    private static final String VALID_UNQUOTED_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-+_.";
+    private static final int INITIAL_ARRAY_CAPACITY = 16;
+
+    /**
+     * The number of characters initially buffered by inputs that are backed by a {@link Reader}.
+     */
+    private static final int READER_BUFFER_SIZE = 8192;
 
     /**
      * Read an NBT value from an SNBT (stringified NBT) string.
@@ -78,7 +92,18 @@ public final class SNBTReader {
      * @see String#intern()
      */
     public static Object read(String snbt, boolean internNames, boolean internValues) throws IOException {
-        return read(new StringReader(snbt.trim()), internNames, internValues);
+        return read((CharSequence) snbt, internNames, internValues);
+    }
+
+    /**
+     * Same as {@link #read(String, boolean, boolean)}, but the SNBT is read from any sequence of
+     * characters, such as a {@link StringBuilder} or {@link java.nio.CharBuffer}, without copying
+     * it into a string first.
+     *
+     * @see #read(String, boolean, boolean)
+     */
+    public static Object read(CharSequence snbt, boolean internNames, boolean internValues) throws IOException {
+        return read(new Input(snbt), internNames, internValues);
     }
 
     /**
@@ -103,7 +128,39 @@ public final class SNBTReader {
      * @see String#intern()
      */
     public static NBTCompound readCompound(String snbt, boolean internNames, boolean internValues) throws IOException {
-        return readCompound(new StringReader(snbt.trim()), internNames, internValues);
+        return readCompound((CharSequence) snbt, internNames, internValues);
+    }
+
+    /**
+     * Same as {@link #readCompound(String, boolean, boolean)}, but the SNBT is read from any
+     * sequence of characters, such as a {@link StringBuilder} or {@link java.nio.CharBuffer},
+     * without copying it into a string first.
+     *
+     * @see #readCompound(String, boolean, boolean)
+     */
+    public static NBTCompound readCompound(CharSequence snbt, boolean internNames, boolean internValues) throws IOException {
+        return readCompound(new Input(snbt), internNames, internValues);
+    }
+
+    /**
+     * Same as {@link #readCompound(String, boolean, boolean)}, but the SNBT is read directly from
+     * an array of characters. Changes made to the array while it is being read will affect the
+     * result.
+     *
+     * @see #readCompound(String, boolean, boolean)
+     */
+    public static NBTCompound readCompound(char[] snbt, boolean internNames, boolean internValues) throws IOException {
+        return readCompound(new Input(snbt), internNames, internValues);
+    }
+
+    /**
+     * Same as {@link #readCompound(String, boolean, boolean)}, but the SNBT is read from UTF-8
+     * encoded bytes, such as the contents of a file or network message.
+     *
+     * @see #readCompound(String, boolean, boolean)
+     */
+    public static NBTCompound readCompound(byte[] utf8, boolean internNames, boolean internValues) throws IOException {
+        return readCompound(new String(utf8, StandardCharsets.UTF_8), internNames, internValues);
     }
 
     /**
@@ -128,165 +185,356 @@ public final class SNBTReader {
      * @see String#intern()
      */
     public static NBTList readList(String snbt, boolean internNames, boolean internValues) throws IOException {
-        return readList(new StringReader(snbt.trim()), internNames, internValues);
+        return readList((CharSequence) snbt, internNames, internValues);
+    }
+
+    /**
+     * Same as {@link #readList(String, boolean, boolean)}, but the SNBT is read from any sequence
+     * of characters, such as a {@link StringBuilder} or {@link java.nio.CharBuffer}, without
+     * copying it into a string first.
+     *
+     * @see #readList(String, boolean, boolean)
+     */
+    public static NBTList readList(CharSequence snbt, boolean internNames, boolean internValues) throws IOException {
+        return readList(new Input(snbt), internNames, internValues);
+    }
+
+    /**
+     * Read an NBT compound from an SNBT (stringified NBT) string, only keeping the tags allowed by
+     * a {@code filter}. Values that are not allowed are skipped over without being parsed.
+     *
+     * @param snbt   The text to parse into NBT
+     * @param filter The filter to apply to the compound and any of its child tags
+     * @return The parsed NBT compound, conforming to the {@code filter}'s rules, or {@code null} if
+     * it does not pass one of the filter's {@link NBTFilter#addPredicate(String, Predicate)
+     * predicates}
+     * @throws IOException If the input string cannot be read or is not a valid SNBT compound
+     * @see me.nullicorn.nedit.filter.FilteredNBTInputStream#readFully(NBTFilter)
+     */
+    public static NBTCompound readCompound(String snbt, NBTFilter filter) throws IOException {
+        return readCompound(snbt, filter, false, false);
+    }
+
+    /**
+     * Same as {@link #readCompound(String, NBTFilter)}, but with additional control over the
+     * interning of tag names and values
+     *
+     * @param internNames  Whether or not tag names inside of compounds will be interned
+     * @param internValues Whether or not {@link TagType#STRING} values inside compounds and lists
+     *                     will be interned
+     * @see #readCompound(String, NBTFilter)
+     * @see String#intern()
+     */
+    public static NBTCompound readCompound(String snbt, NBTFilter filter, boolean internNames, boolean internValues) throws IOException {
+        return readCompound((CharSequence) snbt, filter, internNames, internValues);
+    }
+
+    /**
+     * Same as {@link #readCompound(String, NBTFilter)}, but the SNBT is read from any sequence of
+     * characters, such as a {@link StringBuilder} or {@link java.nio.CharBuffer}, without copying
+     * it into a string first.
+     *
+     * @see #readCompound(String, NBTFilter)
+     */
+    public static NBTCompound readCompound(CharSequence snbt, NBTFilter filter) throws IOException {
+        return readCompound(snbt, filter, false, false);
     }
 
     /**
-     * Read an SNBT value with an unknown type from the current index of a reader
+     * Same as {@link #readCompound(String, NBTFilter, boolean, boolean)}, but the SNBT is read from
+     * any sequence of characters, without copying it into a string first.
+     *
+     * @see #readCompound(CharSequence, NBTFilter)
      */
-    private static Object read(Reader reader, boolean internNames, boolean internValues) throws IOException {
-        final int firstChar = peekChar(reader);
+    public static NBTCompound readCompound(CharSequence snbt, NBTFilter filter, boolean internNames, boolean internValues) throws IOException {
+        Input input = new Input(snbt);
+        FilterNode root = filter.compile();
+        return readCompound(input, root, true, internNames, internValues);
+    }
+
+    /**
+     * Same as {@link #seekList(Reader, String, boolean, boolean)}, but tag names and values are
+     * not interned.
+     */
+    public static SNBTListCursor seekList(Reader reader, String path) throws IOException {
+        return seekList(reader, path, false, false);
+    }
+
+    /**
+     * Reads SNBT from a {@code reader} up to the list at the {@code path}, without parsing any of
+     * the values before it, and returns a cursor for reading the list's elements one at a time.
+     * <p>
+     * Unlike the other methods in this class, the SNBT does not need to fit in memory as a string.
+     * The reader is buffered internally, and text is dropped from the buffer once the values in
+     * it have been read or skipped. This allows documents with lists that are much larger than the
+     * available memory to be processed anyway, as long as each element fits.
+     * <p>
+     * Once the cursor has no elements left, the reader is positioned somewhere after the end of
+     * the list. The reader is not closed by this method or the cursor.
+     *
+     * @param path         The name of the list in the root compound. <a
+     *                     href="type/NBTCompound.html#nesting">Dot-notation</a> can be used for
+     *                     lists inside of nested compounds, e.g. {@code data.items}. If empty, the
+     *                     root value itself must be a list.
+     * @param internNames  Whether or not tag names inside of the list's elements will be interned
+     * @param internValues Whether or not {@link TagType#STRING} values inside of the list's
+     *                     elements will be interned
+     * @return A cursor over the list's elements, or {@code null} if the root compound has no tag
+     * at the {@code path}
+     * @throws IOException If the reader could not be read from, if the SNBT is invalid, or if the
+     *                     tag at the {@code path} is not a list (or one of its parents is not a
+     *                     compound)
+     * @see me.nullicorn.nedit.filter.FilteredNBTInputStream#seekList(String)
+     */
+    public static SNBTListCursor seekList(Reader reader, String path, boolean internNames, boolean internValues) throws IOException {
+        Objects.requireNonNull(reader, "Reader cannot be null");
+        Objects.requireNonNull(path, "Path cannot be null");
+
+        Input input = new Input(reader);
+        skipWhitespace(input);
+
+        if (!path.isEmpty()) {
+            String[] tokens = FilteredTag.tokenizeTagName(path);
+            for (int i = 0; i < tokens.length; i++) {
+                TagType expectedType = i + 1 == tokens.length ? TagType.LIST : TagType.COMPOUND;
+                if (peekChar(input) != COMPOUND_START) {
+                    throw new NBTParseException("Expected " + expectedType + " at " + tokens[i] +
+                                                ", but its parent is not a compound");
+                }
+                input.position++;
+
+                if (!seekEntry(input, tokens[i])) {
+                    return null;
+                } else if (expectedType == TagType.COMPOUND && peekChar(input) != COMPOUND_START) {
+                    throw new NBTParseException("Expected COMPOUND at " + tokens[i]);
+                }
+            }
+        }
+
+        if (!isContainerAhead(input) || readChar(input) != ARRAY_START) {
+            throw new NBTParseException("Expected LIST at " + (path.isEmpty() ? "root" : path));
+        }
+        return new SNBTListCursor(input, internNames, internValues);
+    }
+
+    /**
+     * Read an SNBT value with an unknown type from the current index of an input
+     */
+    private static Object read(Input input, boolean internNames, boolean internValues) throws IOException {
+        final int firstChar = peekChar(input);
 
         switch (firstChar) {
             case COMPOUND_START:
-                return readCompound(reader, internNames, internValues);
+                return readCompound(input, internNames, internValues);
 
             case ARRAY_START:
-                return readIterable(reader, internNames, internValues);
+                return readIterable(input, internNames, internValues);
 
             default:
-                return readLiteral(reader, internValues);
+                return readLiteral(input, internValues);
         }
     }
 
     /**
-     * Read an SNBT compound from the current index of a reader
+     * Read an SNBT compound from the current index of an input
      */
-    private static NBTCompound readCompound(Reader reader, boolean internNames, boolean internValues) throws IOException {
+    private static NBTCompound readCompound(Input input, boolean internNames, boolean internValues) throws IOException {
         NBTCompound compound = new NBTCompound();
 
-        if (readChar(reader) != COMPOUND_START) {
+        if (readChar(input) != COMPOUND_START) {
             throw new NBTParseException("Invalid start of SNBT TAG_Compound");
         }
 
         do {
-            skipWhitespace(reader);
+            skipWhitespace(input);
 
             // Check if we've reached the end of the compound.
-            reader.mark(1);
-            if (readChar(reader) == COMPOUND_END) {
+            if (peekChar(input) == COMPOUND_END) {
+                input.position++;
                 break;
             }
-            reader.reset();
 
             // Read the entry's key/name.
-            String key = readString(reader, internNames);
+            String key = readString(input, internNames);
 
             // Ensure there's a colon between the key and value.
-            skipWhitespace(reader);
-            if (readChar(reader) != ENTRY_VALUE_INDICATOR) {
+            skipWhitespace(input);
+            if (readChar(input) != ENTRY_VALUE_INDICATOR) {
                 throw new NBTParseException("Invalid value indicator in SNBT TAG_Compound");
             }
-            skipWhitespace(reader);
+            skipWhitespace(input);
 
             // Read the value and add it to the returned compound.
-            compound.put(key, read(reader, internNames, internValues));
-            skipWhitespace(reader);
-        } while (readChar(reader) == ENTRY_SEPARATOR);
+            compound.put(key, read(input, internNames, internValues));
+            skipWhitespace(input);
+        } while (readChar(input) == ENTRY_SEPARATOR);
 
         return compound;
     }
 
     /**
-     * Read an SNBT iterable type from the current index of a reader
+     * Read an SNBT iterable type from the current index of an input
      * <p>
-     * If the type is known to be a list, prefer {@link #readList(Reader, boolean, boolean)}
+     * If the type is known to be a list, prefer {@link #readList(Input, boolean, boolean)}
      */
-    private static Object readIterable(Reader reader, boolean internNames, boolean internValues) throws IOException {
-        reader.mark(3);
-
-        if (readChar(reader) != ARRAY_START) {
+    private static Object readIterable(Input input, boolean internNames, boolean internValues) throws IOException {
+        if (peekChar(input) != ARRAY_START) {
             throw new NBTParseException("Invalid start of SNBT iterable");
         }
 
-        int secondChar = readChar(reader);
-        int thirdChar = readChar(reader);
-
-        final TagType arrayType;
-
-        if (thirdChar == ARRAY_TYPE_INDICATOR) {
-            switch (secondChar) {
-                // TODO: Add constants for these
-                case 'B':
-                    arrayType = TagType.BYTE_ARRAY;
-                    break;
-
-                case 'I':
-                    arrayType = TagType.INT_ARRAY;
-                    break;
+        TagType arrayType = arrayTypeAhead(input);
+        if (arrayType == null) {
+            return readList(input, internNames, internValues);
+        }
 
-                case 'L':
-                    arrayType = TagType.LONG_ARRAY;
-                    break;
+        input.position += 3; // Skip the array's header.
+        return readArrayElements(input, arrayType);
+    }
 
-                default:
-                    throw new NBTParseException("Unknown SNBT array type");
-            }
-        } else {
-            reader.reset();
-            return readList(reader, internNames, internValues);
+    /**
+     * Read the elements of a byte, int, or long array from the current index of an input, up to
+     * and including the character that closes the array. Elements are collected in a primitive
+     * buffer, which is only copied if it ends up larger than the array.
+     */
+    private static Object readArrayElements(Input input, TagType arrayType) throws IOException {
+        byte[] bytes = null;
+        int[] ints = null;
+        long[] longs = null;
+        switch (arrayType) {
+            case BYTE_ARRAY:
+                bytes = new byte[INITIAL_ARRAY_CAPACITY];
+                break;
+            case INT_ARRAY:
+                ints = new int[INITIAL_ARRAY_CAPACITY];
+                break;
+            default:
+                longs = new long[INITIAL_ARRAY_CAPACITY];
+                break;
         }
 
-        List<Object> values = new ArrayList<>();
+        int size = 0;
         do {
-            skipWhitespace(reader);
+            skipWhitespace(input);
 
             // Check if we've reached the end of the array.
-            reader.mark(1);
-            if (readChar(reader) == ARRAY_END) {
+            if (peekChar(input) == ARRAY_END) {
+                input.position++;
                 break;
             }
-            reader.reset();
-
-            // Read the next value from the array.
-            Object value = readLiteral(reader, internValues);
 
-            // Ensure that the value's type matches that of the array itself.
-            if (arrayType == TagType.BYTE_ARRAY && value instanceof Byte
-                || arrayType == TagType.INT_ARRAY && value instanceof Integer
-                || arrayType == TagType.LONG_ARRAY && value instanceof Long) {
-                values.add(value);
+            long value = readArrayElement(input, arrayType);
+            if (bytes != null) {
+                if (size == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, size * 2);
+                }
+                bytes[size++] = (byte) value;
+            } else if (ints != null) {
+                if (size == ints.length) {
+                    ints = Arrays.copyOf(ints, size * 2);
+                }
+                ints[size++] = (int) value;
             } else {
-                throw new NBTParseException("Mismatch between SNBT array and element types");
+                if (size == longs.length) {
+                    longs = Arrays.copyOf(longs, size * 2);
+                }
+                longs[size++] = value;
             }
 
-            skipWhitespace(reader);
-        } while (readChar(reader) == ENTRY_SEPARATOR);
+            skipWhitespace(input);
+        } while (readChar(input) == ENTRY_SEPARATOR);
 
-        // Unwrap the value list into a primitive array.
-        final Object result = Array.newInstance(
-            arrayType.getRuntimeType().getComponentType(),
-            values.size());
-        for (int i = 0; i < values.size(); i++) {
-            Array.set(result, i, values.get(i));
+        if (bytes != null) {
+            return size == bytes.length ? bytes : Arrays.copyOf(bytes, size);
+        } else if (ints != null) {
+            return size == ints.length ? ints : Arrays.copyOf(ints, size);
         }
-        return result;
+        return size == longs.length ? longs : Arrays.copyOf(longs, size);
     }
 
     /**
-     * Read an SNBT list from the current index of a reader
+     * Read a single element of a byte, int, or long array from the current index of an input,
+     * without boxing it
+     *
+     * @throws NBTParseException If the element's type does not match the array's
      */
-    private static NBTList readList(Reader reader, boolean internNames, boolean internValues) throws IOException {
-        if (readChar(reader) != ARRAY_START) {
+    private static long readArrayElement(Input input, TagType arrayType) throws IOException {
+        int start = input.position;
+        skipUnquoted(input);
+        int end = input.position;
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (input.charAt(i) == '+' || input.charAt(i) == '-')) {
+            negative = input.charAt(i) == '-';
+            i++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        for (; i < end; i++) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            value = value * 10 + (c - '0');
+            digits++;
+        }
+        value = negative ? -value : value;
+
+        // Byte and long elements must have their type's suffix, and int elements must not.
+        boolean isExpectedType;
+        switch (arrayType) {
+            case BYTE_ARRAY:
+                isExpectedType = i == end - 1
+                                 && (input.charAt(i) == 'b' || input.charAt(i) == 'B')
+                                 && value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE;
+                break;
+            case INT_ARRAY:
+                isExpectedType = i == end
+                                 && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+                break;
+            default:
+                isExpectedType = i == end - 1
+                                 && (input.charAt(i) == 'l' || input.charAt(i) == 'L');
+                break;
+        }
+        if (isExpectedType && digits > 0 && digits <= 18) {
+            return value;
+        }
+
+        // Leave anything unusual to the general parser, which throws if the value is out of range.
+        Object number = parseNumber(input, start, end);
+        if (arrayType == TagType.BYTE_ARRAY && number instanceof Byte
+            || arrayType == TagType.INT_ARRAY && number instanceof Integer
+            || arrayType == TagType.LONG_ARRAY && number instanceof Long) {
+            return ((Number) number).longValue();
+        }
+        throw new NBTParseException("Mismatch between SNBT array and element types");
+    }
+
+    /**
+     * Read an SNBT list from the current index of an input
+     */
+    private static NBTList readList(Input input, boolean internNames, boolean internValues) throws IOException {
+        if (readChar(input) != ARRAY_START) {
             throw new NBTParseException("Invalid start of SNBT list");
         }
 
         NBTList list = null;
         do {
-            skipWhitespace(reader);
+            skipWhitespace(input);
 
             // Check if we've reached the end of the list.
-            reader.mark(1);
-            if (readChar(reader) == ARRAY_END) {
+            if (peekChar(input) == ARRAY_END) {
+                input.position++;
                 if (list == null) {
                     return new NBTList(TagType.END);
                 }
                 break;
             }
-            reader.reset();
 
             // Read the next value from the list.
-            Object entry = read(reader, internNames, internValues);
+            Object entry = read(input, internNames, internValues);
 
             if (list == null) {
                 // Create a new list using the tag type of the first entry.
@@ -296,89 +544,786 @@ public final class SNBTReader {
                 }
             }
             list.add(entry);
-        } while (readChar(reader) == ENTRY_SEPARATOR);
+            skipWhitespace(input);
+        } while (readChar(input) == ENTRY_SEPARATOR);
 
         return list;
     }
 
+    /*
+     *
+     * ============ INCREMENTAL READING ============
+     *
+     */
+
+    /**
+     * Skips entries in the compound at the current index of an input until one with the {@code
+     * name} is found, leaving the input positioned at that entry's value.
+     *
+     * @return {@code false} if the compound ended first. Otherwise {@code true}.
+     */
+    private static boolean seekEntry(Input input, String name) throws IOException {
+        do {
+            skipWhitespace(input);
+            if (peekChar(input) == COMPOUND_END) {
+                input.position++;
+                return false;
+            }
+
+            String key = readString(input, false);
+            skipWhitespace(input);
+            if (readChar(input) != ENTRY_VALUE_INDICATOR) {
+                throw new NBTParseException("Invalid value indicator in SNBT TAG_Compound");
+            }
+            skipWhitespace(input);
+
+            if (key.equals(name)) {
+                return true;
+            }
+            input.discard();
+            skipValue(input);
+            skipWhitespace(input);
+        } while (readChar(input) == ENTRY_SEPARATOR);
+        return false;
+    }
+
+    /**
+     * Moves an input to the start of the next element in a list, for an {@link SNBTListCursor}.
+     *
+     * @param isFirst Whether or not the input is at the start of the list's contents. Otherwise,
+     *                it must be right after the previous element.
+     * @return {@code false} if the list ended first, in which case the input is positioned after
+     * it. Otherwise {@code true}.
+     */
+    static boolean seekElement(Input input, boolean isFirst) throws IOException {
+        skipWhitespace(input);
+        if (!isFirst) {
+            int separator = readChar(input);
+            if (separator == ARRAY_END) {
+                return false;
+            } else if (separator != ENTRY_SEPARATOR) {
+                throw new NBTParseException("Invalid separator in SNBT list");
+            }
+            skipWhitespace(input);
+        }
+
+        if (peekChar(input) == ARRAY_END) {
+            input.position++;
+            return false;
+        }
+        input.discard();
+        return true;
+    }
+
+    /**
+     * Reads the list element at the current index of an input, for an {@link SNBTListCursor}.
+     */
+    static Object readElement(Input input, boolean internNames, boolean internValues) throws IOException {
+        return read(input, internNames, internValues);
+    }
+
+    /**
+     * Skips the list element at the current index of an input, for an {@link SNBTListCursor}.
+     */
+    static void skipElement(Input input) throws IOException {
+        skipValue(input);
+    }
+
+    /*
+     *
+     * ============ TRANSCODING ============
+     *
+     */
+
     /**
-     * Read any SNBT literal type from the current index of a reader
+     * Converts an SNBT compound to binary NBT as it is parsed, for {@link NBTTranscoder}.
      * <p>
-     * If the value is known to be a string, prefer {@link #readString(Reader, boolean)}
+     * Binary lists are prefixed with their type and size, which aren't known until the end of an
+     * SNBT list. Because of that, each list's elements are buffered in binary form until the list
+     * ends. Nothing else is held onto once it has been written.
      */
-    private static Object readLiteral(Reader reader, boolean intern) throws IOException {
-        // Check if the value is in quotes.
-        int firstChar = peekChar(reader);
-        boolean isQuoted = firstChar == STRING_DELIMITER_1 || firstChar == STRING_DELIMITER_2;
+    static void transcode(Reader reader, NBTOutputStream out) throws IOException {
+        Input input = new Input(reader);
+        skipWhitespace(input);
+        if (peekChar(input) != COMPOUND_START) {
+            throw new NBTParseException("Invalid start of SNBT TAG_Compound");
+        }
 
-        String asString = readString(reader, false);
+        out.writeTagType(TagType.COMPOUND);
+        out.writeString("");
+        transcodeValue(input, out, null);
+    }
 
-        // Always use the string type for text in quotes.
-        if (isQuoted) {
-            return asString;
+    /**
+     * Converts the SNBT value at the current index of an input to binary NBT
+     *
+     * @param name The name to write before the value, preceded by its type, or {@code null} if the
+     *             value is a list element (which has neither)
+     * @return The type of the value that was written
+     */
+    private static TagType transcodeValue(Input input, NBTOutputStream out, String name) throws IOException {
+        Object value = null;
+        TagType type;
+        int firstChar = peekChar(input);
+        if (firstChar == COMPOUND_START) {
+            type = TagType.COMPOUND;
+        } else if (firstChar == ARRAY_START && isContainerAhead(input)) {
+            type = TagType.LIST;
+        } else {
+            value = firstChar == ARRAY_START
+                ? readIterable(input, false, false)
+                : readLiteral(input, false);
+            type = TagType.fromObject(value);
         }
 
-        String withoutSuffix = asString.replaceFirst(LITERAL_SUFFIX_PATTERN, "");
+        if (name != null) {
+            out.writeTagType(type);
+            out.writeString(name);
+        }
 
-        // Try to parse the string as a numeric value.
-        if (asString.matches(INT_PATTERN)) {
-            return Integer.parseInt(withoutSuffix);
+        if (type == TagType.COMPOUND) {
+            transcodeCompound(input, out);
+        } else if (type == TagType.LIST) {
+            transcodeList(input, out);
+        } else {
+            out.writeValue(value);
+        }
+        return type;
+    }
 
-        } else if (asString.matches(DOUBLE_PATTERN)) {
-            return Double.parseDouble(withoutSuffix);
+    private static void transcodeCompound(Input input, NBTOutputStream out) throws IOException {
+        input.position++; // Opening brace.
+        do {
+            skipWhitespace(input);
+            if (peekChar(input) == COMPOUND_END) {
+                input.position++;
+                break;
+            }
+            input.discard();
 
-        } else if (asString.matches(BYTE_PATTERN)) {
-            return Byte.parseByte(withoutSuffix);
+            String key = readString(input, false);
+            skipWhitespace(input);
+            if (readChar(input) != ENTRY_VALUE_INDICATOR) {
+                throw new NBTParseException("Invalid value indicator in SNBT TAG_Compound");
+            }
+            skipWhitespace(input);
 
-        } else if (asString.matches(SHORT_PATTERN)) {
-            return Short.parseShort(withoutSuffix);
+            transcodeValue(input, out, key);
+            skipWhitespace(input);
+        } while (readChar(input) == ENTRY_SEPARATOR);
 
-        } else if (asString.matches(LONG_PATTERN)) {
-            return Long.parseLong(withoutSuffix);
+        out.writeTagType(TagType.END);
+    }
 
-        } else if (asString.matches(FLOAT_PATTERN)) {
-            return Float.parseFloat(withoutSuffix);
+    private static void transcodeList(Input input, NBTOutputStream out) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        NBTOutputStream elements = new NBTOutputStream(buffer, false);
+        TagType contentType = TagType.END;
+        int size = 0;
 
-        } else {
-            // Fall-back to string value.
-            if (intern) {
-                return asString.intern();
+        input.position++; // Opening bracket.
+        do {
+            skipWhitespace(input);
+            if (peekChar(input) == ARRAY_END) {
+                input.position++;
+                break;
             }
-            return asString;
+            input.discard();
+
+            TagType type = transcodeValue(input, elements, null);
+            if (size == 0) {
+                contentType = type;
+            } else if (type != contentType) {
+                throw new NBTParseException("SNBT list entry has type " + type +
+                                            ", but the list contains " + contentType + "s");
+            }
+            size++;
+            skipWhitespace(input);
+        } while (readChar(input) == ENTRY_SEPARATOR);
+
+        out.writeTagType(contentType);
+        out.writeInt(size);
+        buffer.writeTo(out);
+    }
+
+    /*
+     *
+     * ============ FILTERED READING ============
+     *
+     */
+
+    /**
+     * Read an SNBT compound from the current index of an input, applying a {@code filter} to its
+     * contents
+     *
+     * @param isRoot Whether or not the compound is the outermost one being read. If so, reading
+     *               stops as soon as nothing else in the compound could be allowed by the filter.
+     * @return The filtered compound, or {@code null} if it does not pass one of the filter's
+     * predicates
+     */
+    private static NBTCompound readCompound(Input input, FilterNode filter, boolean isRoot, boolean internNames, boolean internValues) throws IOException {
+        NBTCompound compound = new NBTCompound();
+
+        if (readChar(input) != COMPOUND_START) {
+            throw new NBTParseException("Invalid start of SNBT TAG_Compound");
         }
+
+        // If only the node's named children can match, count how many are left to be read.
+        int childrenLeft = filter.isClosed() ? filter.getChildCount() : -1;
+        int predicatesLeft = filter.getPredicateCount();
+
+        do {
+            if (childrenLeft == 0) {
+                // Nothing else in the compound can be allowed by the filter.
+                if (!isRoot) {
+                    skipEntries(input, true);
+                }
+                return compound;
+            }
+
+            skipWhitespace(input);
+
+            // Check if we've reached the end of the compound.
+            if (peekChar(input) == COMPOUND_END) {
+                input.position++;
+                break;
+            }
+
+            // Read the entry's key/name.
+            String key = readString(input, internNames);
+
+            // Ensure there's a colon between the key and value.
+            skipWhitespace(input);
+            if (readChar(input) != ENTRY_VALUE_INDICATOR) {
+                throw new NBTParseException("Invalid value indicator in SNBT TAG_Compound");
+            }
+            skipWhitespace(input);
+
+            FilterNode childFilter = filter.child(key);
+            Predicate<Object> predicate = filter.getPredicate(key);
+            boolean isContainer = isContainerAhead(input);
+            boolean keep = childFilter == FilterNode.ALL
+                           || childFilter != FilterNode.NONE
+                              && (isContainer || childFilter.includesLeaves());
+
+            if (keep || predicate != null) {
+                // Values with predicates are read even if they aren't kept, so they can be tested.
+                Object value = isContainer && keep && childFilter != FilterNode.ALL
+                    ? readContainer(input, childFilter, internNames, internValues)
+                    : read(input, internNames, internValues);
+
+                if (predicate != null) {
+                    if (value == null || !predicate.test(value)) {
+                        // The compound doesn't pass, so skip the rest of it.
+                        if (!isRoot) {
+                            skipWhitespace(input);
+                            if (readChar(input) == ENTRY_SEPARATOR) {
+                                skipEntries(input, true);
+                            }
+                        }
+                        return null;
+                    }
+                    predicatesLeft--;
+                }
+
+                if (keep && value != null) {
+                    compound.put(key, value);
+                }
+            } else {
+                skipValue(input);
+            }
+
+            if (childrenLeft > 0 && (childFilter != FilterNode.NONE || predicate != null)) {
+                childrenLeft--;
+            }
+            skipWhitespace(input);
+        } while (readChar(input) == ENTRY_SEPARATOR);
+
+        // Compounds without a tag that has a predicate don't pass it either.
+        return predicatesLeft > 0 ? null : compound;
     }
 
     /**
-     * Read an SNBT string from the current index of a reader
+     * Read an SNBT list from the current index of an input, applying a {@code filter} to its
+     * elements if they are compounds or lists
      */
-    private static String readString(Reader reader, boolean intern) throws IOException {
-        final StringBuilder valueBuilder = new StringBuilder();
+    private static NBTList readList(Input input, FilterNode filter, boolean internNames, boolean internValues) throws IOException {
+        if (readChar(input) != ARRAY_START) {
+            throw new NBTParseException("Invalid start of SNBT list");
+        }
 
-        final int firstChar = reader.read();
-        int lastChar;
+        NBTList list = null;
+        int index = 0;
+        do {
+            skipWhitespace(input);
+
+            // Check if we've reached the end of the list.
+            if (peekChar(input) == ARRAY_END) {
+                input.position++;
+                if (list == null) {
+                    return new NBTList(TagType.END);
+                }
+                break;
+            }
+
+            // Apply the element's filter, the same as FilteredNBTInputStream does.
+            FilterNode elementFilter = filter.element(index++);
+            boolean isContainer = isContainerAhead(input);
+            boolean keep = elementFilter == FilterNode.ALL
+                           || elementFilter != FilterNode.NONE
+                              && (isContainer || elementFilter.includesLeaves());
+
+            Object entry = null;
+            if (keep) {
+                entry = isContainer && elementFilter != FilterNode.ALL
+                    ? readContainer(input, elementFilter, internNames, internValues)
+                    : read(input, internNames, internValues);
+            } else if (list == null && !isContainer) {
+                // Even if the filter doesn't keep it, the first element determines the type.
+                entry = read(input, internNames, internValues);
+            } else {
+                if (list == null) {
+                    TagType type = peekChar(input) == COMPOUND_START
+                        ? TagType.COMPOUND
+                        : TagType.LIST;
+                    list = new NBTList(type);
+                }
+                skipValue(input);
+            }
+
+            if (list == null) {
+                // Create a new list using the tag type of the first entry. Rejected entries are
+                // always compounds.
+                list = new NBTList(entry == null ? TagType.COMPOUND : TagType.fromObject(entry));
+                if (list.getContentType() == TagType.END) {
+                    throw new NBTParseException("SNBT list entry has unrecognized type");
+                }
+            }
+
+            if (keep && entry != null) {
+                list.add(entry);
+            }
+            skipWhitespace(input);
+        } while (readChar(input) == ENTRY_SEPARATOR);
+
+        return list;
+    }
+
+    /**
+     * Read an SNBT compound or list from the current index of an input, applying a {@code filter}
+     * to its contents
+     *
+     * @return The filtered value, or {@code null} if it is a compound that does not pass one of the
+     * filter's predicates
+     */
+    private static Object readContainer(Input input, FilterNode filter, boolean internNames, boolean internValues) throws IOException {
+        if (peekChar(input) == COMPOUND_START) {
+            return readCompound(input, filter, false, internNames, internValues);
+        }
+        return readList(input, filter, internNames, internValues);
+    }
+
+    /**
+     * Check whether the value at the current index of an input is a compound or list (but not an
+     * array), without increasing its index
+     */
+    private static boolean isContainerAhead(Input input) throws IOException {
+        int firstChar = input.peek(0);
+        return firstChar == COMPOUND_START
+               || firstChar == ARRAY_START && arrayTypeAhead(input) == null;
+    }
+
+    /**
+     * Check whether an array's header ({@code [B;}, {@code [I;} or {@code [L;}) is at the current
+     * index of an input, without increasing its index. Any other value starting with {@code [} is
+     * a list, even if its third character is a semicolon (e.g. {@code [";"]})
+     *
+     * @return The type of the array, or {@code null} if there is no array header
+     */
+    private static TagType arrayTypeAhead(Input input) throws IOException {
+        if (input.peek(0) != ARRAY_START || input.peek(2) != ARRAY_TYPE_INDICATOR) {
+            return null;
+        }
+
+        switch (input.peek(1)) {
+            case 'B':
+                return TagType.BYTE_ARRAY;
+
+            case 'I':
+                return TagType.INT_ARRAY;
+
+            case 'L':
+                return TagType.LONG_ARRAY;
+
+            default:
+                return null;
+        }
+    }
+
+    /*
+     *
+     * ============ SKIPPING ============
+     *
+     */
+
+    /**
+     * Skip over an SNBT value with an unknown type at the current index of an input, without
+     * parsing it
+     */
+    private static void skipValue(Input input) throws IOException {
+        switch (peekChar(input)) {
+            case COMPOUND_START:
+                input.position++;
+                skipEntries(input, true);
+                break;
+
+            case ARRAY_START:
+                // Skip the array's type, if it has one.
+                input.position += arrayTypeAhead(input) != null ? 3 : 1;
+                skipEntries(input, false);
+                break;
+
+            default:
+                skipString(input);
+                break;
+        }
+    }
+
+    /**
+     * Skip over the remaining entries of a compound, list, or array, up to and including the
+     * character that closes it
+     *
+     * @param named Whether or not the entries have names (compound entries)
+     */
+    private static void skipEntries(Input input, boolean named) throws IOException {
+        do {
+            skipWhitespace(input);
+
+            // Check if we've reached the end.
+            int nextChar = peekChar(input);
+            if (nextChar == COMPOUND_END || nextChar == ARRAY_END) {
+                input.position++;
+                break;
+            }
+
+            if (named) {
+                skipString(input);
+                skipWhitespace(input);
+                if (readChar(input) != ENTRY_VALUE_INDICATOR) {
+                    throw new NBTParseException("Invalid value indicator in SNBT TAG_Compound");
+                }
+                skipWhitespace(input);
+            }
+
+            skipValue(input);
+            skipWhitespace(input);
+        } while (readChar(input) == ENTRY_SEPARATOR);
+    }
+
+    /**
+     * Skip over an SNBT string (quoted or unquoted) or literal at the current index of an input
+     */
+    private static void skipString(Input input) throws IOException {
+        final int firstChar = readChar(input);
 
-        // Check if the string is quoted.
         if (firstChar == STRING_DELIMITER_1 || firstChar == STRING_DELIMITER_2) {
             boolean isEscaped = false;
-            while ((lastChar = reader.read()) != firstChar || isEscaped) {
-                valueBuilder.append((char) lastChar);
-                isEscaped = lastChar == STRING_ESCAPE;
+            int lastChar;
+            while ((lastChar = readChar(input)) != firstChar || isEscaped) {
+                isEscaped = !isEscaped && lastChar == STRING_ESCAPE;
             }
         } else {
-            valueBuilder.append((char) firstChar);
-            reader.mark(1);
-            while (VALID_UNQUOTED_CHARS.indexOf(lastChar = reader.read()) != -1) {
-                valueBuilder.append((char) lastChar);
-                reader.mark(1);
+            skipUnquoted(input);
+        }
+    }
+
+    /**
+     * Read any SNBT literal type from the current index of an input
+     * <p>
+     * If the value is known to be a string, prefer {@link #readString(Input, boolean)}
+     */
+    private static Object readLiteral(Input input, boolean intern) throws IOException {
+        // Always use the string type for text in quotes.
+        int firstChar = peekChar(input);
+        if (firstChar == STRING_DELIMITER_1 || firstChar == STRING_DELIMITER_2) {
+            return readString(input, false);
+        }
+
+        // Leading whitespace is not part of the literal.
+        int start = Character.isWhitespace(input.read()) ? input.position : input.position - 1;
+        skipUnquoted(input);
+        int end = input.position;
+
+        // Try to parse the literal as a numeric value.
+        Object number = parseNumber(input, start, end);
+        if (number != null) {
+            return number;
+        }
+
+        // Fall-back to string value.
+        String asString = input.subSequence(start, end);
+        if (intern) {
+            return asString.intern();
+        }
+        return asString;
+    }
+
+    /**
+     * Determines the numeric type of an unquoted literal and parses it, in a single pass over its
+     * characters.
+     * <p>
+     * Integers may have a {@code B}, {@code S} or {@code L} suffix (in either case) for bytes,
+     * shorts and longs respectively, and are ints otherwise. Decimals must have an {@code F} or
+     * {@code D} suffix for floats and doubles, and may have an exponent (e.g. {@code 1.0E20d}). The
+     * non-finite values written by {@link SNBTWriter}, such as {@code NaNf} and {@code
+     * -Infinityd}, are also parsed.
+     *
+     * @param start The index of the literal's first character in the {@code chars}.
+     * @param end   The index after the literal's last character in the {@code chars}.
+     * @return The literal's value, or {@code null} if it is not a number.
+     * @throws NumberFormatException If the literal is a number, but is out of range for its type.
+     */
+    private static Object parseNumber(CharSequence chars, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (chars.charAt(i) == '+' || chars.charAt(i) == '-')) {
+            negative = chars.charAt(i) == '-';
+            i++;
+        }
+        if (i < end && (chars.charAt(i) == 'N' || chars.charAt(i) == 'I')) {
+            return parseNonFinite(chars, i, end, i != start, negative);
+        }
+
+        // Accumulate the literal's digits, ignoring the decimal point.
+        long mantissa = 0;
+        int significantDigits = 0;
+        int integerDigits = 0;
+        int fractionDigits = 0;
+        boolean hasPoint = false;
+        for (; i < end; i++) {
+            char c = chars.charAt(i);
+            if (c == '.' && !hasPoint) {
+                hasPoint = true;
+                continue;
+            } else if (c < '0' || c > '9') {
+                break;
+            }
+
+            if (hasPoint) {
+                fractionDigits++;
+            } else {
+                integerDigits++;
+            }
+            if (mantissa != 0 || c != '0') {
+                significantDigits++;
+            }
+            if (significantDigits <= 18) {
+                mantissa = mantissa * 10 + (c - '0');
             }
-            reader.reset();
         }
 
-        String value = valueBuilder.toString();
+        // A decimal's digits may be followed by an exponent.
+        boolean hasExponent = false;
+        if (i < end && (chars.charAt(i) == 'e' || chars.charAt(i) == 'E')) {
+            int exponentStart = ++i;
+            if (i < end && (chars.charAt(i) == '+' || chars.charAt(i) == '-')) {
+                exponentStart = ++i;
+            }
+            while (i < end && chars.charAt(i) >= '0' && chars.charAt(i) <= '9') {
+                i++;
+            }
+            if (i == exponentStart) {
+                return null;
+            }
+            hasExponent = true;
+        }
 
-        // Only trim whitespace if the string was NOT quoted.
-        if (firstChar != STRING_DELIMITER_1 && firstChar != STRING_DELIMITER_2) {
-            value = value.trim();
+        char suffix;
+        if (i == end) {
+            suffix = 0;
+        } else if (i == end - 1) {
+            suffix = chars.charAt(i);
+        } else {
+            return null;
+        }
+
+        switch (suffix) {
+            case 0:
+            case 'B':
+            case 'b':
+            case 'S':
+            case 's':
+            case 'L':
+            case 'l':
+                if (hasPoint || hasExponent || integerDigits == 0) {
+                    return null;
+                }
+                return toInteger(chars, start, end, suffix, negative ? -mantissa : mantissa,
+                    significantDigits <= 18);
+
+            case 'F':
+            case 'f':
+            case 'D':
+            case 'd':
+                // At least one digit must follow the decimal point, if there is one.
+                if (hasPoint ? fractionDigits == 0 : integerDigits == 0) {
+                    return null;
+                } else if (hasExponent) {
+                    return suffix == 'F' || suffix == 'f'
+                        ? (Object) Float.parseFloat(withoutSuffix(chars, start, end))
+                        : (Object) Double.parseDouble(withoutSuffix(chars, start, end));
+                }
+                return toDecimal(chars, start, end, suffix, negative, mantissa,
+                    significantDigits, fractionDigits);
+
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Parses {@code NaN} or {@code Infinity} followed by an {@code F} or {@code D} suffix, the way
+     * {@link Float#toString(float)} and {@link Double#toString(double)} write non-finite values.
+     *
+     * @param start  The index of the literal's first character after its sign, if any.
+     * @param signed Whether the literal has a sign. Only infinities may be signed.
+     * @return The literal's value, or {@code null} if it is not a non-finite number.
+     */
+    private static Object parseNonFinite(CharSequence chars, int start, int end, boolean signed,
+                                         boolean negative) {
+        boolean isNaN = chars.charAt(start) == 'N';
+        String name = isNaN ? "NaN" : "Infinity";
+        if ((isNaN && signed) || end - start != name.length() + 1) {
+            return null;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (chars.charAt(start + i) != name.charAt(i)) {
+                return null;
+            }
+        }
+
+        switch (chars.charAt(end - 1)) {
+            case 'F':
+            case 'f':
+                if (isNaN) {
+                    return Float.NaN;
+                }
+                return negative ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+
+            case 'D':
+            case 'd':
+                if (isNaN) {
+                    return Double.NaN;
+                }
+                return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Boxes an integer literal's value as the type indicated by its {@code suffix}.
+     *
+     * @param exact Whether the {@code value} holds all of the literal's digits. If not, or if the
+     *              value is out of range for its type, the literal is parsed using the type's own
+     *              {@code parse} method instead, which throws the appropriate exception.
+     */
+    private static Object toInteger(CharSequence chars, int start, int end, char suffix,
+                                    long value, boolean exact) {
+        switch (suffix) {
+            case 'B':
+            case 'b':
+                if (exact && value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                    return (byte) value;
+                }
+                return Byte.parseByte(withoutSuffix(chars, start, end));
+
+            case 'S':
+            case 's':
+                if (exact && value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                    return (short) value;
+                }
+                return Short.parseShort(withoutSuffix(chars, start, end));
+
+            case 'L':
+            case 'l':
+                return exact ? value : Long.parseLong(withoutSuffix(chars, start, end));
+
+            default:
+                if (exact && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return (int) value;
+                }
+                return Integer.parseInt(chars.subSequence(start, end).toString());
+        }
+    }
+
+    /**
+     * Boxes a decimal literal's value as the type indicated by its {@code suffix}.
+     * <p>
+     * When the literal's digits and the power of ten they are divided by can both be represented
+     * exactly, a single division is already correctly rounded. Otherwise, the literal is parsed
+     * using {@link Double#parseDouble(String)} or {@link Float#parseFloat(String)}.
+     */
+    private static Object toDecimal(CharSequence chars, int start, int end, char suffix,
+                                    boolean negative, long mantissa, int significantDigits,
+                                    int fractionDigits) {
+        if (suffix == 'F' || suffix == 'f') {
+            if (mantissa < (1 << 24) && significantDigits <= 8
+                && fractionDigits < FLOAT_POWERS_OF_TEN.length) {
+                float value = mantissa / FLOAT_POWERS_OF_TEN[fractionDigits];
+                return negative ? -value : value;
+            }
+            return Float.parseFloat(withoutSuffix(chars, start, end));
+        }
+
+        if (significantDigits <= 15 && fractionDigits < DOUBLE_POWERS_OF_TEN.length) {
+            double value = mantissa / DOUBLE_POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(withoutSuffix(chars, start, end));
+    }
+
+    private static String withoutSuffix(CharSequence chars, int start, int end) {
+        return chars.subSequence(start, end - 1).toString();
+    }
+
+    /**
+     * @return {@code true} if the character can be used in strings without quotation marks
+     * (including tag names). Otherwise {@code false}.
+     */
+    private static boolean isUnquotedChar(int c) {
+        return c >= 'a' && c <= 'z'
+               || c >= 'A' && c <= 'Z'
+               || c >= '0' && c <= '9'
+               || c == '-' || c == '+' || c == '_' || c == '.';
+    }
+
+    /**
+     * Read an SNBT string from the current index of an input
+     */
+    private static String readString(Input input, boolean intern) throws IOException {
+        final int firstChar = readChar(input);
+        final int start = input.position;
+        String value;
+
+        // Check if the string is quoted.
+        if (firstChar == STRING_DELIMITER_1 || firstChar == STRING_DELIMITER_2) {
+            boolean isEscaped = false;
+            boolean hasEscapes = false;
+            int lastChar;
+            while ((lastChar = readChar(input)) != firstChar || isEscaped) {
+                isEscaped = !isEscaped && lastChar == STRING_ESCAPE;
+                hasEscapes |= isEscaped;
+            }
+            value = hasEscapes
+                ? unescape(input, start, input.position - 1)
+                : input.subSequence(start, input.position - 1);
+        } else {
+            skipUnquoted(input);
+
+            // Only trim whitespace if the string was NOT quoted.
+            value = input.subSequence(start - 1, input.position).trim();
         }
 
         if (intern) {
@@ -388,41 +1333,218 @@ public final class SNBTReader {
     }
 
     /**
-     * Skip over zero or more whitespace characters at the current index of a reader
+     * Removes the backslashes from escaped backslashes and quotation marks in the contents of a
+     * quoted string, as written by {@link SNBTWriter}. Backslashes before any other character are
+     * kept as-is.
+     *
+     * @param start The index of the string's first character, after its opening quotation mark.
+     * @param end   The index of the string's closing quotation mark.
      */
-    private static void skipWhitespace(Reader reader) throws IOException {
-        do {
-            reader.mark(1);
-        } while (Character.isWhitespace(reader.read()));
-        reader.reset();
+    private static String unescape(CharSequence chars, int start, int end) {
+        StringBuilder result = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = chars.charAt(i);
+            if (c == STRING_ESCAPE && i + 1 < end) {
+                char next = chars.charAt(i + 1);
+                if (next == STRING_ESCAPE || next == STRING_DELIMITER_1
+                    || next == STRING_DELIMITER_2) {
+                    c = next;
+                    i++;
+                }
+            }
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Skip over any characters at the current index of an input that are allowed in unquoted
+     * strings
+     */
+    private static void skipUnquoted(Input input) throws IOException {
+        while (isUnquotedChar(input.peek(0))) {
+            input.position++;
+        }
+    }
+
+    /**
+     * Skip over zero or more whitespace characters at the current index of an input. Also used by
+     * {@link JsonTranscoder}
+     */
+    static void skipWhitespace(Input input) throws IOException {
+        while (Character.isWhitespace(input.peek(0))) {
+            input.position++;
+        }
     }
 
     /**
-     * Read a single character from the provided reader without increasing its index
+     * Read a single character from the provided input without increasing its index
+     *
+     * @throws NBTParseException If the end of the input was reached
      */
-    private static int peekChar(Reader reader) throws IOException {
-        reader.mark(1);
-        int value = reader.read();
-        reader.reset();
+    static int peekChar(Input input) throws IOException {
+        int value = input.peek(0);
         if (value == -1) {
-            throw new IOException("Unexpected end of SNBT string");
+            throw new NBTParseException("Unexpected end of text");
         }
         return value;
     }
 
     /**
-     * Read a single character from the provided reader.
+     * Read a single character from the provided input.
      * <p>
-     * To read without increasing the reader's index, see {@link #peekChar(Reader)}.
+     * To read without increasing the input's index, see {@link #peekChar(Input)}.
+     *
+     * @throws NBTParseException If the end of the input was reached
      */
-    private static int readChar(Reader reader) throws IOException {
-        int value = reader.read();
+    static int readChar(Input input) throws IOException {
+        int value = input.read();
         if (value == -1) {
-            throw new IOException("Unexpected end of SNBT string");
+            throw new NBTParseException("Unexpected end of text");
         }
         return value;
     }
 
+    /**
+     * SNBT text being parsed, which is read by index rather than through a {@link Reader} so that
+     * tokens can be sliced out of it instead of being copied one character at a time.
+     * <p>
+     * Inputs backed by a string or array ignore whitespace at the start and end of the text.
+     * Inputs backed by a {@link Reader} hold the text read so far in a buffer, which only grows if
+     * a single value does not fit in it. Text before the current position is only dropped when
+     * {@link #discard()} is called.
+     */
+    static final class Input implements CharSequence {
+
+        private final CharSequence sequence; // Null if reading from an array.
+        private final Reader       reader;   // Null unless the array is a buffer for this.
+        private char[]             array;    // Null if reading from a sequence.
+        private int                end;
+
+        /**
+         * The index of the next character to be read.
+         */
+        int position;
+
+        Input(CharSequence sequence) {
+            this(sequence, null, sequence.length());
+        }
+
+        Input(char[] array) {
+            this(null, array, array.length);
+        }
+
+        Input(Reader reader) {
+            this.sequence = null;
+            this.reader = reader;
+            this.array = new char[READER_BUFFER_SIZE];
+        }
+
+        private Input(CharSequence sequence, char[] array, int length) {
+            this.sequence = sequence;
+            this.reader = null;
+            this.array = array;
+
+            // Same as String.trim().
+            int start = 0;
+            int end = length;
+            while (start < end && charAt(start) <= ' ') {
+                start++;
+            }
+            while (start < end && charAt(end - 1) <= ' ') {
+                end--;
+            }
+            this.position = start;
+            this.end = end;
+        }
+
+        /**
+         * @return The character {@code offset} places after the current position, or {@code -1} if
+         * that is past the end of the input.
+         * @throws IOException If the input's reader could not be read from
+         */
+        int peek(int offset) throws IOException {
+            int index = position + offset;
+            if (index >= end && !fill(index)) {
+                return -1;
+            }
+            return charAt(index);
+        }
+
+        /**
+         * @return The character at the current position, or {@code -1} if the end of the input was
+         * reached. The position is only increased if it was not the end.
+         * @throws IOException If the input's reader could not be read from
+         */
+        int read() throws IOException {
+            int value = peek(0);
+            if (value != -1) {
+                position++;
+            }
+            return value;
+        }
+
+        /**
+         * Reads from the input's reader until the character at the {@code index} is buffered.
+         *
+         * @return {@code false} if the input has no reader, or if the reader ended before the
+         * {@code index}. Otherwise {@code true}.
+         */
+        private boolean fill(int index) throws IOException {
+            if (reader == null) {
+                return false;
+            }
+
+            while (index >= end) {
+                if (end == array.length) {
+                    array = Arrays.copyOf(array, array.length * 2);
+                }
+                int read = reader.read(array, end, array.length - end);
+                if (read == -1) {
+                    return false;
+                }
+                end += read;
+            }
+            return true;
+        }
+
+        /**
+         * Allows the input to drop any buffered text before its current position, which must not
+         * be accessed afterwards. Indices after the current position are shifted accordingly.
+         */
+        void discard() {
+            // Text is only moved once it takes up most of the buffer, so that it isn't moved for
+            // every small value.
+            if (reader != null && position > array.length / 2) {
+                System.arraycopy(array, position, array, 0, end - position);
+                end -= position;
+                position = 0;
+            }
+        }
+
+        @Override
+        public int length() {
+            return end;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return array != null ? array[index] : sequence.charAt(index);
+        }
+
+        @Override
+        public String subSequence(int start, int end) {
+            return array != null
+                ? new String(array, start, end - start)
+                : sequence.subSequence(start, end).toString();
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, end);
+        }
+    }
+
     private SNBTReader() {
         throw new UnsupportedOperationException("SNBTReader should not be instantiated");
     }
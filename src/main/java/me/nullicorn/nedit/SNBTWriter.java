@@ -0,0 +1,450 @@
+package me.nullicorn.nedit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map.Entry;
+import me.nullicorn.nedit.exception.NBTParseException;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.NBTList;
+import me.nullicorn.nedit.type.TagType;
+
+/**
+ * A utility class for writing NBT data as stringified NBT (SNBT)
+ * <p>
+ * Values are written directly to a single destination, so nested compounds, lists, and arrays are
+ * never converted to separate strings first. String values are always quoted, and tag names are
+ * only quoted if they contain characters that are not allowed in unquoted strings. Quotes and
+ * backslashes inside quoted strings are escaped.
+ * <p>
+ * To read SNBT data, see {@link SNBTReader}.
+ *
+ * @author Nullicorn
+ */
+public final class SNBTWriter {
+
+    private static final String INDENT = "    ";
+
+    /**
+     * Convert an NBT value to an SNBT string, without any extra whitespace.
+     *
+     * @param value The value to convert. Can be a compound, list, array, or any other NBT type.
+     * @return The value in SNBT format
+     * @throws IllegalArgumentException If the value, or any value inside it, is not a valid NBT
+     *                                  type
+     * @see #write(Object, boolean)
+     */
+    public static String write(Object value) {
+        return write(value, false);
+    }
+
+    /**
+     * Same as {@link #write(Object)}, but with the option to pretty-print the value.
+     * <p>
+     * When pretty-printed, each tag in a compound and each compound or list inside a list is
+     * written on its own line, indented by four spaces for each level of nesting. Other lists and
+     * arrays are kept on a single line.
+     *
+     * @param pretty Whether or not the value will be pretty-printed
+     * @see #write(Object)
+     */
+    public static String write(Object value, boolean pretty) {
+        StringBuilder out = new StringBuilder();
+        write(value, out, pretty);
+        return out.toString();
+    }
+
+    /**
+     * Same as {@link #write(Object, boolean)}, but the value is appended to an existing {@code
+     * StringBuilder}.
+     *
+     * @see #write(Object, boolean)
+     */
+    public static void write(Object value, StringBuilder out, boolean pretty) {
+        try {
+            writeValue(value, out, pretty ? 0 : -1);
+        } catch (IOException e) {
+            // StringBuilders never throw.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Same as {@link #write(Object, boolean)}, but the value is appended to any destination, such
+     * as a {@link java.io.Writer}. Characters are appended in small pieces, so the destination
+     * should be buffered.
+     *
+     * @throws IOException If the value could not be appended to the destination
+     * @see #write(Object, boolean)
+     */
+    public static void write(Object value, Appendable out, boolean pretty) throws IOException {
+        if (out instanceof StringBuilder) {
+            write(value, (StringBuilder) out, pretty);
+        } else {
+            writeValue(value, out, pretty ? 0 : -1);
+        }
+    }
+
+    /*
+     *
+     * ============ WRITING ============
+     *
+     */
+
+    /**
+     * @param depth How deeply nested the value is, or {@code -1} if the value is not being
+     *              pretty-printed
+     */
+    private static void writeValue(Object value, Appendable out, int depth) throws IOException {
+        switch (TagType.fromObject(value)) {
+            case BYTE:
+                appendNumber((Byte) value, out).append('b');
+                break;
+            case SHORT:
+                appendNumber((Short) value, out).append('s');
+                break;
+            case INT:
+                appendNumber((Integer) value, out);
+                break;
+            case LONG:
+                appendNumber((Long) value, out).append('l');
+                break;
+            case FLOAT:
+                out.append(value.toString()).append('f');
+                break;
+            case DOUBLE:
+                out.append(value.toString()).append('d');
+                break;
+            case STRING:
+                writeString((String) value, out);
+                break;
+            case COMPOUND:
+                writeCompound((NBTCompound) value, out, depth);
+                break;
+            case LIST:
+                writeList((NBTList) value, out, depth);
+                break;
+            case BYTE_ARRAY:
+                byte[] bytes = (byte[]) value;
+                appendArrayStart('B', bytes.length, out, depth);
+                for (int i = 0; i < bytes.length; i++) {
+                    appendSeparator(i, out, depth);
+                    appendNumber(bytes[i], out).append('b');
+                }
+                out.append(']');
+                break;
+            case INT_ARRAY:
+                int[] ints = (int[]) value;
+                appendArrayStart('I', ints.length, out, depth);
+                for (int i = 0; i < ints.length; i++) {
+                    appendSeparator(i, out, depth);
+                    appendNumber(ints[i], out);
+                }
+                out.append(']');
+                break;
+            case LONG_ARRAY:
+                long[] longs = (long[]) value;
+                appendArrayStart('L', longs.length, out, depth);
+                for (int i = 0; i < longs.length; i++) {
+                    appendSeparator(i, out, depth);
+                    appendNumber(longs[i], out).append('l');
+                }
+                out.append(']');
+                break;
+            default:
+                throw new IllegalArgumentException("Cannot write null as SNBT");
+        }
+    }
+
+    private static void writeCompound(NBTCompound compound, Appendable out, int depth)
+        throws IOException {
+        out.append('{');
+        if (compound.isEmpty()) {
+            out.append('}');
+            return;
+        }
+
+        int childDepth = depth == -1 ? -1 : depth + 1;
+        int i = 0;
+        for (Entry<String, Object> tag : compound.entrySet()) {
+            appendName(tag.getKey(), i++, out, depth);
+            writeValue(tag.getValue(), out, childDepth);
+        }
+        appendLine(out, depth);
+        out.append('}');
+    }
+
+    private static void writeList(NBTList list, Appendable out, int depth) throws IOException {
+        TagType contentType = list.getContentType();
+        boolean expand = contentType == TagType.COMPOUND || contentType == TagType.LIST;
+        int childDepth = depth == -1 ? -1 : depth + 1;
+
+        out.append('[');
+        for (int i = 0; i < list.size(); i++) {
+            appendElementStart(i, expand, out, depth);
+            writeValue(list.get(i), out, expand ? childDepth : depth);
+        }
+        if (expand && !list.isEmpty()) {
+            appendLine(out, depth);
+        }
+        out.append(']');
+    }
+
+    /**
+     * Appends the {@code value} in quotes. Double quotes are used unless the value contains double
+     * quotes but not single quotes, in which case single quotes are used so that no escaping is
+     * needed.
+     */
+    private static void writeString(String value, Appendable out) throws IOException {
+        char quote = value.indexOf('"') != -1 && value.indexOf('\'') == -1 ? '\'' : '"';
+
+        out.append(quote);
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == quote || c == '\\') {
+                out.append(value, start, i).append('\\');
+                start = i;
+            }
+        }
+        out.append(value, start, value.length()).append(quote);
+    }
+
+    /**
+     * @return {@code true} if the {@code name} can be written without quotation marks. Otherwise
+     * {@code false}.
+     */
+    private static boolean isUnquoted(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean allowed = c >= 'a' && c <= 'z'
+                              || c >= 'A' && c <= 'Z'
+                              || c >= '0' && c <= '9'
+                              || c == '-' || c == '+' || c == '_' || c == '.';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends a number without converting it to a string first, if possible.
+     *
+     * @return The {@code out} argument, for chaining
+     */
+    private static Appendable appendNumber(long value, Appendable out) throws IOException {
+        if (out instanceof StringBuilder) {
+            return ((StringBuilder) out).append(value);
+        }
+        return out.append(Long.toString(value));
+    }
+
+    /**
+     * Appends a tag's name and the separator after it, starting on a new line if pretty-printing.
+     *
+     * @param index The tag's index in its compound.
+     * @param depth How deeply nested the compound is.
+     */
+    private static void appendName(String name, int index, Appendable out, int depth)
+        throws IOException {
+        if (index != 0) {
+            out.append(',');
+        }
+        appendLine(out, depth == -1 ? -1 : depth + 1);
+
+        if (isUnquoted(name)) {
+            out.append(name);
+        } else {
+            writeString(name, out);
+        }
+        out.append(depth == -1 ? ":" : ": ");
+    }
+
+    /**
+     * Appends whatever comes before the element at {@code index} in a list.
+     *
+     * @param expand Whether or not each of the list's elements is written on its own line when
+     *               pretty-printing.
+     * @param depth  How deeply nested the list is.
+     */
+    private static void appendElementStart(int index, boolean expand, Appendable out, int depth)
+        throws IOException {
+        if (!expand) {
+            appendSeparator(index, out, depth);
+            return;
+        }
+        if (index != 0) {
+            out.append(',');
+        }
+        appendLine(out, depth == -1 ? -1 : depth + 1);
+    }
+
+    /**
+     * Appends the start of an array, including its type prefix, e.g. {@code [I;}.
+     */
+    private static void appendArrayStart(char type, int length, Appendable out, int depth)
+        throws IOException {
+        out.append('[').append(type).append(';');
+        if (depth != -1 && length > 0) {
+            out.append(' ');
+        }
+    }
+
+    /**
+     * Appends the separator that comes before the element at {@code index} in a single-line list
+     * or array, if there is one.
+     */
+    private static void appendSeparator(int index, Appendable out, int depth) throws IOException {
+        if (index != 0) {
+            out.append(depth == -1 ? "," : ", ");
+        }
+    }
+
+    /**
+     * Starts a new line indented to the {@code depth}, if pretty-printing.
+     */
+    private static void appendLine(Appendable out, int depth) throws IOException {
+        if (depth == -1) {
+            return;
+        }
+        out.append('\n');
+        for (int i = 0; i < depth; i++) {
+            out.append(INDENT);
+        }
+    }
+
+    /*
+     *
+     * ============ TRANSCODING ============
+     *
+     */
+
+    /**
+     * Converts a binary NBT compound to SNBT as it is read, for {@link NBTTranscoder}. The output
+     * is the same as reading the compound and then {@link #write(Object, Appendable, boolean)
+     * writing} it, except that tags are written in the order they are read.
+     */
+    static void transcode(NBTInputStream in, Appendable out, boolean pretty) throws IOException {
+        in.gunzipIfNecessary();
+        TagType rootType = in.readTagId();
+        if (rootType == TagType.END) {
+            out.append("{}");
+            return;
+        } else if (rootType != TagType.COMPOUND) {
+            throw new IOException("Expected COMPOUND at NBT root, but got " + rootType);
+        }
+        in.readString(); // Skip root name; typically empty anyways.
+        transcodeValue(TagType.COMPOUND, in, out, pretty ? 0 : -1);
+    }
+
+    private static void transcodeValue(TagType type, NBTInputStream in, Appendable out, int depth)
+        throws IOException {
+        int length;
+        switch (type) {
+            case BYTE:
+                appendNumber(in.readByte(), out).append('b');
+                break;
+            case SHORT:
+                appendNumber(in.readShort(), out).append('s');
+                break;
+            case INT:
+                appendNumber(in.readInt(), out);
+                break;
+            case LONG:
+                appendNumber(in.readLong(), out).append('l');
+                break;
+            case FLOAT:
+                out.append(Float.toString(in.readFloat())).append('f');
+                break;
+            case DOUBLE:
+                out.append(Double.toString(in.readDouble())).append('d');
+                break;
+            case STRING:
+                writeString(in.readString(), out);
+                break;
+
+            case COMPOUND:
+                out.append('{');
+                TagType tagType;
+                int i = 0;
+                while ((tagType = in.readTagId()) != TagType.END) {
+                    if (tagType == null) {
+                        throw new NBTParseException("Unknown tag ID for TAG_Compound");
+                    }
+                    appendName(in.readString(), i++, out, depth);
+                    transcodeValue(tagType, in, out, depth == -1 ? -1 : depth + 1);
+                }
+                if (i != 0) {
+                    appendLine(out, depth);
+                }
+                out.append('}');
+                break;
+
+            case LIST:
+                TagType contentType = in.readTagId();
+                if (contentType == null) {
+                    throw new NBTParseException("Unknown tag ID for TAG_List");
+                }
+                boolean expand = contentType == TagType.COMPOUND || contentType == TagType.LIST;
+
+                length = in.readInt();
+                out.append('[');
+                for (int j = 0; j < length; j++) {
+                    appendElementStart(j, expand, out, depth);
+                    transcodeValue(contentType, in, out, expand && depth != -1 ? depth + 1 : depth);
+                }
+                if (expand && length > 0) {
+                    appendLine(out, depth);
+                }
+                out.append(']');
+                break;
+
+            case BYTE_ARRAY:
+                length = readArrayLength(in);
+                appendArrayStart('B', length, out, depth);
+                for (int j = 0; j < length; j++) {
+                    appendSeparator(j, out, depth);
+                    appendNumber(in.readByte(), out).append('b');
+                }
+                out.append(']');
+                break;
+            case INT_ARRAY:
+                length = readArrayLength(in);
+                appendArrayStart('I', length, out, depth);
+                for (int j = 0; j < length; j++) {
+                    appendSeparator(j, out, depth);
+                    appendNumber(in.readInt(), out);
+                }
+                out.append(']');
+                break;
+            case LONG_ARRAY:
+                length = readArrayLength(in);
+                appendArrayStart('L', length, out, depth);
+                for (int j = 0; j < length; j++) {
+                    appendSeparator(j, out, depth);
+                    appendNumber(in.readLong(), out).append('l');
+                }
+                out.append(']');
+                break;
+
+            default:
+                throw new NBTParseException("Unexpected " + type + " tag");
+        }
+    }
+
+    private static int readArrayLength(NBTInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new NBTParseException(
+                new NegativeArraySizeException("Array was prefixed with a negative length"));
+        }
+        return length;
+    }
+
+    private SNBTWriter() {
+        throw new UnsupportedOperationException("SNBTWriter should not be instantiated");
+    }
+}
@@ -0,0 +1,72 @@
+package me.nullicorn.nedit;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A shared pool of raw (header-less) {@link Inflater}s and {@link Deflater}s for reading and
+ * writing gzipped NBT data.
+ * <p>
+ * Each inflater and deflater holds native zlib memory that is only freed when {@code end()} is
+ * called, or else when it is finalized. Borrowing them from here and {@link #release(Inflater)
+ * releasing} them once a document is done means that they are reused instead, and that any extras
+ * are ended straight away.
+ *
+ * @author Nullicorn
+ */
+final class ZlibPool {
+
+    /**
+     * The most inflaters (and separately, deflaters) that are kept for reuse at once.
+     */
+    private static final int CAPACITY = Runtime.getRuntime().availableProcessors() * 2;
+
+    private static final BlockingQueue<Inflater> INFLATERS = new ArrayBlockingQueue<>(CAPACITY);
+    private static final BlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>(CAPACITY);
+
+    /**
+     * @return An inflater for raw deflate data, which should be {@link #release(Inflater) released}
+     * once it is no longer used.
+     */
+    static Inflater inflater() {
+        Inflater inflater = INFLATERS.poll();
+        return inflater != null ? inflater : new Inflater(true);
+    }
+
+    /**
+     * @return A deflater that writes raw deflate data at the default compression level, which
+     * should be {@link #release(Deflater) released} once it is no longer used.
+     */
+    static Deflater deflater() {
+        Deflater deflater = DEFLATERS.poll();
+        return deflater != null ? deflater : new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+
+    /**
+     * Returns an inflater to the pool, or ends it if the pool is full. The inflater must not be
+     * used afterwards.
+     */
+    static void release(Inflater inflater) {
+        inflater.reset();
+        if (!INFLATERS.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns a deflater to the pool, or ends it if the pool is full. The deflater must not be
+     * used afterwards.
+     */
+    static void release(Deflater deflater) {
+        deflater.reset();
+        if (!DEFLATERS.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private ZlibPool() {
+        throw new UnsupportedOperationException("ZlibPool should not be instantiated");
+    }
+}
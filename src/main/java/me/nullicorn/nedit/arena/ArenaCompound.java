@@ -0,0 +1,331 @@
+package me.nullicorn.nedit.arena;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import me.nullicorn.nedit.filter.FilteredTag;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.TagType;
+
+/**
+ * A read-only view of a compound stored in an {@link NBTArena}.
+ * <p>
+ * Views are cheap to create, and reading from them does not copy the compound out of the arena.
+ * Tags are looked up by name in the order they were stored, comparing names without decoding
+ * them. Like with {@link NBTCompound}, <a href="../type/NBTCompound.html#nesting">dot-notation</a>
+ * can be used to access nested tags.
+ * <p>
+ * Any nested compounds and lists are returned as views as well, while strings and arrays are
+ * copied onto the heap each time they are retrieved. Use {@link #toCompound()} to copy the entire
+ * compound back onto the heap.
+ *
+ * @author Nullicorn
+ */
+public final class ArenaCompound {
+
+    private final NBTArena   arena;
+    private final ByteBuffer buffer;
+    private final int        position;
+
+    ArenaCompound(NBTArena arena, ByteBuffer buffer, int position) {
+        this.arena = arena;
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    /**
+     * @return The number of tags in the compound.
+     * @throws IllegalStateException If the compound's arena is closed.
+     */
+    public int size() {
+        arena.checkOpen();
+        return buffer.getInt(position + Integer.BYTES);
+    }
+
+    /**
+     * @return {@code true} if the compound has no tags. Otherwise {@code false}.
+     * @throws IllegalStateException If the compound's arena is closed.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @param name The name of the tag to check for. <a href="../type/NBTCompound.html#nesting">Dot-notation</a>
+     *             is supported for checking nested tags.
+     * @return {@code true} if the compound has a tag with the {@code name}. Otherwise {@code
+     * false}.
+     * @throws IllegalStateException If the compound's arena is closed.
+     * @throws NullPointerException  If the {@code name} is {@code null}.
+     */
+    public boolean containsKey(String name) {
+        return findTag(name) != -1;
+    }
+
+    /**
+     * @param name The name of the tag to check for. <a href="../type/NBTCompound.html#nesting">Dot-notation</a>
+     *             is supported for checking nested tags.
+     * @return {@code true} if the compound has a tag with the {@code name} and {@code type}.
+     * Otherwise {@code false}.
+     * @throws IllegalStateException If the compound's arena is closed.
+     * @throws NullPointerException  If the {@code name} or {@code type} is {@code null}.
+     */
+    public boolean containsTag(String name, TagType type) {
+        Objects.requireNonNull(type, "Tag type cannot be null");
+
+        int tag = findTag(name);
+        return tag != -1 && typeOf(tag) == type;
+    }
+
+    /**
+     * @param name The name of the tag to retrieve. <a href="../type/NBTCompound.html#nesting">Dot-notation</a>
+     *             is supported for accessing nested tags.
+     * @return The value of the tag with the {@code name}, or {@code null} if there isn't one.
+     * Compounds and lists are returned as {@link ArenaCompound}s and {@link ArenaList}s
+     * respectively.
+     * @throws IllegalStateException If the compound's arena is closed.
+     * @throws NullPointerException  If the {@code name} is {@code null}.
+     */
+    public Object get(String name) {
+        int tag = findTag(name);
+        return tag == -1
+            ? null
+            : ArenaFormat.readValue(arena, buffer, typeOf(tag), valueOf(tag));
+    }
+
+    /**
+     * @see NBTCompound#getDouble(String, double)
+     */
+    public double getDouble(String name, double defaultValue) {
+        return getNumber(name, defaultValue).doubleValue();
+    }
+
+    /**
+     * @see NBTCompound#getFloat(String, float)
+     */
+    public float getFloat(String name, float defaultValue) {
+        return getNumber(name, defaultValue).floatValue();
+    }
+
+    /**
+     * @see NBTCompound#getShort(String, short)
+     */
+    public short getShort(String name, short defaultValue) {
+        return getNumber(name, defaultValue).shortValue();
+    }
+
+    /**
+     * @see NBTCompound#getLong(String, long)
+     */
+    public long getLong(String name, long defaultValue) {
+        return getNumber(name, defaultValue).longValue();
+    }
+
+    /**
+     * @see NBTCompound#getInt(String, int)
+     */
+    public int getInt(String name, int defaultValue) {
+        return getNumber(name, defaultValue).intValue();
+    }
+
+    /**
+     * @see NBTCompound#getByte(String, byte)
+     */
+    public byte getByte(String name, byte defaultValue) {
+        return getNumber(name, defaultValue).byteValue();
+    }
+
+    /**
+     * @see NBTCompound#getNumber(String, Number)
+     */
+    public Number getNumber(String name, Number defaultValue) {
+        int tag = findTag(name);
+        if (tag == -1 || ArenaFormat.getFixedWidth(typeOf(tag)) <= 0) {
+            return defaultValue;
+        }
+        return (Number) ArenaFormat.readValue(arena, buffer, typeOf(tag), valueOf(tag));
+    }
+
+    /**
+     * @see NBTCompound#getString(String)
+     */
+    public String getString(String name) {
+        return getString(name, null);
+    }
+
+    /**
+     * @see NBTCompound#getString(String, String)
+     */
+    public String getString(String name, String defaultValue) {
+        Object value = get(name);
+        return value != null
+            ? value.toString()
+            : defaultValue;
+    }
+
+    /**
+     * @return A copy of the long array with the {@code name}, or {@code null} if there isn't one.
+     * @see NBTCompound#getLongArray(String)
+     */
+    public long[] getLongArray(String name) {
+        int tag = findTag(name, TagType.LONG_ARRAY);
+        return tag == -1 ? null : ArenaFormat.readLongArray(buffer, valueOf(tag));
+    }
+
+    /**
+     * @return A copy of the int array with the {@code name}, or {@code null} if there isn't one.
+     * @see NBTCompound#getIntArray(String)
+     */
+    public int[] getIntArray(String name) {
+        int tag = findTag(name, TagType.INT_ARRAY);
+        return tag == -1 ? null : ArenaFormat.readIntArray(buffer, valueOf(tag));
+    }
+
+    /**
+     * @return A copy of the byte array with the {@code name}, or {@code null} if there isn't one.
+     * @see NBTCompound#getByteArray(String)
+     */
+    public byte[] getByteArray(String name) {
+        int tag = findTag(name, TagType.BYTE_ARRAY);
+        return tag == -1 ? null : ArenaFormat.readByteArray(buffer, valueOf(tag));
+    }
+
+    /**
+     * @return A view of the list with the {@code name}, or {@code null} if there isn't one.
+     * @see NBTCompound#getList(String)
+     */
+    public ArenaList getList(String name) {
+        int tag = findTag(name, TagType.LIST);
+        return tag == -1 ? null : new ArenaList(arena, buffer, valueOf(tag));
+    }
+
+    /**
+     * @return A view of the compound with the {@code name}, or {@code null} if there isn't one.
+     * @see NBTCompound#getCompound(String)
+     */
+    public ArenaCompound getCompound(String name) {
+        int tag = findTag(name, TagType.COMPOUND);
+        return tag == -1 ? null : new ArenaCompound(arena, buffer, valueOf(tag));
+    }
+
+    /**
+     * @return The names of all tags in the compound, in the order they were stored. Changes to the
+     * set are not reflected in the compound.
+     * @throws IllegalStateException If the compound's arena is closed.
+     */
+    public Set<String> keySet() {
+        Set<String> names = new LinkedHashSet<>();
+        for (int tag = firstTag(), i = size(); i > 0; tag = nextTag(tag), i--) {
+            names.add(ArenaFormat.readString(buffer, tag + 1));
+        }
+        return names;
+    }
+
+    /**
+     * Performs the {@code action} on the name and value of every tag in the compound, in the order
+     * they were stored. Values are the same as those returned by {@link #get(String)}.
+     *
+     * @throws IllegalStateException If the compound's arena is closed.
+     * @throws NullPointerException  If the {@code action} is {@code null}.
+     */
+    public void forEach(BiConsumer<String, Object> action) {
+        Objects.requireNonNull(action, "Action cannot be null");
+        for (int tag = firstTag(), i = size(); i > 0; tag = nextTag(tag), i--) {
+            String name = ArenaFormat.readString(buffer, tag + 1);
+            action.accept(name, ArenaFormat.readValue(arena, buffer, typeOf(tag), valueOf(tag)));
+        }
+    }
+
+    /**
+     * @return A copy of the compound, and all of its nested tags, on the heap.
+     * @throws IllegalStateException If the compound's arena is closed.
+     */
+    public NBTCompound toCompound() {
+        NBTCompound compound = new NBTCompound();
+        forEach((name, value) -> compound.put(name, ArenaFormat.toHeap(value)));
+        return compound;
+    }
+
+    /**
+     * @return The compound in SNBT format.
+     */
+    @Override
+    public String toString() {
+        return toCompound().toString();
+    }
+
+    /*
+     *
+     * ============ TAG LOOKUP ============
+     *
+     * Tags are referred to by the position of their type ID, which is followed by their name and
+     * then their value.
+     *
+     */
+
+    /**
+     * Same as {@link #findTag(String)}, but {@code -1} is also returned if the tag does not have
+     * the expected {@code type}.
+     */
+    private int findTag(String name, TagType type) {
+        int tag = findTag(name);
+        return tag != -1 && typeOf(tag) == type ? tag : -1;
+    }
+
+    /**
+     * @return The position of the tag with the {@code name}, or {@code -1} if there isn't one.
+     */
+    private int findTag(String name) {
+        Objects.requireNonNull(name, "Tag name cannot be null");
+        arena.checkOpen();
+
+        String[] tokens = name.indexOf('.') == -1
+            ? new String[]{name}
+            : FilteredTag.tokenizeTagName(name);
+
+        ArenaCompound parent = this;
+        for (int i = 0; i < tokens.length; i++) {
+            int tag = parent.findDirectChild(tokens[i].getBytes(StandardCharsets.UTF_8));
+            if (tag == -1 || i + 1 == tokens.length) {
+                return tag;
+            } else if (typeOf(tag) != TagType.COMPOUND) {
+                return -1;
+            }
+            parent = new ArenaCompound(arena, buffer, valueOf(tag));
+        }
+        return -1;
+    }
+
+    /**
+     * @return The position of the tag whose UTF-8 encoded name is equal to {@code nameBytes}, or
+     * {@code -1} if there isn't one.
+     */
+    private int findDirectChild(byte[] nameBytes) {
+        for (int tag = firstTag(), i = size(); i > 0; tag = nextTag(tag), i--) {
+            if (ArenaFormat.stringEquals(buffer, tag + 1, nameBytes)) {
+                return tag;
+            }
+        }
+        return -1;
+    }
+
+    private int firstTag() {
+        return position + 2 * Integer.BYTES;
+    }
+
+    private int nextTag(int tag) {
+        int value = valueOf(tag);
+        return value + ArenaFormat.sizeOf(buffer, typeOf(tag), value);
+    }
+
+    private TagType typeOf(int tag) {
+        return TagType.fromId(buffer.get(tag));
+    }
+
+    private int valueOf(int tag) {
+        return tag + 1 + Integer.BYTES + buffer.getInt(tag + 1);
+    }
+}
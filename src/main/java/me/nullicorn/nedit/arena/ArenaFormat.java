@@ -0,0 +1,305 @@
+package me.nullicorn.nedit.arena;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map.Entry;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.NBTList;
+import me.nullicorn.nedit.type.TagType;
+
+/**
+ * Reads and writes NBT data in the layout used by {@link NBTArena arenas}.
+ * <p>
+ * The layout is similar to NBT's own binary format, except that every value can be skipped over,
+ * and every list element found, in constant time:
+ * <ul>
+ *     <li>Numbers are stored big-endian, with the same widths as in NBT.</li>
+ *     <li>Strings and arrays are prefixed by an int, indicating their length (in bytes for
+ *     strings, and in elements for arrays). Strings are encoded using standard UTF-8.</li>
+ *     <li>Compounds start with an int indicating how many bytes follow it, then an int for the
+ *     number of tags in the compound. Each tag then follows as its type ID (1 byte), its name (as
+ *     a string), and its value.</li>
+ *     <li>Lists start with an int indicating how many bytes follow it, then the type ID of the
+ *     list's elements (1 byte), and an int for the number of elements. Elements with a variable
+ *     width (strings, arrays, lists and compounds) are preceded by a table of ints, holding each
+ *     element's offset from the end of that table. The elements themselves then follow.</li>
+ * </ul>
+ *
+ * @author Nullicorn
+ */
+final class ArenaFormat {
+
+    /*
+     *
+     * ============ WRITING ============
+     *
+     */
+
+    static void writeCompound(ScratchBuffer out, NBTCompound compound) {
+        int start = out.position();
+        out.putInt(0); // Size placeholder.
+        out.putInt(0); // Count placeholder.
+
+        int count = 0;
+        for (Entry<String, Object> tag : compound.entrySet()) {
+            TagType type = TagType.fromObject(tag.getValue());
+            out.putByte(type.getId());
+            writeString(out, tag.getKey());
+            writeValue(out, type, tag.getValue());
+            count++;
+        }
+
+        out.putInt(start, out.position() - start - Integer.BYTES);
+        out.putInt(start + Integer.BYTES, count);
+    }
+
+    static void writeList(ScratchBuffer out, NBTList list) {
+        TagType contentType = list.getContentType();
+        int count = list.size();
+
+        int start = out.position();
+        out.putInt(0); // Size placeholder.
+        out.putByte(contentType.getId());
+        out.putInt(count);
+
+        if (getFixedWidth(contentType) != -1) {
+            for (Object element : list) {
+                writeValue(out, contentType, element);
+            }
+        } else {
+            // Reserve space for the offset table, then fill it in as elements are written.
+            int tableStart = out.position();
+            for (int i = 0; i < count; i++) {
+                out.putInt(0);
+            }
+
+            int elementsStart = out.position();
+            for (int i = 0; i < count; i++) {
+                out.putInt(tableStart + i * Integer.BYTES, out.position() - elementsStart);
+                writeValue(out, contentType, list.get(i));
+            }
+        }
+
+        out.putInt(start, out.position() - start - Integer.BYTES);
+    }
+
+    static void writeValue(ScratchBuffer out, TagType type, Object value) {
+        switch (type) {
+            case BYTE:
+                out.putByte((Byte) value);
+                break;
+
+            case SHORT:
+                out.putShort((Short) value);
+                break;
+
+            case INT:
+                out.putInt((Integer) value);
+                break;
+
+            case LONG:
+                out.putLong((Long) value);
+                break;
+
+            case FLOAT:
+                out.putFloat((Float) value);
+                break;
+
+            case DOUBLE:
+                out.putDouble((Double) value);
+                break;
+
+            case STRING:
+                writeString(out, (String) value);
+                break;
+
+            case LIST:
+                writeList(out, (NBTList) value);
+                break;
+
+            case COMPOUND:
+                writeCompound(out, (NBTCompound) value);
+                break;
+
+            case BYTE_ARRAY:
+                byte[] bytes = (byte[]) value;
+                out.putInt(bytes.length);
+                out.putBytes(bytes);
+                break;
+
+            case INT_ARRAY:
+                int[] ints = (int[]) value;
+                out.putInt(ints.length);
+                out.putInts(ints);
+                break;
+
+            case LONG_ARRAY:
+                long[] longs = (long[]) value;
+                out.putInt(longs.length);
+                out.putLongs(longs);
+                break;
+
+            case END:
+                throw new IllegalArgumentException("Tag " + type + " cannot be stored as a value");
+        }
+    }
+
+    static void writeString(ScratchBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length);
+        out.putBytes(bytes);
+    }
+
+    /*
+     *
+     * ============ READING ============
+     *
+     */
+
+    /**
+     * @return The number of bytes used by values of the {@code type}, or {@code -1} if its values
+     * can vary in size.
+     */
+    static int getFixedWidth(TagType type) {
+        switch (type) {
+            case END:
+                return 0;
+            case BYTE:
+                return Byte.BYTES;
+            case SHORT:
+                return Short.BYTES;
+            case INT:
+            case FLOAT:
+                return Integer.BYTES;
+            case LONG:
+            case DOUBLE:
+                return Long.BYTES;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * @return The number of bytes used by the value at the {@code position}.
+     */
+    static int sizeOf(ByteBuffer buffer, TagType type, int position) {
+        int width = getFixedWidth(type);
+        if (width != -1) {
+            return width;
+        }
+
+        int prefix = buffer.getInt(position);
+        switch (type) {
+            case INT_ARRAY:
+                return Integer.BYTES + prefix * Integer.BYTES;
+            case LONG_ARRAY:
+                return Integer.BYTES + prefix * Long.BYTES;
+            default:
+                // Strings & byte arrays are prefixed with their length in bytes, and lists &
+                // compounds are prefixed with their size in bytes.
+                return Integer.BYTES + prefix;
+        }
+    }
+
+    /**
+     * @return The value at the {@code position}. Compounds and lists are returned as views of the
+     * arena, and arrays as copies.
+     */
+    static Object readValue(NBTArena arena, ByteBuffer buffer, TagType type, int position) {
+        switch (type) {
+            case BYTE:
+                return buffer.get(position);
+            case SHORT:
+                return buffer.getShort(position);
+            case INT:
+                return buffer.getInt(position);
+            case LONG:
+                return buffer.getLong(position);
+            case FLOAT:
+                return buffer.getFloat(position);
+            case DOUBLE:
+                return buffer.getDouble(position);
+            case STRING:
+                return readString(buffer, position);
+            case LIST:
+                return new ArenaList(arena, buffer, position);
+            case COMPOUND:
+                return new ArenaCompound(arena, buffer, position);
+            case BYTE_ARRAY:
+                return readByteArray(buffer, position);
+            case INT_ARRAY:
+                return readIntArray(buffer, position);
+            case LONG_ARRAY:
+                return readLongArray(buffer, position);
+            default:
+                throw new IllegalStateException("Tag " + type + " cannot be read as a value");
+        }
+    }
+
+    static String readString(ByteBuffer buffer, int position) {
+        return new String(readByteArray(buffer, position), StandardCharsets.UTF_8);
+    }
+
+    static byte[] readByteArray(ByteBuffer buffer, int position) {
+        byte[] bytes = new byte[buffer.getInt(position)];
+        slice(buffer, position + Integer.BYTES).get(bytes);
+        return bytes;
+    }
+
+    static int[] readIntArray(ByteBuffer buffer, int position) {
+        int[] ints = new int[buffer.getInt(position)];
+        slice(buffer, position + Integer.BYTES).asIntBuffer().get(ints);
+        return ints;
+    }
+
+    static long[] readLongArray(ByteBuffer buffer, int position) {
+        long[] longs = new long[buffer.getInt(position)];
+        slice(buffer, position + Integer.BYTES).asLongBuffer().get(longs);
+        return longs;
+    }
+
+    /**
+     * @return {@code true} if the string at the {@code position} is made up of the exact same
+     * UTF-8 {@code bytes}. Otherwise {@code false}.
+     */
+    static boolean stringEquals(ByteBuffer buffer, int position, byte[] bytes) {
+        if (buffer.getInt(position) != bytes.length) {
+            return false;
+        }
+
+        int start = position + Integer.BYTES;
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts compound and list views into regular {@link NBTCompound}s and {@link NBTList}s.
+     * Other values are returned as-is.
+     */
+    static Object toHeap(Object value) {
+        if (value instanceof ArenaCompound) {
+            return ((ArenaCompound) value).toCompound();
+        } else if (value instanceof ArenaList) {
+            return ((ArenaList) value).toList();
+        }
+        return value;
+    }
+
+    /**
+     * @return A view of the {@code buffer}, starting at the {@code position}, that can be read from
+     * without affecting the position of the original.
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, int position) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        return view;
+    }
+
+    private ArenaFormat() {
+        throw new UnsupportedOperationException("ArenaFormat should not be instantiated");
+    }
+}
@@ -0,0 +1,260 @@
+package me.nullicorn.nedit.arena;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import me.nullicorn.nedit.type.NBTList;
+import me.nullicorn.nedit.type.TagType;
+
+/**
+ * A read-only view of a list stored in an {@link NBTArena}.
+ * <p>
+ * Any element can be retrieved in constant time. Elements that are compounds or lists are
+ * returned as views as well, while strings and arrays are copied onto the heap each time they are
+ * retrieved. Use {@link #toList()} to copy the entire list back onto the heap.
+ *
+ * @author Nullicorn
+ */
+public final class ArenaList implements Iterable<Object> {
+
+    private static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES + Integer.BYTES;
+
+    private final NBTArena   arena;
+    private final ByteBuffer buffer;
+    private final int        position;
+
+    ArenaList(NBTArena arena, ByteBuffer buffer, int position) {
+        this.arena = arena;
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    /**
+     * @return The NBT type of all elements in the list.
+     * @throws IllegalStateException If the list's arena is closed.
+     */
+    public TagType getContentType() {
+        arena.checkOpen();
+        return TagType.fromId(buffer.get(position + Integer.BYTES));
+    }
+
+    /**
+     * @return The number of elements in the list.
+     * @throws IllegalStateException If the list's arena is closed.
+     */
+    public int size() {
+        arena.checkOpen();
+        return buffer.getInt(position + Integer.BYTES + Byte.BYTES);
+    }
+
+    /**
+     * @return {@code true} if the list has no elements. Otherwise {@code false}.
+     * @throws IllegalStateException If the list's arena is closed.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return The element at the {@code index}. Compounds and lists are returned as {@link
+     * ArenaCompound}s and {@link ArenaList}s respectively.
+     * @throws IndexOutOfBoundsException If the {@code index} is negative, or not less than the
+     *                                   list's {@link #size() size}.
+     * @throws IllegalStateException     If the list's arena is closed.
+     */
+    public Object get(int index) {
+        TagType contentType = getContentType();
+        return ArenaFormat.readValue(arena, buffer, contentType, elementAt(index, contentType));
+    }
+
+    /**
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#BYTE BYTE}.
+     * @see #get(int)
+     */
+    public byte getByte(int index) {
+        return buffer.get(elementAtChecked(index, TagType.BYTE));
+    }
+
+    /**
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#SHORT SHORT}.
+     * @see #get(int)
+     */
+    public short getShort(int index) {
+        return buffer.getShort(elementAtChecked(index, TagType.SHORT));
+    }
+
+    /**
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#INT INT}.
+     * @see #get(int)
+     */
+    public int getInt(int index) {
+        return buffer.getInt(elementAtChecked(index, TagType.INT));
+    }
+
+    /**
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#LONG LONG}.
+     * @see #get(int)
+     */
+    public long getLong(int index) {
+        return buffer.getLong(elementAtChecked(index, TagType.LONG));
+    }
+
+    /**
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#FLOAT FLOAT}.
+     * @see #get(int)
+     */
+    public float getFloat(int index) {
+        return buffer.getFloat(elementAtChecked(index, TagType.FLOAT));
+    }
+
+    /**
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#DOUBLE DOUBLE}.
+     * @see #get(int)
+     */
+    public double getDouble(int index) {
+        return buffer.getDouble(elementAtChecked(index, TagType.DOUBLE));
+    }
+
+    /**
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#STRING STRING}.
+     * @see #get(int)
+     */
+    public String getString(int index) {
+        return ArenaFormat.readString(buffer, elementAtChecked(index, TagType.STRING));
+    }
+
+    /**
+     * @return A copy of the byte array at the {@code index}.
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#BYTE_ARRAY BYTE_ARRAY}.
+     * @see #get(int)
+     */
+    public byte[] getByteArray(int index) {
+        return ArenaFormat.readByteArray(buffer, elementAtChecked(index, TagType.BYTE_ARRAY));
+    }
+
+    /**
+     * @return A copy of the int array at the {@code index}.
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#INT_ARRAY INT_ARRAY}.
+     * @see #get(int)
+     */
+    public int[] getIntArray(int index) {
+        return ArenaFormat.readIntArray(buffer, elementAtChecked(index, TagType.INT_ARRAY));
+    }
+
+    /**
+     * @return A copy of the long array at the {@code index}.
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#LONG_ARRAY LONG_ARRAY}.
+     * @see #get(int)
+     */
+    public long[] getLongArray(int index) {
+        return ArenaFormat.readLongArray(buffer, elementAtChecked(index, TagType.LONG_ARRAY));
+    }
+
+    /**
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#LIST LIST}.
+     * @see #get(int)
+     */
+    public ArenaList getList(int index) {
+        return new ArenaList(arena, buffer, elementAtChecked(index, TagType.LIST));
+    }
+
+    /**
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#COMPOUND COMPOUND}.
+     * @see #get(int)
+     */
+    public ArenaCompound getCompound(int index) {
+        return new ArenaCompound(arena, buffer, elementAtChecked(index, TagType.COMPOUND));
+    }
+
+    /**
+     * @return An iterator over the list's elements, as returned by {@link #get(int)}.
+     */
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+            private final int size = size();
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(index++);
+            }
+        };
+    }
+
+    /**
+     * @return A copy of the list, and all of its nested tags, on the heap.
+     * @throws IllegalStateException If the list's arena is closed.
+     */
+    public NBTList toList() {
+        NBTList list = new NBTList(getContentType());
+        for (Object element : this) {
+            list.add(ArenaFormat.toHeap(element));
+        }
+        return list;
+    }
+
+    /**
+     * @return The list in SNBT format.
+     */
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+
+    /**
+     * Same as {@link #elementAt(int, TagType)}, but first checks that the list's content type is
+     * the {@code expectedType}.
+     *
+     * @throws IllegalStateException If the list's content type is not the {@code expectedType}.
+     */
+    private int elementAtChecked(int index, TagType expectedType) {
+        TagType contentType = getContentType();
+        if (contentType != expectedType) {
+            throw new IllegalStateException("Cannot get " + expectedType +
+                                            " from a list of " + contentType + "s");
+        }
+        return elementAt(index, contentType);
+    }
+
+    /**
+     * @return The position of the element at the {@code index}.
+     * @throws IndexOutOfBoundsException If the {@code index} is out of bounds.
+     */
+    private int elementAt(int index, TagType contentType) {
+        int size = size();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        int elementsStart = position + HEADER_SIZE;
+        int width = ArenaFormat.getFixedWidth(contentType);
+        if (width != -1) {
+            return elementsStart + index * width;
+        }
+
+        // Skip the offset table, then find the element using its entry in the table.
+        int offset = buffer.getInt(elementsStart + index * Integer.BYTES);
+        return elementsStart + size * Integer.BYTES + offset;
+    }
+}
@@ -0,0 +1,228 @@
+package me.nullicorn.nedit.arena;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import me.nullicorn.nedit.type.NBTCompound;
+
+/**
+ * A store for NBT data that lives outside of the Java heap, either in direct memory or in a
+ * memory-mapped file.
+ * <p>
+ * Compounds {@link #store(NBTCompound) stored} in the arena are serialized into large, fixed-size
+ * chunks of memory, and can then be read using the returned {@link ArenaCompound}. Because the
+ * data is not made up of individual objects, the garbage collector does not need to scan it, no
+ * matter how much is stored. The original compound can be discarded once stored.
+ * <p>
+ * Data cannot be removed from an arena individually. Instead, the entire arena is released at
+ * once when it is {@link #close() closed}, after which any views of its data can no longer be
+ * used. Arenas are thread-safe, and views of their data can be read from any thread.
+ *
+ * @author Nullicorn
+ */
+public final class NBTArena implements Closeable {
+
+    /**
+     * The number of bytes in each chunk of an arena, unless otherwise specified (64 MiB).
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Same as {@link #allocateDirect(int)}, but using the {@link #DEFAULT_CHUNK_SIZE default chunk
+     * size}.
+     */
+    public static NBTArena allocateDirect() {
+        return allocateDirect(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates an arena that stores data in {@link ByteBuffer#allocateDirect(int) direct} memory.
+     * <p>
+     * Java does not provide a way to free direct memory immediately. Once the arena is closed, its
+     * memory is freed the next time its chunks (a handful of objects) are garbage collected.
+     *
+     * @param chunkSize The number of bytes to allocate at a time. Compounds larger than this are
+     *                  given a chunk of their own.
+     * @throws IllegalArgumentException If the {@code chunkSize} is not positive.
+     */
+    public static NBTArena allocateDirect(int chunkSize) {
+        checkChunkSize(chunkSize);
+        return new NBTArena(null, chunkSize);
+    }
+
+    /**
+     * Same as {@link #map(Path, int)}, but using the {@link #DEFAULT_CHUNK_SIZE default chunk
+     * size}.
+     *
+     * @throws IOException If the file could not be opened.
+     */
+    public static NBTArena map(Path file) throws IOException {
+        return map(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates an arena that stores data in a memory-mapped file, allowing the operating system to
+     * page it out of memory when needed. If the file already exists, its contents are discarded.
+     * The file is not deleted when the arena is closed.
+     *
+     * @param chunkSize The number of bytes to map at a time. Compounds larger than this are given a
+     *                  chunk of their own.
+     * @throws IOException              If the file could not be opened.
+     * @throws IllegalArgumentException If the {@code chunkSize} is not positive.
+     * @throws NullPointerException     If the {@code file} is {@code null}.
+     */
+    public static NBTArena map(Path file, int chunkSize) throws IOException {
+        Objects.requireNonNull(file, "Arena file cannot be null");
+        checkChunkSize(chunkSize);
+
+        FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        return new NBTArena(channel, chunkSize);
+    }
+
+    private static void checkChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+    }
+
+    private final FileChannel   channel; // Null if memory is allocated directly.
+    private final int           chunkSize;
+    private final ScratchBuffer scratch = new ScratchBuffer();
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    // The chunk that data is currently being appended to, or null if there is none yet. Data is
+    // written via a duplicate, so that the position of the chunk itself never changes while views
+    // are reading from it.
+    private ByteBuffer currentChunk;
+    private ByteBuffer currentWriter;
+
+    private long mappedBytes;
+    private long usedBytes;
+
+    private volatile boolean closed;
+
+    private NBTArena(FileChannel channel, int chunkSize) {
+        this.channel = channel;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Copies a compound into the arena.
+     *
+     * @return A read-only view of the copy. Changes made to the original compound afterwards are
+     * not reflected in it.
+     * @throws IOException              If the arena needed more space, but a new chunk of its file
+     *                                  could not be mapped.
+     * @throws IllegalArgumentException If the compound (or any of its nested tags) is larger than
+     *                                  2 GiB once serialized.
+     * @throws IllegalStateException    If the arena is closed.
+     * @throws NullPointerException     If the {@code compound} is {@code null}.
+     */
+    public synchronized ArenaCompound store(NBTCompound compound) throws IOException {
+        Objects.requireNonNull(compound, "Cannot store a null compound");
+        checkOpen();
+
+        try {
+            try {
+                ArenaFormat.writeCompound(scratch, compound);
+            } catch (IllegalStateException e) {
+                throw new IllegalArgumentException("Compound is too large to be stored", e);
+            }
+
+            int size = scratch.position();
+            if (currentWriter == null || currentWriter.remaining() < size) {
+                allocateChunk(Math.max(size, chunkSize));
+            }
+
+            int position = currentWriter.position();
+            scratch.copyTo(currentWriter);
+            usedBytes += size;
+            return new ArenaCompound(this, currentChunk, position);
+        } finally {
+            scratch.reset();
+        }
+    }
+
+    /**
+     * @return The total number of bytes used by data stored in the arena.
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * @return The total number of bytes allocated (or mapped) by the arena, including space that
+     * has not been used yet.
+     */
+    public synchronized long getAllocatedBytes() {
+        long allocated = 0;
+        for (ByteBuffer chunk : chunks) {
+            allocated += chunk.capacity();
+        }
+        return allocated;
+    }
+
+    /**
+     * @return {@code true} if the arena has been {@link #close() closed}. Otherwise {@code false}.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Releases all data stored in the arena. Any views of the data will throw an {@link
+     * IllegalStateException} when used afterwards.
+     *
+     * @throws IOException If the arena's file could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        chunks.clear();
+        currentChunk = null;
+        currentWriter = null;
+
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * @throws IllegalStateException If the arena is closed.
+     */
+    void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("NBT arena is closed");
+        }
+    }
+
+    private void allocateChunk(int size) throws IOException {
+        ByteBuffer chunk;
+        if (channel == null) {
+            chunk = ByteBuffer.allocateDirect(size);
+        } else {
+            chunk = channel.map(MapMode.READ_WRITE, mappedBytes, size);
+            mappedBytes += size;
+        }
+
+        chunks.add(chunk);
+        currentChunk = chunk;
+        currentWriter = chunk.duplicate();
+    }
+}
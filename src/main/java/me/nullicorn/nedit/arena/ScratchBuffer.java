@@ -0,0 +1,125 @@
+package me.nullicorn.nedit.arena;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A growable heap buffer that NBT data is serialized into before being copied into an arena, so
+ * that the size of each document is known before space is reserved for it.
+ *
+ * @author Nullicorn
+ */
+final class ScratchBuffer {
+
+    /**
+     * Buffers that grow larger than this are discarded when {@link #reset() reset}, so that a
+     * single large document does not hold onto memory for the life of the arena.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1 << 20;
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    /**
+     * @return The number of bytes written to the buffer since it was last {@link #reset()
+     * reset}.
+     */
+    int position() {
+        return buffer.position();
+    }
+
+    /**
+     * Discards any bytes written to the buffer, so that it can be reused.
+     */
+    void reset() {
+        if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+            buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        } else {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Copies all bytes written to the buffer into the {@code destination}, starting at its current
+     * position.
+     */
+    void copyTo(ByteBuffer destination) {
+        destination.put(buffer.array(), 0, buffer.position());
+    }
+
+    void putByte(int value) {
+        ensureCapacity(Byte.BYTES);
+        buffer.put((byte) value);
+    }
+
+    void putShort(short value) {
+        ensureCapacity(Short.BYTES);
+        buffer.putShort(value);
+    }
+
+    void putInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Overwrites an int that was previously written at the {@code index}.
+     */
+    void putInt(int index, int value) {
+        buffer.putInt(index, value);
+    }
+
+    void putLong(long value) {
+        ensureCapacity(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    void putFloat(float value) {
+        ensureCapacity(Float.BYTES);
+        buffer.putFloat(value);
+    }
+
+    void putDouble(double value) {
+        ensureCapacity(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    void putBytes(byte[] values) {
+        ensureCapacity(values.length);
+        buffer.put(values);
+    }
+
+    void putInts(int[] values) {
+        ensureCapacity((long) values.length * Integer.BYTES);
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Integer.BYTES);
+    }
+
+    void putLongs(long[] values) {
+        ensureCapacity((long) values.length * Long.BYTES);
+        buffer.asLongBuffer().put(values);
+        buffer.position(buffer.position() + values.length * Long.BYTES);
+    }
+
+    /**
+     * Makes sure that at least {@code bytes} more bytes can be written to the buffer, growing it if
+     * necessary.
+     */
+    private void ensureCapacity(long bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+
+        long required = buffer.position() + bytes;
+        if (required > Integer.MAX_VALUE) {
+            throw new IllegalStateException("NBT data is too large to be stored in an arena");
+        }
+
+        int newCapacity = (int) Math.min(Integer.MAX_VALUE,
+            Math.max(required, (long) buffer.capacity() * 2));
+        ByteBuffer grown = ByteBuffer.allocate(newCapacity);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+}
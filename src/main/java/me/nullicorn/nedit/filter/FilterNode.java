@@ -0,0 +1,585 @@
+package me.nullicorn.nedit.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled form of an {@link NBTFilter}, which determines how the contents of a compound should
+ * be filtered.
+ * <p>
+ * Each node represents the filter as it applies to a single compound. For each tag in that
+ * compound, {@link #child(String)} returns either {@link #ALL}, meaning the tag should be read in
+ * its entirety, {@link #NONE}, meaning the tag should be skipped, or another node to apply to the
+ * tag's contents if it is a compound or list. Lists apply their node to each of their elements,
+ * unless the filter selects specific {@link #element(int) elements}.
+ * <p>
+ * Filters are compiled into a deterministic automaton, so even {@link NBTFilter#addTags(String...)
+ * wildcard} tags only need a single lookup per tag name. Nodes are immutable once compiled, and
+ * can safely be shared between threads.
+ *
+ * @author Nullicorn
+ * @see NBTFilter#compile()
+ */
+public final class FilterNode {
+
+    /**
+     * A node that allows every tag, including all of their contents.
+     */
+    public static final FilterNode ALL = new FilterNode(true);
+
+    /**
+     * A node that allows no tags.
+     */
+    public static final FilterNode NONE = new FilterNode(false);
+
+    /**
+     * Compiles the {@code tags} of a filter into an automaton of nodes.
+     *
+     * @return The root node of the automaton.
+     */
+    static FilterNode compile(FilterMode mode, Collection<FilteredTag> tags) {
+        return compile(mode, tags, Collections.emptyMap());
+    }
+
+    /**
+     * Compiles the {@code tags} and {@code predicates} of a filter into an automaton of nodes.
+     *
+     * @return The root node of the automaton.
+     */
+    static FilterNode compile(FilterMode mode, Collection<FilteredTag> tags,
+        Map<FilteredTag, Predicate<Object>> predicates) {
+        return new Compiler(mode, tags, predicates).compile();
+    }
+
+    private static final int[] NO_MATCHES = new int[0];
+
+    // Children that differ from `otherwise`, by name. Only assigned during compilation.
+    private Map<String, FilterNode> children;
+    private FilterNode              otherwise;
+
+    // The indices of the filtered tags that each child matches entirely, by name. Like `children`,
+    // only names whose matches differ from `otherwiseMatches` are present.
+    private Map<String, int[]> matches;
+    private int[]              otherwiseMatches;
+
+    // Predicates that the node's children must pass, by name.
+    private Map<String, Predicate<Object>> predicates;
+
+    // The nodes that apply to a list's elements, by range of indices. Each range starts at the
+    // corresponding index in `elementStarts` and ends where the next one starts. Null if the node
+    // itself applies to every element.
+    private int[]        elementStarts;
+    private FilterNode[] elementNodes;
+    private int[][]      elementMatches;
+
+    private final boolean includesLeaves;
+    private       int     tagCount;
+    private       int     namedChildCount;
+
+    private FilterNode(boolean includesLeaves) {
+        this.children = Collections.emptyMap();
+        this.otherwise = this;
+        this.matches = Collections.emptyMap();
+        this.otherwiseMatches = NO_MATCHES;
+        this.predicates = Collections.emptyMap();
+        this.includesLeaves = includesLeaves;
+    }
+
+    /**
+     * @param name The name of a tag inside the compound that the node applies to.
+     * @return The node that applies to the tag's contents. If the tag should be read entirely,
+     * {@link #ALL} is returned, and if it should be skipped entirely, {@link #NONE} is returned.
+     */
+    public FilterNode child(String name) {
+        if (children.isEmpty()) {
+            return otherwise;
+        }
+        return children.getOrDefault(name, otherwise);
+    }
+
+    /**
+     * Determines whether a tag that is not a compound or list (a "leaf") should be kept if the
+     * node applies to it. This is only {@code false} for {@link #NONE}, and for nodes of {@link
+     * FilterMode#INCLUDE inclusion} filters, where a leaf cannot contain the tags that were
+     * actually included.
+     *
+     * @return {@code true} if leaf tags that the node applies to should be read. Otherwise {@code
+     * false}.
+     */
+    public boolean includesLeaves() {
+        return includesLeaves;
+    }
+
+    /**
+     * @return {@code true} if the only tags that can match the node are the ones it has explicit
+     * {@link #getChildCount() children} for, such that once those have all been read, the rest of
+     * the compound can be skipped. Otherwise {@code false}.
+     */
+    public boolean isClosed() {
+        return otherwise == NONE;
+    }
+
+    /**
+     * @return The number of tag names that have their own child node or a {@link
+     * #getPredicate(String) predicate}.
+     */
+    public int getChildCount() {
+        return namedChildCount;
+    }
+
+    /**
+     * @param name The name of a tag inside the compound that the node applies to.
+     * @return The predicate that the tag's value must pass in order for the compound to be read, or
+     * {@code null} if there is none. If a compound has no tag with the {@code name}, it does not
+     * pass either.
+     */
+    public Predicate<Object> getPredicate(String name) {
+        if (predicates.isEmpty()) {
+            return null;
+        }
+        return predicates.get(name);
+    }
+
+    /**
+     * @return The number of tags in the compound that must pass a {@link #getPredicate(String)
+     * predicate}.
+     */
+    public int getPredicateCount() {
+        return predicates.size();
+    }
+
+    /**
+     * @param index The index of an element inside the list that the node applies to.
+     * @return The node that applies to the element. This is the node itself, unless the filter
+     * selects elements by their index (e.g. {@code Inventory[0..8].id}).
+     */
+    public FilterNode element(int index) {
+        if (elementStarts == null) {
+            return this;
+        }
+        return elementNodes[rangeOf(index)];
+    }
+
+    /**
+     * @return The index after the last element that the same {@link #element(int) element node}
+     * applies to as the element at the {@code index}, or {@link Integer#MAX_VALUE} if it applies
+     * to every element after it.
+     */
+    int getElementRangeEnd(int index) {
+        if (elementStarts == null) {
+            return Integer.MAX_VALUE;
+        }
+        int range = rangeOf(index);
+        return range + 1 < elementStarts.length ? elementStarts[range + 1] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return The indices of every filtered tag that the element at the {@code index} matches
+     * entirely.
+     * @see #getMatches(String)
+     */
+    int[] getElementMatches(int index) {
+        if (elementStarts == null) {
+            return NO_MATCHES;
+        }
+        return elementMatches[rangeOf(index)];
+    }
+
+    private int rangeOf(int index) {
+        int range = Arrays.binarySearch(elementStarts, index);
+        return range >= 0 ? range : -range - 2;
+    }
+
+    /**
+     * @return The number of filtered tags that the node's filter was compiled from, or {@code 0}
+     * for {@link #ALL} and {@link #NONE}.
+     */
+    int getTagCount() {
+        return tagCount;
+    }
+
+    /**
+     * @param name The name of a tag inside the compound that the node applies to.
+     * @return The indices of every filtered tag that the tag with the {@code name} matches
+     * entirely, or an empty array if there are none. Indices are less than the {@link
+     * #getTagCount() tag count}, and the returned array must not be modified.
+     */
+    int[] getMatches(String name) {
+        if (matches.isEmpty()) {
+            return otherwiseMatches;
+        }
+        return matches.getOrDefault(name, otherwiseMatches);
+    }
+
+    @Override
+    public String toString() {
+        if (this == ALL) {
+            return "ALL";
+        } else if (this == NONE) {
+            return "NONE";
+        }
+        return "FilterNode{children=" + children.keySet() + "}";
+    }
+
+    /**
+     * Converts filtered tags into an automaton using subset construction.
+     * <p>
+     * Each tag is a sequence of tokens, and a "state" is a position within one of those sequences.
+     * Every node corresponds to the set of states that the tags leading to it could be in. Reading
+     * a tag name moves each state past a matching token, where {@code *} matches any name, and
+     * {@code **} matches any number of names (including none).
+     * <p>
+     * Tokens may also end with one or more list selectors, such as {@code [3]}, {@code [0..8]}
+     * (inclusive), {@code [5..]} or {@code [*]} (any index), which are split into tokens of their
+     * own. Rather than matching
+     * names, selectors are matched by the index of each element when a node is applied to a list.
+     * <p>
+     * The paths of predicates are tracked as states too, but they never match anything themselves.
+     * Instead, a node gets a predicate whenever one of its states is the last token of a
+     * predicate's path. Because predicates can apply to compounds that are read entirely, there is
+     * also a "kept" state, which stands for everything being read once a node has no other states
+     * left that could change that.
+     */
+    private static final class Compiler {
+
+        private final boolean exclude;
+        private final boolean includesLeaves;
+
+        // The token at each state, or null if the state is the end of a tag.
+        private final List<String>            tokens     = new ArrayList<>();
+        // The index of the tag that each state belongs to, or -1 if it belongs to a predicate.
+        private final List<Integer>           tagIndices = new ArrayList<>();
+        // The predicate that each state belongs to, or null if it belongs to a tag.
+        private final List<Predicate<Object>> predicates = new ArrayList<>();
+        // The range of indices matched by each state, or null if its token is not a selector.
+        private final List<int[]>             selectors  = new ArrayList<>();
+        private final int                     tagCount;
+        private final int                     keptState;
+
+        private final Map<BitSet, FilterNode> nodes = new HashMap<>();
+
+        // A selector at the end of a token, e.g. `[3]`, `[0..8]`, `[5..]` or `[*]`.
+        private static final Pattern SELECTOR =
+            Pattern.compile("\\[(?:(\\*)|(\\d{1,9})(\\.\\.(\\d{0,9}))?)]$");
+
+        Compiler(FilterMode mode, Collection<FilteredTag> tags,
+            Map<FilteredTag, Predicate<Object>> predicates) {
+            // In an exclusion filter, matched tags are skipped and everything else is kept. In an
+            // inclusion filter, it's the opposite.
+            exclude = (mode == FilterMode.EXCLUDE);
+            includesLeaves = exclude;
+
+            int tagIndex = 0;
+            for (FilteredTag tag : tags) {
+                addPath(tag, tagIndex++, null);
+            }
+            for (Entry<FilteredTag, Predicate<Object>> predicate : predicates.entrySet()) {
+                addPath(predicate.getKey(), -1, predicate.getValue());
+            }
+            tagCount = tagIndex;
+            keptState = tokens.size();
+        }
+
+        private void addPath(FilteredTag tag, int tagIndex, Predicate<Object> predicate) {
+            for (String token : tag.getTokens()) {
+                addToken(token);
+            }
+            tokens.add(null);
+            selectors.add(null);
+            while (tagIndices.size() < tokens.size()) {
+                tagIndices.add(tagIndex);
+                predicates.add(predicate);
+            }
+        }
+
+        /**
+         * Adds a token to the end of the current path, splitting off any selectors at the end of
+         * it into their own tokens.
+         */
+        private void addToken(String token) {
+            List<int[]> ranges = new ArrayList<>();
+            Matcher matcher = SELECTOR.matcher(token);
+            while (matcher.find()) {
+                int start = 0;
+                int end = Integer.MAX_VALUE;
+                if (matcher.group(1) == null) {
+                    start = Integer.parseInt(matcher.group(2));
+                    end = start + 1;
+                    if (matcher.group(3) != null) {
+                        end = matcher.group(4).isEmpty()
+                            ? Integer.MAX_VALUE
+                            : Integer.parseInt(matcher.group(4)) + 1;
+                    }
+                }
+                ranges.add(0, new int[]{start, end});
+
+                token = token.substring(0, matcher.start());
+                matcher = SELECTOR.matcher(token);
+            }
+
+            if (!token.isEmpty() || ranges.isEmpty()) {
+                tokens.add(token);
+                selectors.add(null);
+            }
+            for (int[] range : ranges) {
+                tokens.add(range[0] + ".." + range[1]);
+                selectors.add(range);
+            }
+        }
+
+        FilterNode compile() {
+            BitSet initial = new BitSet();
+            boolean atStart = true;
+            for (int state = 0; state < tokens.size(); state++) {
+                if (atStart) {
+                    initial.set(state);
+                }
+                atStart = (tokens.get(state) == null);
+            }
+            return resolve(closure(initial));
+        }
+
+        /**
+         * @return The node for a set of {@code states}.
+         */
+        private FilterNode resolve(BitSet states) {
+            BitSet predicateStates = new BitSet();
+            boolean kept = states.get(keptState);
+            boolean matched = false;
+            boolean partial = false;
+            for (int state = states.nextSetBit(0); state >= 0 && state < keptState;
+                 state = states.nextSetBit(state + 1)) {
+                if (predicates.get(state) != null) {
+                    if (tokens.get(state) != null) {
+                        predicateStates.set(state);
+                    }
+                } else if (tokens.get(state) == null) {
+                    matched = true;
+                } else {
+                    partial = true;
+                }
+            }
+
+            if (matched) {
+                // A tag was matched entirely.
+                if (exclude) {
+                    return NONE;
+                }
+                kept = true;
+            } else if (!partial && !kept) {
+                // No tags apply any deeper than this.
+                if (!exclude || predicateStates.isEmpty()) {
+                    return exclude ? ALL : NONE;
+                }
+                kept = true;
+            }
+
+            if (kept) {
+                // Everything is read from here on, but predicates may still need to be checked.
+                if (predicateStates.isEmpty()) {
+                    return ALL;
+                }
+                states = predicateStates;
+                states.set(keptState);
+            }
+
+            FilterNode node = nodes.get(states);
+            if (node != null) {
+                return node;
+            }
+
+            node = new FilterNode(kept || includesLeaves);
+            node.tagCount = tagCount;
+            nodes.put(states, node); // Before resolving children, in case they loop back.
+
+            BitSet otherwiseStates = step(states, null);
+            FilterNode otherwise = resolve(otherwiseStates);
+            int[] otherwiseMatches = matchesIn(otherwiseStates);
+
+            Map<String, FilterNode> children = new HashMap<>();
+            Map<String, int[]> matches = new HashMap<>();
+            Map<String, Predicate<Object>> nodePredicates = new HashMap<>();
+            Set<String> names = new HashSet<>();
+            for (int state = states.nextSetBit(0); state >= 0 && state < keptState;
+                 state = states.nextSetBit(state + 1)) {
+                String token = tokens.get(state);
+                if (isWildcard(token) || selectors.get(state) != null) {
+                    continue;
+                }
+
+                Predicate<Object> predicate = predicates.get(state);
+                if (predicate != null && tokens.get(state + 1) == null) {
+                    // The state is at the end of a predicate's path.
+                    nodePredicates.merge(token, predicate, Predicate::and);
+                }
+
+                if (names.add(token)) {
+                    BitSet childStates = step(states, token);
+                    FilterNode child = resolve(childStates);
+                    if (child != otherwise) {
+                        children.put(token, child);
+                    }
+
+                    int[] childMatches = matchesIn(childStates);
+                    if (!Arrays.equals(childMatches, otherwiseMatches)) {
+                        matches.put(token, childMatches);
+                    }
+                }
+            }
+
+            node.children = children.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(children);
+            node.otherwise = otherwise;
+            node.matches = matches.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(matches);
+            node.otherwiseMatches = otherwiseMatches;
+            node.predicates = nodePredicates.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(nodePredicates);
+
+            Set<String> namedChildren = new HashSet<>(children.keySet());
+            namedChildren.addAll(nodePredicates.keySet());
+            node.namedChildCount = namedChildren.size();
+
+            resolveElements(node, states);
+            return node;
+        }
+
+        /**
+         * Determines which nodes apply to each element of a list, if any of the {@code states} are
+         * selectors.
+         */
+        private void resolveElements(FilterNode node, BitSet states) {
+            // Split the indices into ranges that are each matched by the same selectors.
+            Set<Integer> bounds = new HashSet<>();
+            bounds.add(0);
+            for (int state = states.nextSetBit(0); state >= 0 && state < keptState;
+                 state = states.nextSetBit(state + 1)) {
+                int[] range = selectors.get(state);
+                if (range != null) {
+                    bounds.add(range[0]);
+                    bounds.add(range[1]);
+                }
+            }
+            if (bounds.size() == 1) {
+                // No selectors, so every element uses the node itself.
+                return;
+            }
+            bounds.remove(Integer.MAX_VALUE);
+
+            int[] starts = new int[bounds.size()];
+            int i = 0;
+            for (int bound : bounds) {
+                starts[i++] = bound;
+            }
+            Arrays.sort(starts);
+
+            FilterNode[] elementNodes = new FilterNode[starts.length];
+            int[][] elementMatches = new int[starts.length][];
+            for (i = 0; i < starts.length; i++) {
+                BitSet elementStates = stepElement(states, starts[i]);
+                elementNodes[i] = resolve(elementStates);
+                elementMatches[i] = matchesIn(elementStates);
+            }
+
+            node.elementStarts = starts;
+            node.elementNodes = elementNodes;
+            node.elementMatches = elementMatches;
+        }
+
+        /**
+         * @return The indices of the tags that have been matched entirely by any of the {@code
+         * states}.
+         */
+        private int[] matchesIn(BitSet states) {
+            int[] matches = NO_MATCHES;
+            for (int state = states.nextSetBit(0); state >= 0 && state < keptState;
+                 state = states.nextSetBit(state + 1)) {
+                if (tokens.get(state) == null && tagIndices.get(state) != -1) {
+                    matches = Arrays.copyOf(matches, matches.length + 1);
+                    matches[matches.length - 1] = tagIndices.get(state);
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * @param name The name of the tag being read, or {@code null} for any name that does not
+         *             appear literally in the filter.
+         * @return The states reached after reading the {@code name} from any of the {@code
+         * states}.
+         */
+        private BitSet step(BitSet states, String name) {
+            BitSet next = new BitSet();
+            for (int state = states.nextSetBit(0); state >= 0;
+                 state = states.nextSetBit(state + 1)) {
+                if (state == keptState) {
+                    next.set(keptState);
+                    break;
+                }
+
+                String token = tokens.get(state);
+                if (selectors.get(state) != null) {
+                    // Selectors only match list elements, not names.
+                    continue;
+                } else if ("**".equals(token)) {
+                    next.set(state);
+                } else if ("*".equals(token) || (token != null && token.equals(name))) {
+                    next.set(state + 1);
+                }
+            }
+            return closure(next);
+        }
+
+        /**
+         * @return The states reached after reading the element at the {@code index} of a list.
+         * Selectors are moved past if they match the {@code index}, and all other states stay the
+         * same, since elements use the same node as their list.
+         */
+        private BitSet stepElement(BitSet states, int index) {
+            BitSet next = new BitSet();
+            for (int state = states.nextSetBit(0); state >= 0;
+                 state = states.nextSetBit(state + 1)) {
+                int[] range = state < keptState ? selectors.get(state) : null;
+                if (range == null) {
+                    next.set(state);
+                } else if (index >= range[0] && index < range[1]) {
+                    next.set(state + 1);
+                }
+            }
+            return closure(next);
+        }
+
+        /**
+         * Adds to the {@code states} any that can be reached without reading a name, which is by
+         * letting a {@code **} match no names at all.
+         */
+        private BitSet closure(BitSet states) {
+            for (int state = states.nextSetBit(0); state >= 0 && state < keptState;
+                 state = states.nextSetBit(state + 1)) {
+                if ("**".equals(tokens.get(state))) {
+                    states.set(state + 1);
+                }
+            }
+            return states;
+        }
+
+        private static boolean isWildcard(String token) {
+            return "*".equals(token) || "**".equals(token);
+        }
+    }
+}
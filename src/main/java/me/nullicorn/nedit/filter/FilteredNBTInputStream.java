@@ -1,7 +1,11 @@
 package me.nullicorn.nedit.filter;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Predicate;
 import me.nullicorn.nedit.NBTInputStream;
 import me.nullicorn.nedit.exception.NBTParseException;
 import me.nullicorn.nedit.type.NBTCompound;
@@ -18,6 +22,23 @@ import me.nullicorn.nedit.type.TagType;
  */
 public class FilteredNBTInputStream extends NBTInputStream {
 
+    // The number of bytes discarded at a time when the underlying stream cannot skip them.
+    private static final int SKIP_BUFFER_SIZE = 8192;
+
+    // Returned in place of compounds that fail one of the filter's predicates.
+    private static final Object REJECTED = new Object();
+
+    private byte[] skipBuffer; // Created when first needed.
+
+    // State of the current call to readFully().
+    private boolean        drain;
+    private int            depth;
+    private boolean        satisfied;
+    private int            matchLimit;
+    private int[]          matchCounts; // Null if matches are not limited.
+    private int            tagsLeft;
+    private ProjectionSink sink; // Null unless projecting, in which case nothing is built.
+
     /**
      * @see NBTInputStream#NBTInputStream(InputStream)
      */
@@ -40,35 +61,270 @@ public class FilteredNBTInputStream extends NBTInputStream {
      *               the resulting compound and any of its child tags. Tags not allowed by the
      *               filter will not be read, and instead will be skipped over in the stream
      *               itself.
-     * @return The read compound, conforming to the {@code filter}'s rules.
+     * @return The read compound, conforming to the {@code filter}'s rules, or {@code null} if it
+     * does not pass one of the filter's {@link NBTFilter#addPredicate(String, Predicate)
+     * predicates}.
      * @throws IOException If the compound or any of its child tags could not be read.
+     * @see #readFully(NBTFilter, boolean)
      */
     public NBTCompound readFully(NBTFilter filter) throws IOException {
+        return readFully(filter, true);
+    }
+
+    /**
+     * Same as {@link #readFully(NBTFilter)}, but with control over what happens once the filter is
+     * satisfied.
+     * <p>
+     * A filter is satisfied once nothing left in the compound could be allowed by it. This happens
+     * when every tag that an {@link FilterMode#INCLUDE inclusion} filter names explicitly has been
+     * read (e.g. both {@code id} and {@code Count} for {@code NBTFilter.with("id", "Count")}), or
+     * when every tag has reached the filter's {@link NBTFilter#setMatchLimit(int) match limit}.
+     *
+     * @param drain If {@code true}, the rest of the compound is skipped once the filter is
+     *              satisfied, leaving the stream positioned after the end of the compound. If
+     *              {@code false}, reading stops immediately, and the stream is left positioned
+     *              after the last tag that was read.
+     * @see #readFully(NBTFilter)
+     */
+    public NBTCompound readFully(NBTFilter filter, boolean drain) throws IOException {
+        int limit = filter.getMode() == FilterMode.INCLUDE ? filter.getMatchLimit() : 0;
+        return readFully(filter.compile(), limit, drain);
+    }
+
+    /**
+     * Same as {@link #readFully(NBTFilter, boolean)}, but using a filter that was already
+     * compiled.
+     */
+    NBTCompound readFully(FilterNode root, int matchLimit, boolean drain) throws IOException {
+        if (!readRootHeader()) {
+            return new NBTCompound();
+        }
+        prepare(root, drain, matchLimit, null);
+
+        Object result = readCompound(root);
+        return result == REJECTED ? null : (NBTCompound) result;
+    }
+
+    /**
+     * Reads an NBT compound from the stream, passing the value of each tag that matches one of the
+     * {@code projection}'s paths to the {@code sink}. Any other tags are skipped, and no compound
+     * is created for the root or any other tag, except for compounds and lists that are matched
+     * themselves.
+     * <p>
+     * Like {@link #readFully(NBTFilter)}, reading stops once every path named explicitly has been
+     * matched, and the rest of the compound is skipped.
+     *
+     * @throws IOException If the compound or any of its matched tags could not be read.
+     * @see ProjectionSink
+     */
+    public void project(NBTProjection projection, ProjectionSink sink) throws IOException {
+        Objects.requireNonNull(projection, "Projection cannot be null");
+        Objects.requireNonNull(sink, "Sink cannot be null");
+        if (!readRootHeader()) {
+            return;
+        }
+
+        FilterNode root = projection.compile();
+        prepare(root, true, 0, sink);
+        try {
+            readCompound(root);
+        } finally {
+            this.sink = null;
+        }
+    }
+
+    /**
+     * Same as {@link #project(NBTProjection, ProjectionSink)}, but the values matched by each path
+     * are stored in the {@code columns} at that path's index. Paths that are not matched are set
+     * to {@code null}, and paths that match multiple times are set to their last value.
+     *
+     * @throws IllegalArgumentException If there are fewer {@code columns} than paths in the {@code
+     *                                  projection}.
+     */
+    public void project(NBTProjection projection, Object[] columns) throws IOException {
+        Objects.requireNonNull(columns, "Columns cannot be null");
+        if (columns.length < projection.size()) {
+            throw new IllegalArgumentException("Cannot fit " + projection.size() +
+                                               " paths in " + columns.length + " columns");
+        }
+
+        Arrays.fill(columns, 0, projection.size(), null);
+        project(projection, (path, value) -> columns[path] = value);
+    }
+
+    /**
+     * Same as {@link #seekList(String, NBTFilter)}, but without filtering the list's elements.
+     */
+    public ListCursor seekList(String path) throws IOException {
+        return seekList(path, null);
+    }
+
+    /**
+     * Skips ahead to the list at the {@code path} in the stream's root compound, without reading
+     * any of the tags before it, and returns a cursor for reading the list's elements one at a
+     * time. This allows lists with more elements than could fit in memory at once to be processed
+     * anyway.
+     * <p>
+     * Once the cursor has no elements left, the stream is positioned after the end of the list,
+     * and the rest of the root compound is left unread.
+     *
+     * @param path          The name of the list. <a href="../type/NBTCompound.html#nesting">Dot-notation</a>
+     *                      can be used for lists inside of nested compounds, e.g. {@code
+     *                      data.items}.
+     * @param elementFilter A filter applied to each element that is a compound or list, or {@code
+     *                      null} to read each element entirely.
+     * @return A cursor over the list's elements, or {@code null} if the root compound has no tag
+     * at the {@code path}. In that case, the stream is left positioned after the end of the
+     * innermost compound on the {@code path} that was found.
+     * @throws IOException If the stream could not be read, or if the tag at the {@code path} is
+     *                     not a list (or one of its parents is not a compound).
+     * @see ListCursor
+     */
+    public ListCursor seekList(String path, NBTFilter elementFilter) throws IOException {
+        Objects.requireNonNull(path, "Path cannot be null");
+
+        FilterNode filter = null;
+        int limit = 0;
+        if (elementFilter != null) {
+            filter = elementFilter.compile();
+            limit = elementFilter.getMode() == FilterMode.INCLUDE
+                ? elementFilter.getMatchLimit()
+                : 0;
+        }
+
+        if (!readRootHeader()) {
+            return null;
+        }
+
+        String[] tokens = FilteredTag.tokenizeTagName(path);
+        for (int i = 0; i < tokens.length; i++) {
+            TagType type = seekTag(tokens[i]);
+            TagType expectedType = i + 1 == tokens.length ? TagType.LIST : TagType.COMPOUND;
+            if (type == null) {
+                return null;
+            } else if (type != expectedType) {
+                throw new IOException("Expected " + expectedType + " at " + tokens[i] +
+                                      ", but got " + type);
+            }
+        }
+
+        TagType contentType = readTagId();
+        int length = readInt();
+        if (contentType == null) {
+            throw new NBTParseException("Unknown tag ID for TAG_List");
+        } else if (length < 0) {
+            throw new NBTParseException(new NegativeArraySizeException());
+        }
+        return new ListCursor(this, contentType, length, filter, limit);
+    }
+
+    /**
+     * Skips tags in the compound at the stream's head until one with the {@code name} is found,
+     * leaving the stream positioned at that tag's value.
+     *
+     * @return The type of the tag that was found, or {@code null} if the compound ended first.
+     */
+    private TagType seekTag(String name) throws IOException {
+        TagType type;
+        while ((type = readTagId()) != TagType.END) {
+            if (type == null) {
+                throw new NBTParseException("Unknown tag ID for TAG_Compound");
+            } else if (readString().equals(name)) {
+                return type;
+            }
+            skipValue(type);
+        }
+        return null;
+    }
+
+    /**
+     * Reads the next element of a list for a {@link ListCursor}.
+     *
+     * @param filter The compiled filter to apply to the element, or {@code null} to read it
+     *               entirely.
+     * @return The element, or {@code null} if it does not pass one of the filter's predicates.
+     */
+    Object readElement(TagType type, FilterNode filter, int matchLimit) throws IOException {
+        if (filter == null || !isContainer(type)) {
+            return readValue(type);
+        }
+
+        // Each element is filtered as if it were a root compound of its own.
+        prepare(filter, true, matchLimit, null);
+        Object element = readValue(type, filter);
+        return element == REJECTED ? null : element;
+    }
+
+    /**
+     * Reads the type and name of the stream's root tag.
+     *
+     * @return {@code true} if the root is a compound, or {@code false} if the stream has no root
+     * tag.
+     * @throws IOException If the root tag is not a compound.
+     */
+    private boolean readRootHeader() throws IOException {
         gunzipIfNecessary();
         TagType rootType = readTagId();
         if (rootType == TagType.END) {
-            return new NBTCompound();
+            return false;
         } else if (rootType != TagType.COMPOUND) {
             throw new IOException("Expected COMPOUND at NBT root, but got " + rootType);
         }
         readString();
-        return readCompound(filter, 0);
+        return true;
+    }
+
+    /**
+     * Resets the state of the stream before reading a filtered compound.
+     */
+    private void prepare(FilterNode root, boolean drain, int matchLimit, ProjectionSink sink) {
+        this.drain = drain;
+        this.matchLimit = matchLimit;
+        this.sink = sink;
+        depth = 0;
+        satisfied = false;
+
+        if (matchLimit > 0 && root.getTagCount() > 0) {
+            matchCounts = new int[root.getTagCount()];
+            tagsLeft = matchCounts.length;
+        } else {
+            matchCounts = null;
+        }
     }
 
     /**
      * Reads a nameless NBT compound from the head of the stream, recursively applying a {@code
      * filter} to any tags inside it that are lists or compounds.
      *
-     * @param filter The filter to apply to each nested list and compound inside the compound being
-     *               read.
-     * @param depth  The compound's distance from the root compound, or how many parent tags the
-     *               compound has.
+     * @param filter The compiled filter to apply to the compound's contents.
+     * @return The filtered compound, {@link #REJECTED} if it does not pass one of the filter's
+     * predicates, or {@code null} if projecting.
      */
-    private NBTCompound readCompound(NBTFilter filter, int depth) throws IOException {
-        NBTCompound result = new NBTCompound();
+    private Object readCompound(FilterNode filter) throws IOException {
+        NBTCompound result = sink == null ? new NBTCompound() : null;
+
+        // If only the node's named children can match, count how many are left to be read.
+        int childrenLeft = filter.isClosed() ? filter.getChildCount() : -1;
+        int predicatesLeft = filter.getPredicateCount();
+        depth++;
 
         boolean reachedEnd = false;
         while (!reachedEnd) {
+            if (childrenLeft == 0 && depth == 1) {
+                satisfied = true;
+            }
+
+            if (satisfied) {
+                if (drain) {
+                    skipValue(TagType.COMPOUND);
+                }
+                break;
+            } else if (childrenLeft == 0) {
+                // Nothing else in this compound can match, but its parent may still have tags.
+                skipValue(TagType.COMPOUND);
+                break;
+            }
+
             TagType tagType = readTagId();
 
             if (tagType == null) {
@@ -79,81 +335,121 @@ public class FilteredNBTInputStream extends NBTInputStream {
             }
 
             String tagName = readString(internNames);
+            FilterNode childFilter = filter.child(tagName);
+            Predicate<Object> predicate = filter.getPredicate(tagName);
+
+            if (predicate != null) {
+                // The tag needs to be read in order to be tested, even if it won't be kept.
+                boolean keep = childFilter == FilterNode.ALL
+                    ? claimMatch(filter.getMatches(tagName))
+                    : childFilter != FilterNode.NONE;
+                Object value = childFilter == FilterNode.ALL || childFilter == FilterNode.NONE
+                    ? readValue(tagType)
+                    : readValue(tagType, childFilter);
 
-            //  - Exclusion filters will default to reading unless an excluded tag is found, which
-            //    will be skipped.
-            //  - Inclusion filters default to skipping unless an included tag is found, which will
-            //    be read.
-            boolean continueReading = (filter.getMode() == FilterMode.EXCLUDE);
-            FilteredTag match = null;
-
-            // Check for any filtered tags that match the current tag's name & depth.
-            for (FilteredTag filtered : filter) {
-                String[] tokens = filtered.getTokens();
-                boolean matches = depth < tokens.length && tagName.equals(tokens[depth]);
-                if (matches) {
-                    // A match always means to keep reading in an inclusion filter.
-                    // In an exclusion filter, we only need to keep reading if the match goes
-                    // deeper.
-                    continueReading = (filter.getMode() == FilterMode.INCLUDE)
-                                      || (depth + 1 < tokens.length);
-                    match = filtered;
-                    break; // Only one match is needed to determine the tag's inclusion status.
+                if (value == REJECTED || !predicate.test(value)) {
+                    // The compound doesn't pass, so skip the rest of it.
+                    if (drain || depth > 1) {
+                        skipValue(TagType.COMPOUND);
+                    }
+                    depth--;
+                    return REJECTED;
                 }
-            }
-
-            if (continueReading) {
-                int childDepth = depth + 1;
-
-                // Try to create a filter that could be used on the child value (if its a list or
-                // compound).
-                NBTFilter subFilter = (match == null)
-                    ? null
-                    : filter.subFilter(match, childDepth);
-
-                // Only apply the filter if it has entries. Otherwise, read the entire tag.
-                Object value = (subFilter == null || subFilter.isEmpty())
-                    ? readValue(tagType)
-                    : readValue(tagType, subFilter, childDepth);
 
-                result.put(tagName, value);
+                predicatesLeft--;
+                if (keep && (childFilter.includesLeaves() || isContainer(tagType))) {
+                    result.put(tagName, value);
+                }
+            } else if (childFilter == FilterNode.ALL) {
+                if (!claimMatch(filter.getMatches(tagName))) {
+                    skipValue(tagType);
+                } else if (sink != null) {
+                    projectValue(tagType, filter.getMatches(tagName));
+                } else {
+                    result.put(tagName, readValue(tagType));
+                }
+            } else if (childFilter != FilterNode.NONE && isContainer(tagType)) {
+                Object value = readValue(tagType, childFilter);
+                if (result != null && value != REJECTED) {
+                    result.put(tagName, value);
+                }
+            } else if (childFilter.includesLeaves()) {
+                result.put(tagName, readValue(tagType));
             } else {
                 // Skip excluded (or non-included) tags.
                 skipValue(tagType);
             }
+
+            if (childrenLeft > 0 && (childFilter != FilterNode.NONE || predicate != null)) {
+                childrenLeft--;
+            }
         }
 
-        return result;
+        depth--;
+        // Compounds without a tag that has a predicate don't pass it either, even if the filter
+        // was satisfied before that tag was reached.
+        return predicatesLeft > 0 ? REJECTED : result;
     }
 
     /**
      * Reads a nameless NBT list from the head of the stream, applying a {@code filter} to its
      * elements if they are compounds or lists.
      *
-     * @param filter The filter to apply to the lists's elements (if they are compound or list
-     *               tags).
-     * @param depth  The list's distance from the root compound, or how many parent tags the list
-     *               has.
+     * @param filter The compiled filter to apply to the lists's elements (if they are compound or
+     *               list tags).
+     * @return The filtered list, or {@code null} if projecting.
      */
-    private NBTList readList(NBTFilter filter, int depth) throws IOException {
+    private NBTList readList(FilterNode filter) throws IOException {
         TagType contentType = readTagId();
         int length = readInt();
 
         if (contentType == null) {
             throw new NBTParseException("Unknown tag ID for TAG_List");
         } else if (length == 0) {
-            return new NBTList(contentType);
+            return sink == null ? new NBTList(contentType) : null;
         } else if (length < 0) {
             throw new NBTParseException(new NegativeArraySizeException());
         }
 
-        NBTList list = new NBTList(contentType);
+        NBTList list = sink == null ? new NBTList(contentType) : null;
         for (int i = 0; i < length; i++) {
-            // Don't increase the depth here, because when a list of compounds is filtered, those
-            // compounds' tags are referenced directly on the list itself.
+            // Unless the filter selects elements by index, each element gets the same filter as
+            // the list, because when a list of compounds is filtered, those compounds' tags are
+            // referenced directly on the list itself.
             //
             // e.g. `Level.Sections.Palette`, NOT `Level.Sections.[index].Palette`
-            list.add(readValue(contentType, filter, depth));
+            FilterNode elementFilter = filter.element(i);
+
+            Object element;
+            if (elementFilter == FilterNode.NONE
+                || !isContainer(contentType) && !elementFilter.includesLeaves()) {
+                // Skip every element that the same filter applies to all at once.
+                int end = Math.min(length, filter.getElementRangeEnd(i));
+                skipElements(contentType, end - i);
+                i = end - 1;
+                continue;
+            } else if (elementFilter != FilterNode.ALL) {
+                element = readValue(contentType, elementFilter);
+            } else if (!claimMatch(filter.getElementMatches(i))) {
+                skipValue(contentType);
+                continue;
+            } else if (sink != null) {
+                projectValue(contentType, filter.getElementMatches(i));
+                element = null;
+            } else {
+                element = readValue(contentType);
+            }
+
+            if (list != null && element != REJECTED) {
+                list.add(element);
+            }
+
+            if (satisfied) {
+                if (drain) {
+                    skipElements(contentType, length - i - 1);
+                }
+                break;
+            }
         }
 
         return list;
@@ -164,43 +460,139 @@ public class FilteredNBTInputStream extends NBTInputStream {
      * list or compound.
      *
      * @param type   The type of value to read.
-     * @param filter The filter to apply (only applicable to compound and list tags).
-     * @param depth  The value's distance from the root compound, or how many parent tags the value
-     *               has.
+     * @param filter The compiled filter to apply (only applicable to compound and list tags).
      */
-    private Object readValue(TagType type, NBTFilter filter, int depth) throws IOException {
+    private Object readValue(TagType type, FilterNode filter) throws IOException {
         if (type == TagType.COMPOUND) {
-            return readCompound(filter, depth);
+            return readCompound(filter);
         } else if (type == TagType.LIST) {
-            return readList(filter, depth);
+            return readList(filter);
         }
         return readValue(type);
     }
 
+    private static boolean isContainer(TagType type) {
+        return type == TagType.COMPOUND || type == TagType.LIST;
+    }
+
+    /**
+     * Counts a match for each of the filtered tags that a tag {@code matches} entirely, as long as
+     * those tags haven't reached the filter's {@link NBTFilter#getMatchLimit() match limit}.
+     *
+     * @param matches The indices of the filtered tags matched, as returned by {@link
+     *                FilterNode#getMatches(String)}.
+     * @return {@code true} if the tag should be read, or {@code false} if every filtered tag it
+     * matches has already reached the limit. Tags that don't match any filtered tag themselves,
+     * such as the children of a tag that was already matched, are always read.
+     */
+    private boolean claimMatch(int[] matches) {
+        if (matchCounts == null || matches.length == 0) {
+            return true;
+        }
+
+        boolean claimed = false;
+        for (int tag : matches) {
+            if (matchCounts[tag] < matchLimit) {
+                claimed = true;
+                if (++matchCounts[tag] == matchLimit && --tagsLeft == 0) {
+                    satisfied = true;
+                }
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Reads a value from the stream's head, and passes it to the projection's sink for each of the
+     * {@code paths} it matched.
+     */
+    private void projectValue(TagType type, int[] paths) throws IOException {
+        switch (type) {
+            case BYTE:
+                byte byteValue = readByte();
+                for (int path : paths) {
+                    sink.accept(path, byteValue);
+                }
+                break;
+
+            case SHORT:
+                short shortValue = readShort();
+                for (int path : paths) {
+                    sink.accept(path, shortValue);
+                }
+                break;
+
+            case INT:
+                int intValue = readInt();
+                for (int path : paths) {
+                    sink.accept(path, intValue);
+                }
+                break;
+
+            case LONG:
+                long longValue = readLong();
+                for (int path : paths) {
+                    sink.accept(path, longValue);
+                }
+                break;
+
+            case FLOAT:
+                float floatValue = readFloat();
+                for (int path : paths) {
+                    sink.accept(path, floatValue);
+                }
+                break;
+
+            case DOUBLE:
+                double doubleValue = readDouble();
+                for (int path : paths) {
+                    sink.accept(path, doubleValue);
+                }
+                break;
+
+            default:
+                Object value = readValue(type);
+                for (int path : paths) {
+                    sink.accept(path, value);
+                }
+                break;
+        }
+    }
+
+    /*
+     *
+     * ============ SKIPPING ============
+     *
+     */
+
     /**
      * Skips however many bytes from the stream are needed to encode a tag of a given {@code type}.
      *
      * @param type The type of tag at the stream's head.
      */
     private void skipValue(TagType type) throws IOException {
-        int bytesToSkip;
+        int width = getFixedWidth(type);
+        if (width != -1) {
+            skipFully(width);
+            return;
+        }
+
         switch (type) {
             case LIST:
                 TagType elementType = readTagId();
-                int length = readInt();
-
-                // Skip each element in the list.
-                if (elementType != TagType.END) {
-                    for (int i = 0; i < length; i++) {
-                        skipValue(elementType);
-                    }
+                if (elementType == null) {
+                    throw new NBTParseException("Unknown tag ID for TAG_List");
                 }
+                skipElements(elementType, readInt());
                 return;
 
             case COMPOUND:
                 // Skip each child tag in the compound.
                 TagType childType;
                 while ((childType = readTagId()) != TagType.END) {
+                    if (childType == null) {
+                        throw new NBTParseException("Unknown tag ID for TAG_Compound");
+                    }
                     skipString(); // Skips the tag's name.
                     skipValue(childType);
                 }
@@ -210,41 +602,40 @@ public class FilteredNBTInputStream extends NBTInputStream {
                 skipString();
                 return;
 
-            case BYTE:
-                bytesToSkip = 1;
-                break;
-
-            case SHORT:
-                bytesToSkip = 2;
-                break;
-
-            case FLOAT:
-            case INT:
-                bytesToSkip = 4;
-                break;
-
-            case LONG:
-            case DOUBLE:
-                bytesToSkip = 8;
-                break;
-
             case BYTE_ARRAY:
-                bytesToSkip = readInt();
-                break;
+                skipElements(TagType.BYTE, readInt());
+                return;
 
             case INT_ARRAY:
-                bytesToSkip = readInt() * 4;
-                break;
+                skipElements(TagType.INT, readInt());
+                return;
 
             case LONG_ARRAY:
-                bytesToSkip = readInt() * 8;
-                break;
+                skipElements(TagType.LONG, readInt());
+                return;
 
             default:
                 return;
         }
+    }
 
-        skipBytes(bytesToSkip);
+    /**
+     * Skips {@code count} consecutive values of the same {@code type}, such as the elements of a
+     * list or array. If the values have a fixed width, they are all skipped at once.
+     */
+    void skipElements(TagType type, int count) throws IOException {
+        if (count < 0) {
+            throw new NBTParseException(new NegativeArraySizeException());
+        }
+
+        int width = getFixedWidth(type);
+        if (width != -1) {
+            skipFully((long) count * width);
+        } else {
+            for (int i = 0; i < count; i++) {
+                skipValue(type);
+            }
+        }
     }
 
     /**
@@ -253,6 +644,56 @@ public class FilteredNBTInputStream extends NBTInputStream {
      */
     private void skipString() throws IOException {
         int length = readUnsignedShort();
-        skipBytes(length); // Skips the string's characters.
+        skipFully(length); // Skips the string's characters.
+    }
+
+    /**
+     * Skips exactly {@code n} bytes from the stream.
+     * <p>
+     * Unlike {@link #skipBytes(int)}, this does not give up when the underlying stream skips fewer
+     * bytes than requested. The stream's own {@link InputStream#skip(long) skip} is used when
+     * possible, which allows sources like files to seek past the bytes instead of reading them. If
+     * the stream cannot skip any further, the remaining bytes are read and discarded instead.
+     *
+     * @throws EOFException If the stream ends before all {@code n} bytes are skipped.
+     */
+    private void skipFully(long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                // The stream may not support skipping, or may just need to be read again first.
+                if (skipBuffer == null) {
+                    skipBuffer = new byte[SKIP_BUFFER_SIZE];
+                }
+                skipped = in.read(skipBuffer, 0, (int) Math.min(n, skipBuffer.length));
+                if (skipped == -1) {
+                    throw new EOFException("Stream ended with " + n + " bytes left to skip");
+                }
+            }
+            n -= skipped;
+        }
+    }
+
+    /**
+     * @return The number of bytes used to encode values of the {@code type}, or {@code -1} if its
+     * values can vary in size.
+     */
+    private static int getFixedWidth(TagType type) {
+        switch (type) {
+            case BYTE:
+                return Byte.BYTES;
+            case SHORT:
+                return Short.BYTES;
+            case INT:
+            case FLOAT:
+                return Integer.BYTES;
+            case LONG:
+            case DOUBLE:
+                return Long.BYTES;
+            case END:
+                return 0;
+            default:
+                return -1;
+        }
     }
 }
@@ -1,5 +1,7 @@
 package me.nullicorn.nedit.filter;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -25,6 +27,46 @@ public class FilteredTag {
         return tokens;
     }
 
+    /**
+     * Same as {@link #tokenizeTagName(String)}, but dots inside of square brackets are not treated
+     * as delimiters, so that list selectors (e.g. {@code [0..8]}) stay in the same token as the
+     * name before them.
+     */
+    private static String[] tokenizePath(String name) {
+        if (name.indexOf('[') == -1) {
+            return tokenizeTagName(name);
+        }
+
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '\\' && i + 1 < name.length() && name.charAt(i + 1) == '.') {
+                // Remove escape characters.
+                token.append('.');
+                i++;
+                continue;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']' && depth > 0) {
+                depth--;
+            } else if (c == '.' && depth == 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+                continue;
+            }
+            token.append(c);
+        }
+        tokens.add(token.toString());
+
+        // Trailing empty tokens are dropped, the same as by tokenizeTagName().
+        while (tokens.size() > 1 && tokens.get(tokens.size() - 1).isEmpty()) {
+            tokens.remove(tokens.size() - 1);
+        }
+        return tokens.toArray(new String[0]);
+    }
+
     private final String name;
     private final String[] tokens;
 
@@ -33,7 +75,7 @@ public class FilteredTag {
             throw new NullPointerException("Filtered tag name cannot be null");
         }
         this.name = name;
-        tokens = tokenizeTagName(name);
+        tokens = tokenizePath(name);
     }
 
     /**
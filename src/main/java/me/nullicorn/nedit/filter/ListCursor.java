@@ -0,0 +1,123 @@
+package me.nullicorn.nedit.filter;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.TagType;
+
+/**
+ * Reads the elements of a list one at a time, directly from the {@link FilteredNBTInputStream}
+ * that the list is in.
+ * <p>
+ * Cursors are returned by {@link FilteredNBTInputStream#seekList(String, NBTFilter)
+ * seekList(...)}, and allow lists that are too large to fit in memory to be processed anyway.
+ * Nothing is kept from elements that were already read, so each one can be garbage collected as
+ * soon as the caller is done with it. Elements that are not needed can be {@link #skip(int)
+ * skipped} without being read.
+ * <p>
+ * The cursor reads from the stream's current position, so the stream should not be read from
+ * directly until the cursor has no elements left.
+ *
+ * @author Nullicorn
+ */
+public final class ListCursor {
+
+    private final FilteredNBTInputStream in;
+    private final TagType                contentType;
+    private final int                    size;
+    private final FilterNode             filter; // Null if elements are not filtered.
+    private final int                    matchLimit;
+
+    private int index;
+
+    ListCursor(FilteredNBTInputStream in, TagType contentType, int size, FilterNode filter,
+               int matchLimit) {
+        this.in = in;
+        this.contentType = contentType;
+        this.size = size;
+        this.filter = filter;
+        this.matchLimit = matchLimit;
+    }
+
+    /**
+     * @return The NBT type of all elements in the list.
+     */
+    public TagType getContentType() {
+        return contentType;
+    }
+
+    /**
+     * @return The total number of elements in the list, including any that were already read or
+     * skipped.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of elements that have not been read or skipped yet.
+     */
+    public int remaining() {
+        return size - index;
+    }
+
+    /**
+     * @return {@code true} if there are elements that have not been read or skipped yet. Otherwise
+     * {@code false}.
+     */
+    public boolean hasNext() {
+        return index < size;
+    }
+
+    /**
+     * Reads the next element from the stream. If the cursor has a filter, it is applied to the
+     * element if it is a compound or list, the same way that {@link
+     * FilteredNBTInputStream#readFully(NBTFilter) readFully(...)} applies it to a root compound.
+     *
+     * @return The element, or {@code null} if it does not pass one of the filter's {@link
+     * NBTFilter#addPredicate(String, java.util.function.Predicate) predicates}.
+     * @throws IOException            If the element could not be read.
+     * @throws NoSuchElementException If there are no elements left.
+     */
+    public Object next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        index++;
+        return in.readElement(contentType, filter, matchLimit);
+    }
+
+    /**
+     * Same as {@link #next()}, but for lists of compounds.
+     *
+     * @throws IllegalStateException If the list's {@link #getContentType() content type} is not
+     *                               {@link TagType#COMPOUND COMPOUND}.
+     */
+    public NBTCompound nextCompound() throws IOException {
+        if (contentType != TagType.COMPOUND) {
+            throw new IllegalStateException("Cannot get COMPOUND from a list of " +
+                                            contentType + "s");
+        }
+        return (NBTCompound) next();
+    }
+
+    /**
+     * Skips up to {@code n} elements without reading them. Elements with a fixed width, like ints
+     * and doubles, are skipped all at once.
+     *
+     * @return The number of elements skipped, which is less than {@code n} if there were fewer
+     * elements left.
+     * @throws IOException              If the elements could not be skipped.
+     * @throws IllegalArgumentException If {@code n} is negative.
+     */
+    public int skip(int n) throws IOException {
+        if (n < 0) {
+            throw new IllegalArgumentException("Cannot skip a negative number of elements: " + n);
+        }
+
+        int skipped = Math.min(n, remaining());
+        in.skipElements(contentType, skipped);
+        index += skipped;
+        return skipped;
+    }
+}
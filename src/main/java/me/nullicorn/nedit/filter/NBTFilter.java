@@ -2,8 +2,11 @@ package me.nullicorn.nedit.filter;
 
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * A tool for stripping NBT compounds of excess data, especially to retain a low memory footprint.
@@ -34,6 +37,11 @@ public class NBTFilter implements Iterable<FilteredTag> {
 
     private final FilterMode mode;
     private final Set<FilteredTag> filteredTags;
+    private final Map<FilteredTag, Predicate<Object>> predicates;
+    private int matchLimit;
+
+    // Cached result of compile(). Null if the filter has changed since it was last compiled.
+    private volatile FilterNode compiled;
 
     /**
      * Creates a new filter whose behaviour is determined by the provided {@code mode}.
@@ -44,6 +52,7 @@ public class NBTFilter implements Iterable<FilteredTag> {
     public NBTFilter(FilterMode mode) {
         this.mode = mode;
         filteredTags = new HashSet<>();
+        predicates = new LinkedHashMap<>();
     }
 
     /**
@@ -81,6 +90,8 @@ public class NBTFilter implements Iterable<FilteredTag> {
         }
 
         NBTFilter sub = new NBTFilter(mode);
+        sub.matchLimit = matchLimit;
+        sub.predicates.putAll(predicates);
         for (FilteredTag tag : filteredTags) {
             if (base.isExtendedBy(tag, depth)) {
                 sub.filteredTags.add(tag);
@@ -94,6 +105,110 @@ public class NBTFilter implements Iterable<FilteredTag> {
         return sub;
     }
 
+    /**
+     * Compiles the filter into a tree of {@link FilterNode nodes}, which can be used to check
+     * whether a tag is allowed by the filter with a single lookup per tag. The result is cached
+     * until tags are next added to or removed from the filter.
+     *
+     * @return The root node of the compiled filter, which applies to the root compound of filtered
+     * data.
+     */
+    public FilterNode compile() {
+        FilterNode root = compiled;
+        if (root == null) {
+            root = FilterNode.compile(mode, filteredTags, predicates);
+            compiled = root;
+        }
+        return root;
+    }
+
+    /**
+     * Adds a condition on the value of a tag, which compounds containing the tag must meet in order
+     * to be read. Compounds that do not meet it are left out entirely, including from any lists
+     * they are in. If the root compound does not meet it, {@link
+     * FilteredNBTInputStream#readFully(NBTFilter) readFully(...)} returns {@code null}.
+     * <p>
+     * The {@code tagName} uses the same format as {@link #addTags(String...) filtered tags}, except
+     * that its last token cannot be a wildcard or end with a list selector. The tag itself is only
+     * kept if the filter allows it to be, but it is always read in order to test it. Predicates are
+     * evaluated while reading, so once a compound fails one, the rest of it is skipped instead of
+     * being read. Compounds that the filter skips are never tested. For example...
+     * <pre>
+     * -{@code addPredicate("Count", count -> (byte) count > 1)} —> only stacks of more than 1 item
+     * -{@code addPredicate("Inventory.id", "minecraft:diamond_sword"::equals)} —> only the diamond
+     *  swords in an inventory
+     * </pre>
+     * If there are multiple predicates for the same tag, it must pass all of them.
+     *
+     * @param tagName   The name of the tag whose value is tested.
+     * @param predicate The test that the tag's value must pass. Compounds and lists are passed as
+     *                  they would be read by the filter.
+     * @throws IllegalArgumentException If the last token of the {@code tagName} is a wildcard, or
+     *                                  ends with a list selector.
+     * @throws NullPointerException     If the {@code tagName} or {@code predicate} is {@code
+     *                                  null}.
+     */
+    public void addPredicate(String tagName, Predicate<Object> predicate) {
+        Objects.requireNonNull(tagName, "tagName cannot be null");
+        Objects.requireNonNull(predicate, "predicate cannot be null");
+
+        FilteredTag tag = new FilteredTag(tagName);
+        String[] tokens = tag.getTokens();
+        String last = tokens[tokens.length - 1];
+        if (last.equals("*") || last.equals("**")) {
+            throw new IllegalArgumentException("Predicate cannot end with a wildcard: " + tagName);
+        } else if (last.endsWith("]")) {
+            throw new IllegalArgumentException("Predicate cannot end with a selector: " + tagName);
+        }
+
+        predicates.merge(tag, predicate, Predicate::and);
+        compiled = null;
+    }
+
+    /**
+     * Removes any {@link #addPredicate(String, Predicate) predicates} on the tags with the {@code
+     * tagNames}.
+     *
+     * @throws NullPointerException If the supplied {@code tagNames} array or any of its elements
+     *                              are {@code null}.
+     */
+    public void removePredicates(String... tagNames) {
+        Objects.requireNonNull(tagNames, "tagNames array cannot be null");
+
+        for (String name : tagNames) {
+            Objects.requireNonNull(name, "tagNames array cannot contain null names");
+            predicates.remove(new FilteredTag(name));
+        }
+        compiled = null;
+    }
+
+    /**
+     * @return The maximum number of times that each included tag is read, or {@code 0} if there is
+     * no limit.
+     * @see #setMatchLimit(int)
+     */
+    public int getMatchLimit() {
+        return matchLimit;
+    }
+
+    /**
+     * Limits how many times each of the filter's tags can be read, which only applies to filters
+     * whose mode is {@link FilterMode#INCLUDE INCLUDE}. This is useful for tags that can match more
+     * than once, such as those with wildcards or inside lists of compounds. Once a tag has been
+     * read {@code limit} times, any further matches are skipped, and once every tag has reached the
+     * limit, a {@link FilteredNBTInputStream} stops reading entirely.
+     *
+     * @param limit The maximum number of times that each included tag is read, or {@code 0} for no
+     *              limit (the default).
+     * @throws IllegalArgumentException If the {@code limit} is negative.
+     */
+    public void setMatchLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Match limit cannot be negative: " + limit);
+        }
+        matchLimit = limit;
+    }
+
     /**
      * @return {@code true} if the filter has no {@link #getFilteredTags() tags} included or
      * excluded. Otherwise {@code false}.
@@ -131,6 +246,33 @@ public class NBTFilter implements Iterable<FilteredTag> {
      * -{@code "Level.Sections"} —> all of a chunk's sections
      * -{@code "Level.Sections.Palette"} —> only the "Palette" tag inside each of the chunk's sections
      * </pre>
+     * Tokens may also be wildcards. A {@code *} token matches any single tag name, and a {@code **}
+     * token matches any number of nested tag names (including none). For example...
+     * <pre>
+     * -{@code "Level.*.BlockStates"} —> "BlockStates" inside any direct child of "Level"
+     * -{@code "**.ExtraAttributes.id"} —> "id" inside any "ExtraAttributes" tag, at any depth
+     * </pre>
+     * Lists apply the same tokens to each of their elements, so list elements do not add a token to
+     * the path, and wildcards only ever match the names of tags inside compounds. For example,
+     * {@code "Level.Sections.BlockStates"} already matches "BlockStates" inside every element of
+     * the "Sections" list, whereas {@code "Level.Sections.*.BlockStates"} only matches it inside
+     * compounds that are nested in those elements.
+     * <p>
+     * To only apply tokens to certain elements of a list, a token can end with a selector, which is
+     * the index of an element (or an inclusive range of indices) in square brackets, or {@code *}
+     * for any index. Unlike plain tokens, each selector is applied to one level of list, so {@code
+     * [*]} can be used to match the elements of nested lists. Elements that are not selected are
+     * skipped...
+     * <pre>
+     * -{@code "Inventory[0..8].id"} —> "id" inside the first 9 elements of "Inventory"
+     * -{@code "Level.Sections[3]"} —> only the element at index 3 of "Sections"
+     * -{@code "Pos[1..]"} —> every element of "Pos" after the first
+     * -{@code "Grid[*][0]"} —> the first element of each list inside "Grid"
+     * </pre>
+     * Elements that are selected keep their order, but not their indices, since unselected
+     * elements are left out. Tags that are not compounds or lists are never included because of a
+     * filtered tag nested inside them, since they cannot contain it.
+     * <p>
      * Any duplicate tags, and tags already included in the filter, will not be added. If one tag's
      * name begins with the entirety of another's, and it has more tokens / parts after that, the
      * two tags are considered to be colliding. Some notes about tag collision:
@@ -181,6 +323,7 @@ public class NBTFilter implements Iterable<FilteredTag> {
                 filteredTags.add(tag);
             }
         }
+        compiled = null;
     }
 
     /**
@@ -198,5 +341,6 @@ public class NBTFilter implements Iterable<FilteredTag> {
             Objects.requireNonNull(name, "tagNames array cannot contain null names");
             filteredTags.removeIf(tag -> tag.getName().equals(name));
         }
+        compiled = null;
     }
 }
\ No newline at end of file
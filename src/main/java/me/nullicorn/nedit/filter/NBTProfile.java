@@ -0,0 +1,224 @@
+package me.nullicorn.nedit.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import me.nullicorn.nedit.filter.ProfiledCompound.Source;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.NBTList;
+import me.nullicorn.nedit.type.TagType;
+
+/**
+ * Learns which tags an application actually uses from the NBT data it reads, and stops reading
+ * the rest.
+ * <p>
+ * The first few compounds {@link #read(byte[]) read} through a profile (its "warm-up") are read in
+ * full. Every tag that is then retrieved from them, using {@link NBTCompound#get(Object) get(...)}
+ * or any of the typed getters, is recorded by the profile. Once warmed up, the profile builds an
+ * {@link NBTFilter} that includes all of the recorded tags, and uses it for every compound it
+ * reads afterwards.
+ * <p>
+ * Because the filter is only a guess, compounds read with it keep a copy of the original data. If
+ * a tag that the filter did not include is retrieved anyway, the original data is parsed in full,
+ * the missing tags are copied into the compound, and the tag is added to the filter for future
+ * reads. The same happens when a compound is used as a whole, such as when it is iterated over,
+ * modified, written, or compared to another compound, since none of those should see a partial
+ * compound. Results are therefore always the same as if the data had been read in full, just
+ * faster when the filter guesses right.
+ * <p>
+ * Profiles are thread-safe, and are intended to be shared by every reader of the same kind of
+ * data, e.g. one profile for player data and another for item data. The compounds they return are
+ * not thread-safe, just like regular {@link NBTCompound}s.
+ *
+ * @author Nullicorn
+ */
+public final class NBTProfile {
+
+    /**
+     * The number of compounds that a profile reads in full before building its filter, unless
+     * otherwise specified.
+     */
+    public static final int DEFAULT_WARM_UP_READS = 100;
+
+    private final int           warmUpReads;
+    private final AtomicInteger reads     = new AtomicInteger();
+    private final AtomicLong    fallbacks = new AtomicLong();
+
+    // Paths of compounds (and lists of compounds) that were retrieved, whose own tags are recorded
+    // separately. Only those with no recorded tags are kept in their entirety.
+    private final Set<String> containerPaths = ConcurrentHashMap.newKeySet();
+
+    // Paths of tags that are needed in their entirety. An empty path refers to the root compound.
+    private final Set<String> wholePaths = ConcurrentHashMap.newKeySet();
+
+    // The filter compiled from the recorded paths. Null until the profile is warmed up.
+    private volatile FilterNode filter;
+
+    /**
+     * Creates a profile with the {@link #DEFAULT_WARM_UP_READS default warm-up}.
+     */
+    public NBTProfile() {
+        this(DEFAULT_WARM_UP_READS);
+    }
+
+    /**
+     * @param warmUpReads The number of compounds to read in full before building the profile's
+     *                    filter. The more varied the application's accesses are, the higher this
+     *                    should be, in order to avoid falling back to the original data later.
+     * @throws IllegalArgumentException If {@code warmUpReads} is negative.
+     */
+    public NBTProfile(int warmUpReads) {
+        if (warmUpReads < 0) {
+            throw new IllegalArgumentException("Warm-up reads cannot be negative: " + warmUpReads);
+        }
+        this.warmUpReads = warmUpReads;
+    }
+
+    /**
+     * Same as {@link #read(byte[])}, but the data is read from the {@code inputStream} until it
+     * ends.
+     *
+     * @throws IOException If the stream or the compound in it could not be read.
+     */
+    public NBTCompound read(InputStream inputStream) throws IOException {
+        Objects.requireNonNull(inputStream, "Input stream cannot be null");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return read(out.toByteArray());
+    }
+
+    /**
+     * Reads a compound from binary NBT data, which may be gzipped. If the profile is warmed up,
+     * only the tags included by its {@link #getFilter() filter} are read at first.
+     * <p>
+     * The returned compound holds onto the {@code data} for as long as it (or any compound nested
+     * inside it) is reachable, in case it needs to fall back to it. The array should not be
+     * modified in the meantime.
+     *
+     * @throws IOException If the compound could not be read.
+     */
+    public NBTCompound read(byte[] data) throws IOException {
+        Objects.requireNonNull(data, "Data cannot be null");
+        FilterNode root = filter;
+        if (root == null && reads.incrementAndGet() > warmUpReads) {
+            root = learn();
+        }
+
+        ByteArrayInputStream bytesIn = new ByteArrayInputStream(data);
+        try (FilteredNBTInputStream in = new FilteredNBTInputStream(bytesIn)) {
+            if (root == null) {
+                return ProfiledCompound.wrap(this, null, in.readFully(), FilterNode.ALL);
+            } else if (root == FilterNode.ALL) {
+                // The entire compound is needed anyway.
+                return in.readFully();
+            }
+            return ProfiledCompound.wrap(this, new Source(data), in.readFully(root, 0, true), root);
+        }
+    }
+
+    /**
+     * @return {@code true} if the profile has finished its warm-up, and is filtering the compounds
+     * it reads. Otherwise {@code false}.
+     */
+    public boolean isWarmedUp() {
+        return filter != null;
+    }
+
+    /**
+     * @return A filter that includes every tag recorded by the profile so far, or {@code null} if
+     * it hasn't {@link #isWarmedUp() warmed up} yet. Changes made to the filter do not affect the
+     * profile.
+     */
+    public NBTFilter getFilter() {
+        return isWarmedUp() ? buildFilter() : null;
+    }
+
+    /**
+     * @return The number of times that compounds read by the profile had to fall back to their
+     * original data, because a tag was accessed that the profile's filter did not include.
+     */
+    public long getFallbackCount() {
+        return fallbacks.get();
+    }
+
+    /**
+     * Records that the tag at the {@code path} was accessed, and updates the filter if the profile
+     * is warmed up.
+     *
+     * @param value The tag's value, or {@code null} if the tag is needed in its entirety.
+     */
+    void record(String path, Object value) {
+        boolean isContainer = value instanceof NBTCompound
+                              || value instanceof NBTList
+                                 && ((NBTList) value).getContentType() == TagType.COMPOUND;
+
+        boolean added = isContainer ? containerPaths.add(path) : wholePaths.add(path);
+        if (added && isWarmedUp()) {
+            learn();
+        }
+    }
+
+    /**
+     * Same as {@link #record(String, Object)}, but also counts a fallback to the original data.
+     */
+    void recordFallback(String path, Object value) {
+        fallbacks.incrementAndGet();
+        record(path, value);
+    }
+
+    /**
+     * Builds and compiles the profile's filter from the paths recorded so far.
+     */
+    private synchronized FilterNode learn() {
+        FilterNode root = wholePaths.contains("")
+            ? FilterNode.ALL
+            : buildFilter().compile();
+        filter = root;
+        return root;
+    }
+
+    private NBTFilter buildFilter() {
+        if (wholePaths.contains("")) {
+            return new NBTFilter(FilterMode.EXCLUDE);
+        }
+
+        NBTFilter built = new NBTFilter(FilterMode.INCLUDE);
+        built.addTags(wholePaths.toArray(new String[0]));
+        for (String path : containerPaths) {
+            if (!hasRecordedChildren(path)) {
+                built.addTags(path);
+            }
+        }
+        return built;
+    }
+
+    /**
+     * @return {@code true} if any tags inside the container at the {@code path} were recorded.
+     * Otherwise {@code false}.
+     */
+    private boolean hasRecordedChildren(String path) {
+        String prefix = path + '.';
+        for (String other : containerPaths) {
+            if (other.startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (String other : wholePaths) {
+            if (other.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,75 @@
+package me.nullicorn.nedit.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A set of tag paths whose values can be extracted from binary NBT data, without reading the rest
+ * of the data into an {@link me.nullicorn.nedit.type.NBTCompound NBTCompound}.
+ * <p>
+ * Paths use the same format as {@link NBTFilter#addTags(String...) filtered tags}, including
+ * wildcards, and are referred to by their index in the projection. If one path is nested inside
+ * another (e.g. {@code "tag"} and {@code "tag.display"}), only the outer one is reported, since its
+ * value already contains the other. Projections are immutable, and can be shared between threads.
+ *
+ * @author Nullicorn
+ * @see FilteredNBTInputStream#project(NBTProjection, ProjectionSink)
+ */
+public final class NBTProjection {
+
+    /**
+     * Creates a projection of the given {@code paths}, in order.
+     *
+     * @throws NullPointerException If the {@code paths} array or any of its elements are {@code
+     *                              null}.
+     */
+    public static NBTProjection of(String... paths) {
+        Objects.requireNonNull(paths, "paths array cannot be null");
+        return new NBTProjection(paths.clone());
+    }
+
+    private final String[]   paths;
+    private final FilterNode compiled;
+
+    private NBTProjection(String[] paths) {
+        List<FilteredTag> tags = new ArrayList<>(paths.length);
+        for (String path : paths) {
+            Objects.requireNonNull(path, "paths array cannot contain null paths");
+            tags.add(new FilteredTag(path));
+        }
+
+        this.paths = paths;
+        this.compiled = FilterNode.compile(FilterMode.INCLUDE, tags);
+    }
+
+    /**
+     * @return The number of paths in the projection.
+     */
+    public int size() {
+        return paths.length;
+    }
+
+    /**
+     * @return The path at the {@code index}.
+     * @throws IndexOutOfBoundsException If the {@code index} is negative, or not less than the
+     *                                   projection's {@link #size() size}.
+     */
+    public String getPath(int index) {
+        return paths[index];
+    }
+
+    /**
+     * @return The projection's paths, compiled the same way as an {@link FilterMode#INCLUDE
+     * inclusion} filter. Tag indices in the compiled nodes are the indices of the paths.
+     */
+    FilterNode compile() {
+        return compiled;
+    }
+
+    @Override
+    public String toString() {
+        return "NBTProjection" + Arrays.toString(paths);
+    }
+}
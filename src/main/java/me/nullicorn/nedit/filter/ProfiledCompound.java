@@ -0,0 +1,454 @@
+package me.nullicorn.nedit.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.NBTList;
+import me.nullicorn.nedit.type.TagType;
+
+/**
+ * A compound read by an {@link NBTProfile}, which reports the tags accessed through it back to the
+ * profile.
+ * <p>
+ * Compounds read using the profile's learned filter may be missing tags that the filter did not
+ * allow. When one of those tags is accessed, or when the compound is used as a whole (e.g. it is
+ * iterated over, modified, or compared to another compound), the missing tags are first copied in
+ * from a full parse of the original data. From then on, the compound behaves like any other.
+ *
+ * @author Nullicorn
+ */
+final class ProfiledCompound extends NBTCompound {
+
+    /**
+     * Copies a compound (and any compounds nested inside it) into profiled compounds that report
+     * their accesses to the {@code profile}.
+     *
+     * @param source The original data that the compound was read from, or {@code null} if it was
+     *               read in full.
+     * @param filter The compiled filter that the compound was read with.
+     */
+    static NBTCompound wrap(NBTProfile profile, Source source, NBTCompound compound,
+                            FilterNode filter) {
+        Object[] location = source == null ? null : new Object[0];
+        return (NBTCompound) wrapValue(profile, source, compound, "", location, filter);
+    }
+
+    private static Object wrapValue(NBTProfile profile, Source source, Object value, String path,
+                                    Object[] location, FilterNode node) {
+        if (source != null && node == FilterNode.ALL) {
+            // The value is complete, and all of its tags have already been recorded.
+            return value;
+
+        } else if (value instanceof NBTCompound) {
+            ProfiledCompound compound = new ProfiledCompound(profile, source, path, location, node);
+            ((NBTCompound) value).forEach((name, child) -> {
+                String childPath = path.isEmpty() ? escape(name) : path + '.' + escape(name);
+                Object wrapped = wrapValue(profile, source, child, childPath,
+                    append(location, name), node.child(name));
+                compound.putRaw(name, wrapped);
+            });
+            return compound;
+
+        } else if (value instanceof NBTList && isContainer(((NBTList) value).getContentType())) {
+            // Elements are filtered by the same path as their list.
+            NBTList list = (NBTList) value;
+            NBTList wrapped = new NBTList(list.getContentType());
+            for (int i = 0; i < list.size(); i++) {
+                wrapped.add(wrapValue(profile, source, list.get(i), path,
+                    append(location, i), node.element(i)));
+            }
+            return wrapped;
+        }
+        return value;
+    }
+
+    private final NBTProfile profile;
+    private final Source     source;   // Null if the compound was read in full.
+    private final String     path;     // Empty for the root compound.
+    private final Object[]   location; // Names and list indices leading from the root to here.
+
+    private FilterNode node;      // ALL once the compound is complete.
+    private boolean    recording; // Whether accesses are recorded even if the compound is complete.
+
+    private ProfiledCompound(NBTProfile profile, Source source, String path, Object[] location,
+                             FilterNode node) {
+        this.profile = profile;
+        this.source = source;
+        this.path = path;
+        this.location = location;
+        this.node = node;
+        recording = source == null;
+    }
+
+    /*
+     *
+     * ============ ACCESS BY NAME ============
+     *
+     */
+
+    @Override
+    public Object get(Object name) {
+        Object value = super.get(name);
+        return check((String) name, value);
+    }
+
+    @Override
+    public Number getNumber(String name, Number defaultValue) {
+        Object value = get(name);
+        return value instanceof Number
+            ? (Number) value
+            : defaultValue;
+    }
+
+    @Override
+    public String getString(String name, String defaultValue) {
+        Object value = get(name);
+        return value != null
+            ? value.toString()
+            : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public boolean containsTag(String name, TagType type) {
+        Objects.requireNonNull(type, "Tag type cannot be null");
+        Object value = get(name);
+        return value != null && TagType.fromObject(value) == type;
+    }
+
+    /**
+     * Records an access to the tag with the {@code name}, and if the tag may have been filtered
+     * out, falls back to the original data.
+     *
+     * @param value The value of the tag in the compound as it was read.
+     * @return The value of the tag in the original data.
+     */
+    private Object check(String name, Object value) {
+        String tagPath = path.isEmpty() ? name : path + '.' + name;
+        if (node == FilterNode.ALL) {
+            if (recording) {
+                profile.record(tagPath, value);
+            }
+            return value;
+        } else if (isCovered(name, value)) {
+            return value;
+        }
+
+        completePath(name);
+        value = super.get(name);
+        profile.recordFallback(tagPath, value);
+        return value;
+    }
+
+    /**
+     * @return {@code true} if the tag with the {@code name} would have been read in its entirety,
+     * or if it is a compound or list whose contents are profiled themselves. Otherwise {@code
+     * false}.
+     */
+    private boolean isCovered(String name, Object value) {
+        FilterNode current = node;
+        for (String token : tokenize(name)) {
+            current = current.child(token);
+            if (current == FilterNode.ALL) {
+                return true;
+            } else if (current == FilterNode.NONE) {
+                return false;
+            }
+        }
+
+        return value instanceof NBTCompound
+               || value instanceof NBTList
+                  && ((NBTList) value).getContentType() == TagType.COMPOUND
+               || current.includesLeaves();
+    }
+
+    /**
+     * Completes the compound, as well as each profiled compound along the path to the tag with
+     * the {@code name}.
+     */
+    private void completePath(String name) {
+        String[] tokens = tokenize(name);
+        ProfiledCompound current = this;
+        for (int i = 0; ; i++) {
+            current.complete();
+            if (i + 1 == tokens.length) {
+                break;
+            }
+
+            Object child = current.getRaw(tokens[i]);
+            if (!(child instanceof ProfiledCompound)) {
+                // Anything else was copied from the original data, so it is already complete.
+                break;
+            }
+            current = (ProfiledCompound) child;
+        }
+    }
+
+    /*
+     *
+     * ============ ACCESS AS A WHOLE ============
+     *
+     */
+
+    @Override
+    public int size() {
+        useWhole();
+        return super.size();
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        useWhole();
+        return super.containsValue(value);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        useWhole();
+        return super.keySet();
+    }
+
+    @Override
+    public Collection<Object> values() {
+        useWhole();
+        return super.values();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        useWhole();
+        return super.entrySet();
+    }
+
+    @Override
+    public NBTCompound deepCopy() {
+        useWhole();
+        return super.deepCopy();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        useWhole();
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        useWhole();
+        return super.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        useWhole();
+        return super.toString();
+    }
+
+    @Override
+    public Object put(String name, Object value) {
+        useWhole();
+        return super.put(name, value);
+    }
+
+    @Override
+    public Object putIfAbsent(String name, Object value) {
+        useWhole();
+        return super.putIfAbsent(name, value);
+    }
+
+    @Override
+    public boolean remove(Object name, Object value) {
+        useWhole();
+        return super.remove(name, value);
+    }
+
+    @Override
+    public Object remove(Object name) {
+        useWhole();
+        return super.remove(name);
+    }
+
+    @Override
+    public Object replace(String name, Object value) {
+        useWhole();
+        return super.replace(name, value);
+    }
+
+    @Override
+    public boolean replace(String name, Object oldValue, Object newValue) {
+        useWhole();
+        return super.replace(name, oldValue, newValue);
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super Object, ?> function) {
+        useWhole();
+        super.replaceAll(function);
+    }
+
+    @Override
+    public Object computeIfAbsent(String name, Function<? super String, ?> mappingFunction) {
+        useWhole();
+        return super.computeIfAbsent(name, mappingFunction);
+    }
+
+    @Override
+    public Object computeIfPresent(String name,
+        BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        useWhole();
+        return super.computeIfPresent(name, remappingFunction);
+    }
+
+    @Override
+    public Object compute(String name,
+        BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        useWhole();
+        return super.compute(name, remappingFunction);
+    }
+
+    @Override
+    public Object merge(String name, Object value,
+        BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        useWhole();
+        return super.merge(name, value, remappingFunction);
+    }
+
+    @Override
+    public void clear() {
+        useWhole();
+        super.clear();
+    }
+
+    /**
+     * Records that the entire compound is needed, and completes it if it isn't already.
+     */
+    private void useWhole() {
+        if (node == FilterNode.ALL) {
+            if (recording) {
+                profile.record(path, null);
+            }
+        } else {
+            profile.recordFallback(path, null);
+            complete();
+        }
+    }
+
+    /*
+     *
+     * ============ FALLBACK ============
+     *
+     */
+
+    /**
+     * Copies any tags that were filtered out of the compound from the original data. Tags that are
+     * already in the compound are kept as-is, so that nested profiled compounds can complete
+     * themselves if they are needed.
+     * <p>
+     * Accesses to the compound, and to the tags copied into it, are recorded from then on, so that
+     * the profile can learn everything that was missing from its filter at once.
+     */
+    private void complete() {
+        if (node == FilterNode.ALL) {
+            return;
+        }
+        node = FilterNode.ALL;
+        recording = true;
+
+        for (Map.Entry<String, Object> tag : source.locate(location).entrySet()) {
+            String name = tag.getKey();
+            if (getRaw(name) == null) {
+                String tagPath = path.isEmpty() ? escape(name) : path + '.' + escape(name);
+                putRaw(name, wrapValue(profile, null, tag.getValue(), tagPath, null,
+                    FilterNode.ALL));
+            }
+        }
+    }
+
+    /**
+     * @return The value of the compound's direct child with the {@code name}, without recording an
+     * access to it.
+     */
+    private Object getRaw(String name) {
+        return super.get(escape(name));
+    }
+
+    /**
+     * Adds a tag to the compound without recording a change to it.
+     */
+    private void putRaw(String name, Object value) {
+        super.put(name, value);
+    }
+
+    private static String[] tokenize(String name) {
+        return name.indexOf('.') == -1
+            ? new String[]{name}
+            : FilteredTag.tokenizeTagName(name);
+    }
+
+    private static String escape(String name) {
+        return name.replace(".", "\\.");
+    }
+
+    private static Object[] append(Object[] location, Object step) {
+        if (location == null) {
+            return null;
+        }
+        Object[] appended = new Object[location.length + 1];
+        System.arraycopy(location, 0, appended, 0, location.length);
+        appended[location.length] = step;
+        return appended;
+    }
+
+    private static boolean isContainer(TagType type) {
+        return type == TagType.COMPOUND || type == TagType.LIST;
+    }
+
+    /**
+     * The original data of a filtered compound, which is only parsed in full if one of its
+     * profiled compounds needs to fall back to it.
+     */
+    static final class Source {
+
+        private final byte[] data;
+        private NBTCompound  full; // Parsed when first needed.
+
+        Source(byte[] data) {
+            this.data = data;
+        }
+
+        /**
+         * @param location The names and list indices leading from the root to a compound.
+         * @return The compound at the {@code location} in the original data.
+         */
+        NBTCompound locate(Object[] location) {
+            if (full == null) {
+                try (FilteredNBTInputStream in = new FilteredNBTInputStream(
+                    new ByteArrayInputStream(data))) {
+                    full = in.readFully();
+                } catch (IOException e) {
+                    // The data was already read once, so this is unlikely.
+                    throw new UncheckedIOException("Unable to re-read profiled NBT data", e);
+                }
+            }
+
+            Object current = full;
+            for (Object step : location) {
+                current = step instanceof Integer
+                    ? ((NBTList) current).get((Integer) step)
+                    : ((NBTCompound) current).get(escape((String) step));
+            }
+            return (NBTCompound) current;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package me.nullicorn.nedit.filter;
+
+/**
+ * Receives the values of tags matched by an {@link NBTProjection}, as they are read by a {@link
+ * FilteredNBTInputStream}.
+ * <p>
+ * Each value is passed along with the index of the path it matched, in the order the paths were
+ * given to the projection. Numbers are passed to the overload for their primitive type, which by
+ * default boxes them and passes them to {@link #accept(int, Object)}. Implementations that care
+ * about performance should override the overloads for the types they expect.
+ * <p>
+ * A path is reported every time it matches, so paths inside lists of compounds may be reported
+ * once per element. Paths that don't match any tags are not reported at all.
+ *
+ * @author Nullicorn
+ * @see FilteredNBTInputStream#project(NBTProjection, ProjectionSink)
+ */
+@FunctionalInterface
+public interface ProjectionSink {
+
+    /**
+     * Receives a value that is not a number. Compounds and lists are passed as {@link
+     * me.nullicorn.nedit.type.NBTCompound NBTCompounds} and {@link me.nullicorn.nedit.type.NBTList
+     * NBTLists} respectively, and arrays as-is.
+     *
+     * @param path  The index of the path that the value matched.
+     * @param value The tag's value.
+     */
+    void accept(int path, Object value);
+
+    /**
+     * @see #accept(int, Object)
+     */
+    default void accept(int path, byte value) {
+        accept(path, (Object) value);
+    }
+
+    /**
+     * @see #accept(int, Object)
+     */
+    default void accept(int path, short value) {
+        accept(path, (Object) value);
+    }
+
+    /**
+     * @see #accept(int, Object)
+     */
+    default void accept(int path, int value) {
+        accept(path, (Object) value);
+    }
+
+    /**
+     * @see #accept(int, Object)
+     */
+    default void accept(int path, long value) {
+        accept(path, (Object) value);
+    }
+
+    /**
+     * @see #accept(int, Object)
+     */
+    default void accept(int path, float value) {
+        accept(path, (Object) value);
+    }
+
+    /**
+     * @see #accept(int, Object)
+     */
+    default void accept(int path, double value) {
+        accept(path, (Object) value);
+    }
+}
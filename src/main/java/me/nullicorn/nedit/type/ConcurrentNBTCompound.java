@@ -0,0 +1,66 @@
+package me.nullicorn.nedit.type;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread-safe {@link NBTCompound} that can be read and modified by multiple threads at once
+ * without any external locking.
+ * <p>
+ * Tags are stored in a {@link ConcurrentHashMap}, so updates to different tags rarely block one
+ * another. Methods that read-then-write a single tag, such as {@link #compute(String,
+ * java.util.function.BiFunction) compute}, {@link #merge(String, Object,
+ * java.util.function.BiFunction) merge} and {@link #putIfAbsent(String, Object) putIfAbsent}, are
+ * performed atomically. For example, a counter can be safely incremented from any thread using
+ * <pre>{@code
+ * compound.merge("count", 1, (a, b) -> (Integer) a + (Integer) b);
+ * }</pre>
+ * Iterating over the compound (or its {@link #keySet() keys}, {@link #values() values} or {@link
+ * #entrySet() entries}) never throws a {@link java.util.ConcurrentModificationException}. Like
+ * {@link ConcurrentHashMap}'s own iterators, they reflect the state of the compound at some point
+ * during or since their creation.
+ * <p>
+ * Only the compound itself is thread-safe. Any compounds or lists nested inside it are not,
+ * unless they are also {@link ConcurrentNBTCompound}s. Likewise, atomic methods only apply to the
+ * compound's direct children, and do not support <a href="NBTCompound.html#nesting">dot-notation</a>.
+ *
+ * @author Nullicorn
+ */
+public class ConcurrentNBTCompound extends NBTCompound {
+
+    /**
+     * Creates an empty thread-safe NBT compound.
+     */
+    public ConcurrentNBTCompound() {
+        super(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Creates a thread-safe NBT compound containing all of the tags in the provided map.
+     *
+     * @throws NullPointerException     If the {@code tags} map, or any of its keys or values, are
+     *                                  {@code null}.
+     * @throws IllegalArgumentException If any of the values, when converted to an NBT type, are
+     *                                  {@link TagType#END TAG_End}.
+     */
+    public ConcurrentNBTCompound(Map<String, ?> tags) {
+        this();
+        putAll(tags);
+    }
+
+    /**
+     * Creates a deep copy of the compound, which is also thread-safe.
+     * <p>
+     * The copy never shares any state with the original. If the compound is being modified at the
+     * same time, the copy may or may not include those changes. Nested compounds and lists are
+     * copied the same way as by {@link NBTCompound#deepCopy()}.
+     *
+     * @return A deep copy of the compound.
+     */
+    @Override
+    public ConcurrentNBTCompound deepCopy() {
+        ConcurrentNBTCompound copy = new ConcurrentNBTCompound();
+        forEach((name, value) -> copy.put(name, copyValue(value)));
+        return copy;
+    }
+}
@@ -1,13 +1,21 @@
 package me.nullicorn.nedit.type;
 
+import java.util.AbstractCollection;
 import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import me.nullicorn.nedit.SNBTWriter;
 import me.nullicorn.nedit.filter.FilteredTag;
 
 /**
@@ -57,13 +65,83 @@ import me.nullicorn.nedit.filter.FilteredTag;
  */
 public class NBTCompound extends AbstractMap<String, Object> {
 
-    private final Map<String, Object> decorated;
+    private Map<String, Object> decorated;
+
+    // Whether `decorated` belongs to a frozen compound that this one is a copy of. See deepCopy().
+    private boolean shared;
+
+    // Whether the compound is a canonical instance created by an NBTInterner, and therefore
+    // cannot be modified. See freeze().
+    private boolean frozen;
+    private int     frozenHash;
+
+    // Whether the hash of the compound's contents can be cached. False if other threads may modify
+    // the contents while the hash is being calculated.
+    private final boolean cacheHash;
+
+    // Cached sum of the hashes of every immutable tag, and the names of every other tag, whose
+    // hashes must be recalculated each time. `containerNames` is null if the cache is invalid.
+    private int      shallowHash;
+    private String[] containerNames;
+
+    // Lazily created collection views. Volatile so that a ConcurrentNBTCompound's views are
+    // safely published to every thread that uses them.
+    private volatile Set<String>                keyView;
+    private volatile Collection<Object>         valueView;
+    private volatile Set<Entry<String, Object>> entryView;
 
     /**
      * Creates an empty NBT compound.
      */
     public NBTCompound() {
-        decorated = new HashMap<>();
+        this(new HashMap<>());
+    }
+
+    /**
+     * Creates a compound that stores its tags in the provided map, which should be empty.
+     */
+    NBTCompound(Map<String, Object> decorated) {
+        this.decorated = decorated;
+        cacheHash = !(decorated instanceof ConcurrentMap);
+    }
+
+    /**
+     * Creates a deep copy of the compound, such that changes made to the copy (or to any tags
+     * nested inside it) are never reflected in the original, and vice versa.
+     * <p>
+     * The original compound is never changed by copying it, so nested tags retrieved from it
+     * before it was copied still belong to it afterwards, and changes made through them are not
+     * visible in the copy. Because of this, an ordinary compound is copied eagerly, in time
+     * proportional to the number of compounds, lists and arrays nested inside it.
+     * <p>
+     * Only copies of {@link NBTInterner interned} compounds (and of the interned compounds and
+     * lists nested inside other compounds) are lazy, since the originals can never change. To make
+     * cheap copy-on-write clones of a template, intern the template once and copy the interned
+     * instance. The copy shares the original's tags until it is modified or has one of its nested
+     * compounds, lists or arrays retrieved, either directly or while iterating over it. Only then
+     * is that one level of the copy's tree copied, with its own nested tags remaining shared until
+     * they are accessed the same way. Reading every nested tag of a lazy copy, such as when writing
+     * it, therefore costs about as much as an eager copy, so an unmodified copy is best written by
+     * writing the interned original instead. Reading nested tags from a lazy copy may also change
+     * the copy's internal state, so it should not be accessed from multiple threads at once without
+     * synchronization. Copies can be modified, unlike the originals.
+     *
+     * @return A deep copy of the compound.
+     */
+    public NBTCompound deepCopy() {
+        NBTCompound copy;
+        if (frozen || shared) {
+            // The tags can never change, so they can be copied lazily.
+            copy = new NBTCompound(decorated);
+            copy.shared = true;
+        } else {
+            Map<String, Object> tags = new HashMap<>(decorated);
+            tags.replaceAll((name, value) -> copyValue(value));
+            copy = new NBTCompound(tags);
+        }
+        copy.shallowHash = shallowHash;
+        copy.containerNames = containerNames;
+        return copy;
     }
 
     /**
@@ -77,7 +155,7 @@ public class NBTCompound extends AbstractMap<String, Object> {
         Objects.requireNonNull(name, "Tag name cannot be null");
         Objects.requireNonNull(type, "Tag type cannot be null");
 
-        Object value = get(name);
+        Object value = find(name, false);
         return value != null && TagType.fromObject(value) == type;
     }
 
@@ -92,7 +170,7 @@ public class NBTCompound extends AbstractMap<String, Object> {
      */
     @Override
     public boolean containsKey(Object key) {
-        return get(key) != null;
+        return find(key, false) != null;
     }
 
     /**
@@ -198,7 +276,7 @@ public class NBTCompound extends AbstractMap<String, Object> {
      * @see #get(Object)
      */
     public Number getNumber(String name, Number defaultValue) {
-        Object result = get(name);
+        Object result = find(name, false);
         return result instanceof Number
             ? (Number) result
             : defaultValue;
@@ -223,7 +301,7 @@ public class NBTCompound extends AbstractMap<String, Object> {
      * @see #get(Object)
      */
     public String getString(String name, String defaultValue) {
-        Object result = get(name);
+        Object result = find(name, false);
         return result != null
             ? result.toString()
             : defaultValue;
@@ -309,25 +387,41 @@ public class NBTCompound extends AbstractMap<String, Object> {
      */
     @Override
     public Object get(Object name) {
+        return find(name, true);
+    }
+
+    /**
+     * Searches for a tag inside the compound, or inside one of its nested compounds if the {@code
+     * name} uses <a href="#nesting">dot-notation</a>.
+     *
+     * @param exposed Whether the tag's value will be handed to the caller, who may modify it. If
+     *                so, and the value is a compound, list or array reached through a lazy {@link
+     *                #deepCopy() copy} that still shares its contents with a frozen compound, then
+     *                the compounds along the path are copied first.
+     * @return The tag's value, or {@code null} if it could not be found.
+     * @throws NullPointerException If the {@code name} is {@code null}.
+     * @throws ClassCastException   If the {@code name} is not a {@link String}.
+     */
+    private Object find(Object name, boolean exposed) {
         Objects.requireNonNull(name, "Tag name cannot be null");
         if (!(name instanceof String)) {
             throw new ClassCastException("Tag name must be java.lang.String");
         }
 
-        String[] tokens = FilteredTag.tokenizeTagName((String) name);
-        if (tokens.length == 1) {
-            // Short-circuit if the tag is a direct child of this compound.
-            return decorated.get(name);
-        }
-
-        // Otherwise search for the tag within a nested compound.
+        String[] tokens = ((String) name).indexOf('.') == -1
+            ? new String[]{(String) name}
+            : FilteredTag.tokenizeTagName((String) name);
         NBTCompound parent = this;
+        boolean viaShared = false;
         for (int i = 0; i < tokens.length; i++) {
+            viaShared |= parent.shared;
 
             Object child = parent.decorated.get(tokens[i]);
             if (i + 1 == tokens.length) {
                 // No more tokens; current child must be the output.
-                return child;
+                return exposed && viaShared && isMutable(child)
+                    ? findUnshared(tokens)
+                    : child;
             }
 
             // More tokens follow; child must be a compound to continue.
@@ -340,6 +434,20 @@ public class NBTCompound extends AbstractMap<String, Object> {
         return null;
     }
 
+    /**
+     * Same as {@link #find(Object, boolean) find(...)}, but each compound along the path is {@link
+     * #unshare() unshared} first. The path must be known to exist.
+     */
+    private Object findUnshared(String[] tokens) {
+        NBTCompound parent = this;
+        for (int i = 0; i + 1 < tokens.length; i++) {
+            parent.unshare();
+            parent = (NBTCompound) parent.decorated.get(tokens[i]);
+        }
+        parent.unshare();
+        return parent.decorated.get(tokens[tokens.length - 1]);
+    }
+
     /**
      * @throws IllegalArgumentException If the {@code value}, when converted to an NBT type, is
      *                                  {@link TagType#END TAG_End}.
@@ -349,6 +457,7 @@ public class NBTCompound extends AbstractMap<String, Object> {
     @Override
     public Object put(String name, Object value) {
         checkTag(name, value);
+        prepareForModification();
         return decorated.put(name, value);
     }
 
@@ -361,37 +470,170 @@ public class NBTCompound extends AbstractMap<String, Object> {
     @Override
     public Object putIfAbsent(String name, Object value) {
         checkTag(name, value);
+        prepareForModification();
         return decorated.putIfAbsent(name, value);
     }
 
     @Override
     public boolean remove(Object name, Object value) {
+        prepareForModification();
         return decorated.remove(name, value);
     }
 
     @Override
     public Object remove(Object name) {
+        prepareForModification();
         return decorated.remove(name);
     }
 
+    /**
+     * @throws IllegalArgumentException If the new {@code value}, when converted to an NBT type, is
+     *                                  {@link TagType#END TAG_End}.
+     * @throws NullPointerException     If the supplied {@code name} or {@code value} are {@code
+     *                                  null}.
+     */
+    @Override
+    public Object replace(String name, Object value) {
+        checkTag(name, value);
+        prepareForModification();
+        return decorated.replace(name, value);
+    }
+
+    /**
+     * @throws IllegalArgumentException If the {@code newValue}, when converted to an NBT type, is
+     *                                  {@link TagType#END TAG_End}.
+     * @throws NullPointerException     If the supplied {@code name} or {@code newValue} are {@code
+     *                                  null}.
+     */
+    @Override
+    public boolean replace(String name, Object oldValue, Object newValue) {
+        checkTag(name, newValue);
+        prepareForModification();
+        return decorated.replace(name, oldValue, newValue);
+    }
+
+    /**
+     * @throws IllegalArgumentException If any value returned by the {@code function}, when
+     *                                  converted to an NBT type, is {@link TagType#END TAG_End}.
+     * @throws NullPointerException     If the {@code function} is null, or if it returns {@code
+     *                                  null}.
+     */
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super Object, ?> function) {
+        Objects.requireNonNull(function, "Function cannot be null");
+        prepareForModification();
+        decorated.replaceAll((name, value) -> {
+            Object newValue = function.apply(name, value);
+            checkTag(name, newValue);
+            return newValue;
+        });
+    }
+
+    /**
+     * @throws IllegalArgumentException If the value returned by the {@code mappingFunction}, when
+     *                                  converted to an NBT type, is {@link TagType#END TAG_End}.
+     * @throws NullPointerException     If the supplied {@code name} or {@code mappingFunction} are
+     *                                  {@code null}.
+     */
+    @Override
+    public Object computeIfAbsent(String name, Function<? super String, ?> mappingFunction) {
+        Objects.requireNonNull(name, "Tag name cannot be null");
+        Objects.requireNonNull(mappingFunction, "Function cannot be null");
+        prepareForModification();
+        return decorated.computeIfAbsent(name,
+            n -> checkComputed(n, mappingFunction.apply(n)));
+    }
+
+    /**
+     * @throws IllegalArgumentException If the value returned by the {@code remappingFunction}, when
+     *                                  converted to an NBT type, is {@link TagType#END TAG_End}.
+     * @throws NullPointerException     If the supplied {@code name} or {@code remappingFunction}
+     *                                  are {@code null}.
+     */
+    @Override
+    public Object computeIfPresent(String name,
+        BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        Objects.requireNonNull(name, "Tag name cannot be null");
+        Objects.requireNonNull(remappingFunction, "Function cannot be null");
+        prepareForModification();
+        return decorated.computeIfPresent(name,
+            (n, value) -> checkComputed(n, remappingFunction.apply(n, value)));
+    }
+
+    /**
+     * @throws IllegalArgumentException If the value returned by the {@code remappingFunction}, when
+     *                                  converted to an NBT type, is {@link TagType#END TAG_End}.
+     * @throws NullPointerException     If the supplied {@code name} or {@code remappingFunction}
+     *                                  are {@code null}.
+     */
+    @Override
+    public Object compute(String name,
+        BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        Objects.requireNonNull(name, "Tag name cannot be null");
+        Objects.requireNonNull(remappingFunction, "Function cannot be null");
+        prepareForModification();
+        return decorated.compute(name,
+            (n, value) -> checkComputed(n, remappingFunction.apply(n, value)));
+    }
+
+    /**
+     * @throws IllegalArgumentException If the {@code value}, or the value returned by the {@code
+     *                                  remappingFunction}, when converted to an NBT type, is {@link
+     *                                  TagType#END TAG_End}.
+     * @throws NullPointerException     If the supplied {@code name}, {@code value} or {@code
+     *                                  remappingFunction} are {@code null}.
+     */
+    @Override
+    public Object merge(String name, Object value,
+        BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        checkTag(name, value);
+        Objects.requireNonNull(remappingFunction, "Function cannot be null");
+        prepareForModification();
+        return decorated.merge(name, value,
+            (oldValue, v) -> checkComputed(name, remappingFunction.apply(oldValue, v)));
+    }
+
     @Override
     public void clear() {
-        decorated.clear();
+        checkNotFrozen();
+        containerNames = null;
+        if (shared) {
+            // No need to copy tags that are about to be removed.
+            decorated = new HashMap<>();
+            shared = false;
+        } else {
+            decorated.clear();
+        }
     }
 
     @Override
     public Set<String> keySet() {
-        return decorated.keySet();
+        Set<String> view = keyView;
+        if (view == null) {
+            view = new KeySet();
+            keyView = view;
+        }
+        return view;
     }
 
     @Override
     public Collection<Object> values() {
-        return decorated.values();
+        Collection<Object> view = valueView;
+        if (view == null) {
+            view = new Values();
+            valueView = view;
+        }
+        return view;
     }
 
     @Override
     public Set<Entry<String, Object>> entrySet() {
-        return decorated.entrySet();
+        Set<Entry<String, Object>> view = entryView;
+        if (view == null) {
+            view = new EntrySet();
+            entryView = view;
+        }
+        return view;
     }
 
     @Override
@@ -399,6 +641,89 @@ public class NBTCompound extends AbstractMap<String, Object> {
         return decorated.size();
     }
 
+    /**
+     * Makes the compound immutable, so that it can be safely shared as a canonical instance by an
+     * {@link NBTInterner}. Any nested compounds and lists should already be frozen.
+     */
+    void freeze() {
+        frozenHash = hashCode();
+        frozen = true;
+    }
+
+    /**
+     * @return {@code true} if the compound has been {@link #freeze() frozen}. Otherwise {@code
+     * false}.
+     */
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @throws UnsupportedOperationException If the compound is {@link #freeze() frozen}.
+     */
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Interned compounds cannot be modified");
+        }
+    }
+
+    /**
+     * Should be called before the compound's contents are modified. This makes sure the compound
+     * can be modified, copies its contents if they are shared, and clears its cached hash.
+     *
+     * @throws UnsupportedOperationException If the compound is {@link #freeze() frozen}.
+     */
+    private void prepareForModification() {
+        checkNotFrozen();
+        unshare();
+        containerNames = null;
+    }
+
+    /**
+     * Stops a {@link #deepCopy() copy} of a frozen compound from sharing its contents with the
+     * original, so that it can be modified. Any nested compounds and lists are copied along with
+     * it, though they are themselves only copied lazily.
+     */
+    private void unshare() {
+        if (shared) {
+            Map<String, Object> copy = new HashMap<>(decorated);
+            copy.replaceAll((name, value) -> copyValue(value));
+            decorated = copy;
+            shared = false;
+        }
+    }
+
+    /**
+     * @return {@code true} if the {@code value} is a compound, list or array, meaning it can be
+     * modified in-place. Otherwise {@code false}.
+     */
+    static boolean isMutable(Object value) {
+        return value instanceof NBTCompound
+               || value instanceof NBTList
+               || value instanceof byte[]
+               || value instanceof int[]
+               || value instanceof long[];
+    }
+
+    /**
+     * @return A deep copy of the {@code value} if it is {@link #isMutable(Object) mutable}.
+     * Otherwise the {@code value} itself.
+     */
+    static Object copyValue(Object value) {
+        if (value instanceof NBTCompound) {
+            return ((NBTCompound) value).deepCopy();
+        } else if (value instanceof NBTList) {
+            return ((NBTList) value).deepCopy();
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        } else if (value instanceof int[]) {
+            return ((int[]) value).clone();
+        } else if (value instanceof long[]) {
+            return ((long[]) value).clone();
+        }
+        return value;
+    }
+
     /**
      * @throws NullPointerException     If the supplied {@code name} or {@code tag} is {@code
      *                                  null}.
@@ -428,197 +753,343 @@ public class NBTCompound extends AbstractMap<String, Object> {
         }
     }
 
+    /**
+     * Same as {@link #checkTag(String, Object)}, but {@code null} values are allowed, since they
+     * indicate that the tag should be removed.
+     *
+     * @return The {@code value}.
+     */
+    private Object checkComputed(String name, Object value) {
+        if (value != null) {
+            checkTag(name, value);
+        }
+        return value;
+    }
+
     /**
      * @return The compound in SNBT format.
+     * @see SNBTWriter#write(Object, boolean)
      */
     @Override
     public String toString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{");
+        return SNBTWriter.write(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+
+        if (!(o instanceof NBTCompound)) {
+            return false;
+        }
+        NBTCompound c = (NBTCompound) o;
+
+        // Lazy copies share their tags with the original until they are modified.
+        if (c.decorated == decorated) {
+            return true;
+        } else if (c.size() != this.size()) {
+            return false;
+        }
+
+        // Equal compounds always have equal immutable tags, so their hashes must match too.
+        if (containerNames != null && c.containerNames != null && shallowHash != c.shallowHash) {
+            return false;
+        } else if (frozen && c.frozen && frozenHash != c.frozenHash) {
+            return false;
+        }
 
-        int i = 0;
-        for (Entry<String, Object> tag : decorated.entrySet()) {
-            if (i != 0) {
-                sb.append(",");
+        for (Entry<String, Object> entry : decorated.entrySet()) {
+            Object value = entry.getValue();
+            Object oValue = c.decorated.get(entry.getKey());
+
+            if (!Objects.deepEquals(value, oValue)) {
+                return false;
             }
-            sb.append(tag.getKey().isEmpty() ? "\"\"" : tag.getKey());
-            sb.append(":");
-            sb.append(tagToString(tag.getValue()));
-            i++;
         }
+        return true;
+    }
 
-        sb.append("}");
-        return sb.toString();
+    /**
+     * Calculates the compound's hash code, as specified by {@link Map#hashCode()}, except that the
+     * hashes of arrays are based on their contents.
+     * <p>
+     * The hashes of the compound's immutable tags (numbers and strings) are cached until the
+     * compound is next modified. Only the hashes of nested compounds, lists and arrays are
+     * recalculated each time, and those of nested compounds and lists are themselves cached the
+     * same way. Hashing a compound is therefore only as expensive as the number of containers in
+     * it, rather than the total number of tags.
+     */
+    @Override
+    public int hashCode() {
+        if (frozen) {
+            return frozenHash;
+        }
+
+        String[] containers = containerNames;
+        int hashCode;
+        if (containers != null) {
+            hashCode = shallowHash;
+        } else {
+            // Recalculate the cache.
+            List<String> containerList = new ArrayList<>();
+            hashCode = 0;
+            for (Entry<String, Object> entry : decorated.entrySet()) {
+                Object value = entry.getValue();
+                if (isMutable(value)) {
+                    containerList.add(entry.getKey());
+                } else {
+                    hashCode += entry.getKey().hashCode() ^ value.hashCode();
+                }
+            }
+
+            containers = containerList.toArray(new String[0]);
+            if (cacheHash) {
+                shallowHash = hashCode;
+                containerNames = containers;
+            }
+        }
+
+        for (String name : containers) {
+            Object value = decorated.get(name);
+            if (value != null) {
+                hashCode += name.hashCode() ^ hashValue(value);
+            }
+        }
+        return hashCode;
+    }
+
+    /**
+     * @return The hash code of an NBT value, or the hash of its contents if it is an array.
+     */
+    static int hashValue(Object value) {
+        if (value instanceof byte[]) {
+            return Arrays.hashCode((byte[]) value);
+        } else if (value instanceof int[]) {
+            return Arrays.hashCode((int[]) value);
+        } else if (value instanceof long[]) {
+            return Arrays.hashCode((long[]) value);
+        }
+        return value.hashCode();
     }
 
     /*
      *
-     * ============ toString() Helper Functions ============
+     * ============ Collection Views ============
      *
      */
 
-    private static String tagToString(Object value) {
-        TagType tagType = TagType.fromObject(value);
-        switch (tagType) {
-            case BYTE:
-                return byteToString((Byte) value);
-            case SHORT:
-                return shortToString((Short) value);
-            case INT:
-                return intToString((Integer) value);
-            case LONG:
-                return longToString((Long) value);
-            case FLOAT:
-                return floatToString((Float) value);
-            case DOUBLE:
-                return doubleToString((Double) value);
-            case BYTE_ARRAY:
-                return byteArrayToString((byte[]) value);
-            case STRING:
-                return stringTagToString((String) value);
-            case LIST:
-                return listToString((NBTList) value);
-            case COMPOUND:
-                return value.toString();
-            case INT_ARRAY:
-                return intArrayToString((int[]) value);
-            case LONG_ARRAY:
-                return longArrayToString((long[]) value);
-            default:
-                return "";
+    private final class KeySet extends AbstractSet<String> {
+
+        @Override
+        public Iterator<String> iterator() {
+            return new CompoundIterator<String>() {
+                @Override
+                public String next() {
+                    return nextEntry().getKey();
+                }
+            };
         }
-    }
 
-    private static String byteToString(byte value) {
-        return value + "b";
-    }
+        @Override
+        public int size() {
+            return decorated.size();
+        }
 
-    private static String shortToString(short value) {
-        return value + "s";
-    }
+        @Override
+        public boolean contains(Object o) {
+            return decorated.containsKey(o);
+        }
 
-    private static String intToString(int value) {
-        return Integer.toString(value);
-    }
+        @Override
+        public boolean remove(Object o) {
+            if (decorated.containsKey(o)) {
+                NBTCompound.this.remove(o);
+                return true;
+            }
+            return false;
+        }
 
-    private static String longToString(long value) {
-        return value + "l";
+        @Override
+        public void clear() {
+            NBTCompound.this.clear();
+        }
     }
 
-    private static String floatToString(float value) {
-        return value + "f";
-    }
+    private final class Values extends AbstractCollection<Object> {
+
+        @Override
+        public Iterator<Object> iterator() {
+            return new CompoundIterator<Object>() {
+                @Override
+                public Object next() {
+                    return getValue(nextEntry());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return decorated.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return decorated.containsValue(o);
+        }
 
-    private static String doubleToString(double value) {
-        return value + "d";
+        @Override
+        public void clear() {
+            NBTCompound.this.clear();
+        }
     }
 
-    private static String byteArrayToString(byte[] value) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[B;");
-        for (int i = 0; i < value.length; i++) {
-            sb.append(value[i]);
-            if (i < value.length - 1) {
-                sb.append(",");
+    private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+            return new CompoundIterator<Entry<String, Object>>() {
+                @Override
+                public Entry<String, Object> next() {
+                    return new CompoundEntry(this, nextEntry());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return decorated.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return decorated.entrySet().contains(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                NBTCompound.this.remove(((Entry<?, ?>) o).getKey());
+                return true;
             }
+            return false;
         }
-        sb.append("]");
-        return sb.toString();
-    }
 
-    private static String stringTagToString(String value) {
-        return "\"" + value + "\"";
+        @Override
+        public void clear() {
+            NBTCompound.this.clear();
+        }
     }
 
-    private static String listToString(NBTList value) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[");
-        for (int i = 0; i < value.size(); i++) {
-            sb.append(value.get(i) != null ? tagToString(value.get(i)) : 0);
-            if (i < value.size() - 1) {
-                sb.append(",");
+    /**
+     * Iterates over the compound's tags for its collection views. Any changes made through the
+     * iterator, or through the entries it returns, are applied to the compound itself. That way
+     * they are never seen by {@link #deepCopy() copies} made after the iterator was created.
+     */
+    private abstract class CompoundIterator<T> implements Iterator<T> {
+
+        private final Map<String, Object>             iterated = decorated;
+        private final Iterator<Entry<String, Object>> iterator = iterated.entrySet().iterator();
+        private       Entry<String, Object>           current;
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        Entry<String, Object> nextEntry() {
+            return current = iterator.next();
+        }
+
+        /**
+         * @return {@code true} if the map being iterated is still the compound's own, meaning it can
+         * be modified directly. Otherwise {@code false}.
+         */
+        private boolean isDirect() {
+            return decorated == iterated && !shared;
+        }
+
+        Object getValue(Entry<String, Object> entry) {
+            Object value = entry.getValue();
+            if (decorated != iterated || (shared && isMutable(value))) {
+                unshare();
+                return decorated.get(entry.getKey());
             }
+            return value;
         }
-        sb.append("]");
-        return sb.toString();
-    }
 
-    private static String intArrayToString(int[] value) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[I;");
-        for (int i = 0; i < value.length; i++) {
-            sb.append(value[i]);
-            if (i < value.length - 1) {
-                sb.append(",");
+        Object setValue(Entry<String, Object> entry, Object value) {
+            checkTag(entry.getKey(), value);
+            checkNotFrozen();
+            containerNames = null;
+            if (isDirect()) {
+                return entry.setValue(value);
             }
+            unshare();
+            return decorated.put(entry.getKey(), value);
         }
-        sb.append("]");
-        return sb.toString();
-    }
 
-    private static String longArrayToString(long[] value) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[L;");
-        for (int i = 0; i < value.length; i++) {
-            sb.append(value[i]);
-            if (i < value.length - 1) {
-                sb.append(",");
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+
+            checkNotFrozen();
+            containerNames = null;
+            if (isDirect()) {
+                iterator.remove();
+            } else {
+                unshare();
+                decorated.remove(current.getKey());
             }
+            current = null;
         }
-        sb.append("]");
-        return sb.toString();
     }
 
-    @Override
-    public boolean equals(Object o) {
-        if (o == this) {
-            return true;
+    private static final class CompoundEntry implements Entry<String, Object> {
+
+        private final CompoundIterator<?>   iterator;
+        private final Entry<String, Object> entry;
+
+        CompoundEntry(CompoundIterator<?> iterator, Entry<String, Object> entry) {
+            this.iterator = iterator;
+            this.entry = entry;
         }
 
-        if (!(o instanceof NBTCompound)) {
-            return false;
+        @Override
+        public String getKey() {
+            return entry.getKey();
         }
-        NBTCompound c = (NBTCompound) o;
 
-        if (c.size() != this.size()) {
-            return false;
+        @Override
+        public Object getValue() {
+            return iterator.getValue(entry);
         }
 
-        for (Entry<String, Object> entry : decorated.entrySet()) {
-            String key = entry.getKey();
-            Object value = entry.getValue();
-            Object oValue = c.get(key);
+        @Override
+        public Object setValue(Object value) {
+            return iterator.setValue(entry, value);
+        }
 
-            if (value == null) {
-                if (!(oValue == null && c.containsKey(key))) {
-                    return false;
-                }
-            } else if (!Objects.deepEquals(value, oValue)) {
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
                 return false;
             }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
         }
-        return true;
-    }
 
-    @Override
-    public int hashCode() {
-        int hashCode = 0;
-        for (Entry<String, Object> entry : decorated.entrySet()) {
-            final Object value = entry.getValue();
-            final int valHash;
-
-            if (value instanceof byte[]) {
-                valHash = Arrays.hashCode((byte[]) value);
-            } else if (value instanceof int[]) {
-                valHash = Arrays.hashCode((int[]) value);
-            } else if (value instanceof long[]) {
-                valHash = Arrays.hashCode((long[]) value);
-            } else {
-                valHash = value.hashCode();
-            }
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
 
-            hashCode += Objects.hashCode(entry.getKey()) ^ valHash;
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
         }
-        return hashCode;
     }
 }
\ No newline at end of file
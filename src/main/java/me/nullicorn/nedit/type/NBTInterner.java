@@ -0,0 +1,147 @@
+package me.nullicorn.nedit.type;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+/**
+ * Deduplicates NBT data by replacing structurally identical compounds and lists with a single
+ * shared instance, similar to {@link String#intern()}.
+ * <p>
+ * When a compound or list is {@link #intern(NBTCompound) interned}, each of its nested compounds
+ * and lists is interned first, starting from the deepest ones. If an equal compound or list has
+ * already been interned, that instance is used in its place. Otherwise, an immutable copy is
+ * created and remembered for later. For example, if many items share the same lore or
+ * enchantments, every interned copy of those items refers to the same lore and enchantment tags,
+ * rather than each holding its own copy.
+ * <p>
+ * Because interned compounds and lists may be shared by many trees, they cannot be modified. Any
+ * attempt to do so will throw an {@link UnsupportedOperationException}. To get a modifiable
+ * version, use {@link NBTCompound#deepCopy()} or {@link NBTList#deepCopy()}, which initially
+ * share the interned instance's contents without copying them. Arrays cannot be made immutable,
+ * so arrays retrieved from interned tags must never be modified.
+ * <p>
+ * Interned instances are only held weakly, and are forgotten once no longer used elsewhere.
+ * Interners are thread-safe. A process-wide interner can be obtained via {@link #shared()}, or
+ * separate interners can be created for data that is unlikely to overlap.
+ *
+ * @author Nullicorn
+ */
+public class NBTInterner {
+
+    private static final NBTInterner SHARED = new NBTInterner();
+
+    /**
+     * @return An interner that is shared by the entire process.
+     */
+    public static NBTInterner shared() {
+        return SHARED;
+    }
+
+    // Maps each interned instance to itself. Values are weakly referenced so that they don't
+    // prevent their own keys from being collected.
+    private final Map<Object, WeakReference<Object>> canonical = new WeakHashMap<>();
+
+    /**
+     * Finds or creates the interned version of a compound.
+     *
+     * @return An immutable compound that is equal to the provided one. If an equal compound was
+     * interned before, and is still in use, that instance is returned.
+     * @throws NullPointerException If the {@code compound} is {@code null}.
+     */
+    public NBTCompound intern(NBTCompound compound) {
+        Objects.requireNonNull(compound, "Compound cannot be null");
+        return (NBTCompound) internValue(compound);
+    }
+
+    /**
+     * Finds or creates the interned version of a list.
+     *
+     * @return An immutable list that is equal to the provided one. If an equal list was interned
+     * before, and is still in use, that instance is returned.
+     * @throws NullPointerException If the {@code list} is {@code null}.
+     */
+    public NBTList intern(NBTList list) {
+        Objects.requireNonNull(list, "List cannot be null");
+        return (NBTList) internValue(list);
+    }
+
+    /**
+     * @return The number of interned compounds and lists that are currently remembered.
+     */
+    public int size() {
+        synchronized (canonical) {
+            return canonical.size();
+        }
+    }
+
+    /**
+     * Forgets all interned compounds and lists. Any that are still in use remain immutable, but
+     * will not be reused by future calls to {@code intern()}.
+     */
+    public void clear() {
+        synchronized (canonical) {
+            canonical.clear();
+        }
+    }
+
+    /**
+     * @return The interned version of the {@code value} if it is a compound or list, a copy of it
+     * if it is an array, or otherwise the {@code value} itself.
+     */
+    private Object internValue(Object value) {
+        if (value instanceof NBTCompound) {
+            NBTCompound compound = (NBTCompound) value;
+            if (compound.isFrozen()) {
+                return canonicalize(compound);
+            }
+
+            NBTCompound frozen = new NBTCompound(new HashMap<>(capacityFor(compound.size())));
+            compound.forEach((name, tag) -> frozen.put(name, internValue(tag)));
+            frozen.freeze();
+            return canonicalize(frozen);
+
+        } else if (value instanceof NBTList) {
+            NBTList list = (NBTList) value;
+            if (list.isFrozen()) {
+                return canonicalize(list);
+            }
+
+            NBTList frozen = new NBTList(list.getContentType(), new ArrayList<>(list.size()));
+            list.forEach(element -> frozen.add(internValue(element)));
+            frozen.freeze();
+            return canonicalize(frozen);
+        }
+
+        // Arrays are copied so that they cannot be modified via the original tree.
+        return NBTCompound.copyValue(value);
+    }
+
+    /**
+     * @return The interned instance that is equal to the frozen {@code value}. If there is none,
+     * the {@code value} becomes the interned instance and is returned.
+     */
+    private Object canonicalize(Object value) {
+        synchronized (canonical) {
+            WeakReference<Object> existingRef = canonical.get(value);
+            Object existing = existingRef == null ? null : existingRef.get();
+            if (existing != null) {
+                return existing;
+            }
+
+            canonical.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+
+    /**
+     * @return The initial capacity needed for a {@link HashMap} to hold the {@code size} number of
+     * entries without resizing.
+     */
+    private static int capacityFor(int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+}
@@ -4,7 +4,6 @@ import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Spliterator;
@@ -21,17 +20,66 @@ import java.util.stream.Stream;
  */
 public class NBTList extends AbstractList<Object> {
 
-    private final List<Object> decorated;
-    private final TagType contentType;
+    private       List<Object> decorated;
+    private final TagType      contentType;
+
+    // Whether `decorated` belongs to a frozen list that this one is a copy of. See deepCopy().
+    private boolean shared;
+
+    // Cached hash code, only used if the list's elements are immutable. See hashCode().
+    private int     hash;
+    private boolean hashValid;
+
+    // Whether the list is a canonical instance created by an NBTInterner, and therefore cannot be
+    // modified. See freeze().
+    private boolean frozen;
 
     /**
      * Creates a new list that can only hold tags with the provided {@code type}.
      */
     public NBTList(TagType type) {
-        decorated = new ArrayList<>();
+        this(type, new ArrayList<>());
+    }
+
+    /**
+     * Creates a list that stores its elements in the provided list, which should be empty.
+     */
+    NBTList(TagType type, List<Object> decorated) {
+        this.decorated = decorated;
         contentType = (type == null ? TagType.END : type);
     }
 
+    /**
+     * Creates a deep copy of the list, such that changes made to the copy (or to any tags nested
+     * inside it) are never reflected in the original, and vice versa.
+     * <p>
+     * Like {@link NBTCompound#deepCopy()}, the original list is never changed by copying it, so
+     * ordinary lists are copied eagerly, and only copies of {@link NBTInterner interned} lists are
+     * lazy. They share the original's elements until they are modified, or until an element is
+     * retrieved from a list of compounds, lists or arrays. Copies can be modified, unlike the
+     * originals.
+     *
+     * @return A deep copy of the list.
+     * @see NBTCompound#deepCopy()
+     */
+    public NBTList deepCopy() {
+        NBTList copy;
+        if (frozen || shared) {
+            // The elements can never change, so they can be copied lazily.
+            copy = new NBTList(contentType, decorated);
+            copy.shared = true;
+        } else {
+            List<Object> elements = new ArrayList<>(decorated);
+            if (hasMutableContents()) {
+                elements.replaceAll(NBTCompound::copyValue);
+            }
+            copy = new NBTList(contentType, elements);
+        }
+        copy.hash = hash;
+        copy.hashValid = hashValid && !hasMutableContents();
+        return copy;
+    }
+
     /**
      * The type of tags stored in the list. Attempting to insert any other type of tag will cause an
      * exception to be thrown.
@@ -52,6 +100,7 @@ public class NBTList extends AbstractList<Object> {
     @Override
     public Object set(int index, Object tag) {
         checkType(tag);
+        prepareForModification();
         return decorated.set(index, tag);
     }
 
@@ -69,6 +118,8 @@ public class NBTList extends AbstractList<Object> {
     @Override
     public boolean add(Object tag) {
         checkType(tag);
+        prepareForModification();
+        modCount++;
         return decorated.add(tag);
     }
 
@@ -88,6 +139,8 @@ public class NBTList extends AbstractList<Object> {
     @Override
     public void add(int index, Object tag) {
         checkType(tag);
+        prepareForModification();
+        modCount++;
         decorated.add(index, tag);
     }
 
@@ -108,6 +161,8 @@ public class NBTList extends AbstractList<Object> {
         Objects.requireNonNull(tags, "tags collection cannot be null");
 
         tags.forEach(this::checkType);
+        prepareForModification();
+        modCount++;
         return decorated.addAll(tags);
     }
 
@@ -132,6 +187,8 @@ public class NBTList extends AbstractList<Object> {
         Objects.requireNonNull(tags, "tags collection cannot be null");
 
         tags.forEach(this::checkType);
+        prepareForModification();
+        modCount++;
         return decorated.addAll(index, tags);
     }
 
@@ -143,6 +200,7 @@ public class NBTList extends AbstractList<Object> {
 
     @Override
     public Object get(int index) {
+        unshareContents();
         return decorated.get(index);
     }
 
@@ -437,6 +495,87 @@ public class NBTList extends AbstractList<Object> {
         }
     }
 
+    /**
+     * Makes the list immutable, so that it can be safely shared as a canonical instance by an
+     * {@link NBTInterner}. Any compounds and lists inside it should already be frozen.
+     */
+    void freeze() {
+        hash = hashCode();
+        hashValid = true;
+        frozen = true;
+    }
+
+    /**
+     * @return {@code true} if the list has been {@link #freeze() frozen}. Otherwise {@code false}.
+     */
+    boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @throws UnsupportedOperationException If the list is {@link #freeze() frozen}.
+     */
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Interned lists cannot be modified");
+        }
+    }
+
+    /**
+     * Should be called before the list is modified. This makes sure the list can be modified,
+     * copies its elements if they are shared, and clears its cached hash.
+     *
+     * @throws UnsupportedOperationException If the list is {@link #freeze() frozen}.
+     */
+    private void prepareForModification() {
+        checkNotFrozen();
+        unshare();
+        hashValid = false;
+    }
+
+    /**
+     * Stops a {@link #deepCopy() copy} of a frozen list from sharing its elements with the
+     * original, so that it can be modified. If the elements are compounds or lists, they are copied
+     * along with it, though they are themselves only copied lazily.
+     */
+    private void unshare() {
+        if (shared) {
+            List<Object> copy = new ArrayList<>(decorated);
+            if (hasMutableContents()) {
+                copy.replaceAll(NBTCompound::copyValue);
+            }
+            decorated = copy;
+            shared = false;
+        }
+    }
+
+    /**
+     * Same as {@link #unshare()}, but only if the list's elements can be modified in-place. Should
+     * be used before any of the list's elements are handed to the user.
+     */
+    private void unshareContents() {
+        if (shared && hasMutableContents()) {
+            unshare();
+        }
+    }
+
+    /**
+     * @return {@code true} if the list's {@link #getContentType() content type} can be modified
+     * in-place (compounds, lists and arrays). Otherwise {@code false}.
+     */
+    private boolean hasMutableContents() {
+        switch (contentType) {
+            case BYTE_ARRAY:
+            case INT_ARRAY:
+            case LONG_ARRAY:
+            case LIST:
+            case COMPOUND:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -445,28 +584,59 @@ public class NBTList extends AbstractList<Object> {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
-        if (!super.equals(o)) {
-            return false;
-        }
 
         NBTList objects = (NBTList) o;
-        if (contentType != objects.contentType) {
+        if (contentType != objects.contentType || size() != objects.size()) {
+            return false;
+        } else if (decorated == objects.decorated) {
+            // Lazy copies share their elements with the original until they are modified.
+            return true;
+        }
+        if (hashValid && objects.hashValid && hash != objects.hash) {
             return false;
         }
-        return super.equals(o);
+
+        for (int i = 0; i < decorated.size(); i++) {
+            if (!Objects.deepEquals(decorated.get(i), objects.decorated.get(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
+    /**
+     * Calculates the list's hash code based on its content type and the hashes of its elements.
+     * Like {@link NBTCompound#hashCode()}, the hashes of arrays are based on their contents.
+     * <p>
+     * If the list's elements are immutable (numbers and strings), the hash is cached until the list
+     * is next modified.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), contentType);
+        if (hashValid) {
+            return hash;
+        }
+
+        int elementsHash = 1;
+        for (Object element : decorated) {
+            elementsHash = 31 * elementsHash + NBTCompound.hashValue(element);
+        }
+        int hashCode = Objects.hash(elementsHash, contentType);
+
+        if (!hasMutableContents()) {
+            hash = hashCode;
+            hashValid = true;
+        }
+        return hashCode;
     }
 
     /*
      *
      * ============ DELEGATED METHODS ============
      *
-     * replaceAll() and both listIterator() methods are not overridden.
-     * This is to avoid invalid additions to the list via ArrayList's iterator.
+     * replaceAll(), iterator(), subList() and both listIterator() methods are not overridden.
+     * This is to avoid invalid additions to the list via ArrayList's iterator, and so that any
+     * changes made through them are not seen by copies of the list.
      *
      */
 
@@ -500,79 +670,96 @@ public class NBTList extends AbstractList<Object> {
         return decorated.isEmpty();
     }
 
-    @Override
-    public Iterator<Object> iterator() {
-        return decorated.iterator();
-    }
-
     @Override
     public Spliterator<Object> spliterator() {
+        unshareContents();
         return decorated.spliterator();
     }
 
-    @Override
-    public List<Object> subList(int fromIndex, int toIndex) {
-        return decorated.subList(fromIndex, toIndex);
-    }
-
     @Override
     public Stream<Object> stream() {
+        unshareContents();
         return decorated.stream();
     }
 
     @Override
     public Stream<Object> parallelStream() {
+        unshareContents();
         return decorated.parallelStream();
     }
 
     @Override
     public void forEach(Consumer<? super Object> action) {
+        unshareContents();
         decorated.forEach(action);
     }
 
     @Override
     public void sort(Comparator<? super Object> c) {
+        prepareForModification();
+        modCount++;
         decorated.sort(c);
     }
 
     @Override
     public Object remove(int index) {
+        prepareForModification();
+        modCount++;
         return decorated.remove(index);
     }
 
     @Override
     public boolean remove(Object o) {
+        prepareForModification();
+        modCount++;
         return decorated.remove(o);
     }
 
     @Override
     public boolean removeIf(Predicate<? super Object> filter) {
+        prepareForModification();
+        modCount++;
         return decorated.removeIf(filter);
     }
 
     @Override
     public boolean removeAll(Collection<?> c) {
+        prepareForModification();
+        modCount++;
         return decorated.removeAll(c);
     }
 
     @Override
     public void clear() {
-        decorated.clear();
+        checkNotFrozen();
+        hashValid = false;
+        if (shared) {
+            // No need to copy elements that are about to be removed.
+            decorated = new ArrayList<>();
+            shared = false;
+        } else {
+            decorated.clear();
+        }
+        modCount++;
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public Object[] toArray(Object[] a) {
+        unshareContents();
         return decorated.toArray(a);
     }
 
     @Override
     public Object[] toArray() {
+        unshareContents();
         return decorated.toArray();
     }
 
     @Override
     public boolean retainAll(Collection<?> c) {
+        prepareForModification();
+        modCount++;
         return decorated.retainAll(c);
     }
 }
@@ -1,5 +1,6 @@
 package me.nullicorn.nedit;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -28,6 +29,12 @@ public final class IOTestHelper {
         return new DataInputStream(in);
     }
 
+    public static byte[] toBinary(NBTCompound compound, boolean compress) throws IOException {
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        NBTWriter.write(compound, binary, compress);
+        return binary.toByteArray();
+    }
+
     public static byte[] createTestByteArray() {
         byte[] array = new byte[1000];
         for (int i = 0; i < array.length; i++) {
@@ -97,6 +104,18 @@ public final class IOTestHelper {
         return compound;
     }
 
+    public static NBTCompound createTestCompoundOfSize(int size) {
+        NBTCompound compound = new NBTCompound();
+        compound.put("size", size);
+        compound.put("bytes", new byte[size * 37]);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            text.append((char) ('a' + i % 26));
+        }
+        compound.put("text", text.toString());
+        return compound;
+    }
+
     private IOTestHelper() {
         throw new UnsupportedOperationException("Helper class should not be instantiated");
     }
@@ -7,9 +7,14 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+import me.nullicorn.nedit.exception.NBTParseException;
 import me.nullicorn.nedit.type.NBTCompound;
 import me.nullicorn.nedit.type.TagType;
 import org.junit.jupiter.api.Assertions;
@@ -95,6 +100,93 @@ class NBTInputStreamTests {
         tryReadCompound("compound_full_deflated", NBTInputStream::readFully);
     }
 
+    @Test
+    void reset_shouldReadNewDataEachTime() throws IOException {
+        NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(new byte[0]), true, true);
+        for (int i = 0; i < 10; i++) {
+            NBTCompound compound = createTestCompound(true);
+            compound.put("index", i);
+            byte[] binary = toBinary(compound, i % 2 == 0);
+
+            byte[] padded = new byte[binary.length + 6];
+            System.arraycopy(binary, 0, padded, 3, binary.length);
+            in.reset(padded, 3, binary.length);
+            assertEquals(compound, in.readFully());
+
+            in.reset(new ByteArrayInputStream(binary));
+            assertEquals(compound, in.readFully());
+        }
+    }
+
+    @Test
+    void reset_shouldThrowForCorruptGzipData() throws IOException {
+        NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(new byte[0]));
+        byte[] binary = toBinary(createTestCompound(true), true);
+
+        byte[] truncated = Arrays.copyOf(binary, binary.length / 2);
+        in.reset(truncated, 0, truncated.length);
+        assertThrows(EOFException.class, in::readFully);
+
+        // The trailer is checked once the end of the compressed data is reached.
+        byte[] corrupted = binary.clone();
+        corrupted[corrupted.length - 8]++; // First byte of the CRC.
+        in.reset(new ByteArrayInputStream(corrupted));
+        in.readFully();
+        assertThrows(ZipException.class, in::read);
+
+        // The stream should still be usable afterwards.
+        in.reset(binary, 0, binary.length);
+        assertEquals(createTestCompound(true), in.readFully());
+        assertThrows(IndexOutOfBoundsException.class, () -> in.reset(binary, 1, binary.length));
+    }
+
+    @Test
+    void readFully_shouldReadConcatenatedGzipMembers() throws IOException {
+        byte[] binary = toBinary(createTestCompound(true), false);
+        ByteArrayOutputStream members = new ByteArrayOutputStream();
+        int half = binary.length / 2;
+        for (int[] range : new int[][]{{0, half}, {half, binary.length}}) {
+            GZIPOutputStream member = new GZIPOutputStream(members);
+            member.write(binary, range[0], range[1] - range[0]);
+            member.finish();
+        }
+
+        NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(members.toByteArray()));
+        assertEquals(createTestCompound(true), in.readFully());
+        assertEquals(-1, in.read());
+
+        // Anything else after the last member is not silently ignored.
+        members.write(new byte[]{1, 2, 3});
+        in.reset(new ByteArrayInputStream(members.toByteArray()));
+        assertEquals(createTestCompound(true), in.readFully());
+        assertThrows(ZipException.class, in::read);
+    }
+
+    @Test
+    void readArrays_shouldThrowForLengthsTooLargeToRead() {
+        byte[] longLength = {0x20, 0, 0, 0}; // 2^29 longs, or 2^32 bytes.
+        byte[] intLength = {0x40, 0, 0, 0}; // 2^30 ints, or 2^32 bytes.
+        assertThrows(NBTParseException.class,
+            () -> new NBTInputStream(new ByteArrayInputStream(longLength)).readLongArray());
+        assertThrows(NBTParseException.class,
+            () -> new NBTInputStream(new ByteArrayInputStream(intLength)).readIntArray());
+    }
+
+    @Test
+    void release_shouldStopReadingGzippedData() throws IOException {
+        byte[] binary = toBinary(createTestCompound(true), true);
+        NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(binary));
+        in.gunzipIfNecessary();
+        in.readByte();
+        in.release();
+        assertThrows(IOException.class, in::readByte);
+
+        // Resetting the stream should borrow another inflater.
+        in.reset(binary, 0, binary.length);
+        assertEquals(createTestCompound(true), in.readFully());
+        in.close();
+    }
+
     private <T> void tryReadPrimitive(TagType type, T expected, ReaderFunction<T> reader) throws IOException {
         tryRead("primitives/" + type.name().toLowerCase(),
             expected,
@@ -8,6 +8,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.zip.GZIPInputStream;
 import me.nullicorn.nedit.type.NBTCompound;
 import me.nullicorn.nedit.type.TagType;
 import org.junit.jupiter.api.Test;
@@ -134,6 +135,43 @@ class NBTOutputStreamTests {
         assertEquals(expected, actual);
     }
 
+    @Test
+    void shouldCompressReadableGzipData() throws IOException {
+        NBTCompound compound = new NBTCompound();
+        compound.put("string", TEST_STRING);
+        compound.put("byte_array", createTestByteArray());
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new NBTOutputStream(expected, false).writeFully(compound);
+
+        // Repeated to make sure pooled deflaters are reset between uses.
+        for (int i = 0; i < 3; i++) {
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            NBTOutputStream out = new NBTOutputStream(actual, true);
+            out.writeFully(compound);
+            assertThrows(IOException.class, () -> out.writeByte(0));
+
+            ByteArrayInputStream compressed = new ByteArrayInputStream(actual.toByteArray());
+            DataInputStream gzip = new DataInputStream(new GZIPInputStream(compressed));
+            byte[] decompressed = new byte[expected.size()];
+            gzip.readFully(decompressed);
+            assertArrayEquals(expected.toByteArray(), decompressed);
+            assertEquals(-1, gzip.read());
+        }
+    }
+
+    @Test
+    void release_shouldStopCompressedStreams() throws IOException {
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        NBTOutputStream out = new NBTOutputStream(bytesOut, true);
+        out.writeString(TEST_STRING);
+        out.release();
+        out.release();
+
+        assertThrows(IOException.class, () -> out.writeString(TEST_STRING));
+        assertDoesNotThrow(out::close);
+    }
+
     private <T> void tryWrite(T value, NBTWriterFunction<T> actualWriter, WriterFunction<T> expectedWriter) throws IOException {
         ByteArrayOutputStream actualBytesOut = new ByteArrayOutputStream();
         ByteArrayOutputStream expectedBytesOut = new ByteArrayOutputStream();
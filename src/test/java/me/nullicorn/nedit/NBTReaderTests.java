@@ -0,0 +1,99 @@
+package me.nullicorn.nedit;
+
+import static me.nullicorn.nedit.IOTestHelper.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.nullicorn.nedit.exception.NBTParseException;
+import me.nullicorn.nedit.type.NBTCompound;
+import org.junit.jupiter.api.Test;
+
+class NBTReaderTests {
+
+    @Test
+    void readBase64_shouldMatchTheJdkDecoder() throws IOException {
+        for (int size = 0; size < 40; size++) {
+            NBTCompound compound = createTestCompoundOfSize(size);
+            for (boolean compress : new boolean[]{false, true}) {
+                byte[] binary = toBinary(compound, compress);
+                String padded = Base64.getEncoder().encodeToString(binary);
+                String unpadded = Base64.getEncoder().withoutPadding().encodeToString(binary);
+
+                assertEquals(compound, NBTReader.readBase64(padded));
+                assertEquals(compound, NBTReader.readBase64(unpadded));
+            }
+        }
+    }
+
+    @Test
+    void readBase64_shouldThrowForInvalidData() throws IOException {
+        byte[] binary = toBinary(createTestCompoundOfSize(1), true);
+        String valid = Base64.getEncoder().encodeToString(binary);
+        assertThrows(IllegalArgumentException.class, () -> NBTReader.readBase64("ab*d"));
+        assertThrows(IllegalArgumentException.class, () -> NBTReader.readBase64("abcde"));
+        assertThrows(IllegalArgumentException.class, () -> NBTReader.readBase64("ab="));
+        assertThrows(IOException.class,
+            () -> NBTReader.readBase64(valid.substring(0, valid.length() - 8)));
+    }
+
+    @Test
+    void readAllBase64_shouldPreserveOrder() throws IOException {
+        List<NBTCompound> expected = new ArrayList<>();
+        List<String> base64 = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            NBTCompound compound = createTestCompoundOfSize(i);
+            expected.add(compound);
+            base64.add(Base64.getEncoder().encodeToString(toBinary(compound, i % 2 == 0)));
+        }
+
+        assertEquals(expected, NBTReader.readAllBase64(base64));
+        assertEquals(Collections.emptyList(), NBTReader.readAllBase64(Collections.emptyList()));
+    }
+
+    @Test
+    void readAllBase64_shouldUseTheSuppliedExecutor() throws IOException {
+        List<String> base64 = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            byte[] binary = toBinary(createTestCompoundOfSize(i), true);
+            base64.add(Base64.getEncoder().encodeToString(binary));
+        }
+
+        AtomicInteger tasks = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            List<NBTCompound> results = NBTReader.readAllBase64(base64, task -> {
+                tasks.incrementAndGet();
+                pool.execute(task);
+            }, true, true);
+
+            assertEquals(100, results.size());
+            assertEquals(99, results.get(99).getInt("size", -1));
+            assertTrue(tasks.get() > 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void readAllBase64_shouldNameTheFirstInvalidString() throws IOException {
+        List<String> base64 = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            byte[] binary = toBinary(createTestCompoundOfSize(i), false);
+            base64.add(Base64.getEncoder().encodeToString(binary));
+        }
+        base64.set(20, "not base64!");
+        base64.set(40, "");
+
+        NBTParseException thrown = assertThrows(NBTParseException.class,
+            () -> NBTReader.readAllBase64(base64));
+        assertTrue(thrown.getMessage().endsWith(" 20"), thrown.getMessage());
+        assertTrue(thrown.getCause() instanceof IllegalArgumentException, "Cause was not kept");
+    }
+}
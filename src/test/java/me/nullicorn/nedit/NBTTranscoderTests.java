@@ -0,0 +1,165 @@
+package me.nullicorn.nedit;
+
+import static me.nullicorn.nedit.IOTestHelper.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import me.nullicorn.nedit.exception.NBTParseException;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.NBTList;
+import me.nullicorn.nedit.type.TagType;
+import org.junit.jupiter.api.Test;
+
+class NBTTranscoderTests {
+
+    @Test
+    void binaryToSnbt_shouldMatchReadingAndWriting() throws IOException {
+        NBTCompound compound = createCompound();
+        for (boolean compress : new boolean[]{false, true}) {
+            ByteArrayOutputStream binary = new ByteArrayOutputStream();
+            NBTWriter.write(compound, binary, compress);
+
+            for (boolean pretty : new boolean[]{false, true}) {
+                StringBuilder snbt = new StringBuilder();
+                NBTTranscoder.binaryToSnbt(new ByteArrayInputStream(binary.toByteArray()), snbt,
+                    pretty);
+
+                NBTCompound read = NBTReader.read(new ByteArrayInputStream(binary.toByteArray()));
+                assertEquals(SNBTWriter.write(read, pretty), snbt.toString());
+                assertEquals(compound, SNBTReader.readCompound(snbt.toString()));
+            }
+        }
+    }
+
+    @Test
+    void binaryToSnbt_shouldRoundTripThroughSnbtToBinary() throws IOException {
+        NBTCompound compound = new NBTCompound();
+        compound.put("large", 1e20d);
+        compound.put("small", 1e-5f);
+        compound.put("nan", Double.NaN);
+        compound.put("infinite", Float.POSITIVE_INFINITY);
+        compound.put("negativeInfinite", Double.NEGATIVE_INFINITY);
+        compound.put("escaped", "it's \"both\" \\");
+
+        // The third character of [";"] is a semicolon, like the header of a typed array.
+        NBTList semicolons = new NBTList(TagType.STRING);
+        semicolons.add(";");
+        compound.put("semicolons", semicolons);
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        NBTWriter.write(compound, binary, false);
+        StringBuilder snbt = new StringBuilder();
+        NBTTranscoder.binaryToSnbt(new ByteArrayInputStream(binary.toByteArray()), snbt, false);
+
+        ByteArrayOutputStream roundTripped = new ByteArrayOutputStream();
+        NBTTranscoder.snbtToBinary(new StringReader(snbt.toString()), roundTripped, false);
+        assertEquals(compound,
+            NBTReader.read(new ByteArrayInputStream(roundTripped.toByteArray())));
+        assertEquals(compound, SNBTReader.readCompound(compound.toString()));
+    }
+
+    @Test
+    void snbtToBinary_shouldMatchReadingAndWriting() throws IOException {
+        String snbt = SNBTWriter.write(createCompound(), true);
+        for (boolean compress : new boolean[]{false, true}) {
+            ByteArrayOutputStream binary = new ByteArrayOutputStream();
+            NBTTranscoder.snbtToBinary(new StringReader(snbt), binary, compress);
+
+            NBTCompound read = NBTReader.read(new ByteArrayInputStream(binary.toByteArray()));
+            assertEquals(SNBTReader.readCompound(snbt), read);
+        }
+    }
+
+    @Test
+    void snbtToBinary_shouldThrowForInvalidSnbt() {
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        assertThrows(NBTParseException.class,
+            () -> NBTTranscoder.snbtToBinary(new StringReader("{a: [1, 2b]}"), binary, false));
+        assertThrows(NBTParseException.class,
+            () -> NBTTranscoder.snbtToBinary(new StringReader("[1, 2]"), binary, false));
+    }
+
+    @Test
+    void binaryToJson_shouldRoundTripThroughJsonToBinary() throws IOException {
+        NBTCompound compound = createCompound();
+        compound.put("$dollar", Float.NaN);
+        compound.put("$byte", Double.NEGATIVE_INFINITY);
+        compound.put("control", "tab\tquote\"\u0001");
+
+        StringBuilder json = new StringBuilder();
+        NBTTranscoder.binaryToJson(new ByteArrayInputStream(toBinary(compound, false)), json);
+
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        NBTTranscoder.jsonToBinary(new StringReader(json.toString()), binary, true);
+        assertEquals(compound, NBTReader.read(new ByteArrayInputStream(binary.toByteArray())));
+    }
+
+    @Test
+    void binaryToJson_shouldMarkTypesWithoutJsonEquivalents() throws IOException {
+        assertEquals("{\"b\":{\"$byte\":-1}}", toJson("b", (byte) -1));
+        assertEquals("{\"s\":{\"$short\":2}}", toJson("s", (short) 2));
+        assertEquals("{\"i\":3}", toJson("i", 3));
+        assertEquals("{\"l\":{\"$long\":4}}", toJson("l", 4L));
+        assertEquals("{\"f\":{\"$float\":0.5}}", toJson("f", 0.5f));
+        assertEquals("{\"d\":6.0}", toJson("d", 6d));
+        assertEquals("{\"d\":{\"$double\":\"NaN\"}}", toJson("d", Double.NaN));
+        assertEquals("{\"a\":{\"$ints\":[1,2]}}", toJson("a", new int[]{1, 2}));
+        assertEquals("{\"$$x\":\"\\\"\\n\"}", toJson("$x", "\"\n"));
+    }
+
+    @Test
+    void jsonToBinary_shouldReadPlainJson() throws IOException {
+        String json = "{\"a\": true, \"b\": [1, 2], \"c\": \"x\\n\\u00e9\\/\", \"d\": 1.5e1,"
+                      + " \"e\": 3000000000, \"$$f\": {}, \"g\": []}";
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        NBTTranscoder.jsonToBinary(new StringReader(json), binary, false);
+
+        NBTCompound result = NBTReader.read(new ByteArrayInputStream(binary.toByteArray()));
+        assertEquals((byte) 1, result.get("a"));
+        assertEquals(TagType.INT, result.getList("b").getContentType());
+        assertEquals("x\n\u00e9/", result.get("c"));
+        assertEquals(15d, result.get("d"));
+        assertEquals(3000000000L, result.get("e"));
+        assertEquals(new NBTCompound(), result.get("$f"));
+        assertEquals(TagType.END, result.getList("g").getContentType());
+    }
+
+    @Test
+    void jsonToBinary_shouldThrowForUnrepresentableJson() {
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        assertThrows(NBTParseException.class, () -> NBTTranscoder.jsonToBinary(
+            new StringReader("{\"a\": [1, \"2\"]}"), binary, false));
+        assertThrows(NBTParseException.class, () -> NBTTranscoder.jsonToBinary(
+            new StringReader("{\"a\": {\"$byte\": 1, \"b\": 2}}"), binary, false));
+        assertThrows(NBTParseException.class, () -> NBTTranscoder.jsonToBinary(
+            new StringReader("{\"a\": {\"$byte\": 128}}"), binary, false));
+        assertThrows(NBTParseException.class,
+            () -> NBTTranscoder.jsonToBinary(new StringReader("{\"a\": null}"), binary, false));
+        assertThrows(NBTParseException.class, () -> NBTTranscoder.jsonToBinary(
+            new StringReader("{\"a\": {\"$float\": 1e-+}}"), binary, false));
+        assertThrows(NBTParseException.class,
+            () -> NBTTranscoder.jsonToBinary(new StringReader("{\"a\": "), binary, false));
+    }
+
+    private static String toJson(String name, Object value) throws IOException {
+        NBTCompound compound = new NBTCompound();
+        compound.put(name, value);
+        StringBuilder json = new StringBuilder();
+        NBTTranscoder.binaryToJson(new ByteArrayInputStream(toBinary(compound, false)), json);
+        return json.toString();
+    }
+
+    private static NBTCompound createCompound() {
+        NBTList nested = new NBTList(TagType.LIST);
+        nested.add(createTestDoubleList());
+        nested.add(createTestEmptyList());
+
+        NBTCompound compound = createTestCompound(true);
+        compound.put("nested", nested);
+        compound.put("quoted name", "needs \"quotes\"");
+        return compound;
+    }
+}
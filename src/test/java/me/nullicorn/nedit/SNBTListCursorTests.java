@@ -0,0 +1,114 @@
+package me.nullicorn.nedit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.NoSuchElementException;
+import me.nullicorn.nedit.exception.NBTParseException;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.TagType;
+import org.junit.jupiter.api.Test;
+
+class SNBTListCursorTests {
+
+    private static final String ITEMS = "{"
+                                        + "version: 3, skipped: {a: [1, 2], b: 'x}'}, "
+                                        + "data: {items: ["
+                                        + "{id: 'stone', Count: 1b}, "
+                                        + "{id: \"dirt\", Count: 64b}, "
+                                        + "{id: 'sand', Count: 2b}"
+                                        + "]}, after: 1}";
+
+    @Test
+    void seekList_shouldReadElementsOneAtATime() throws IOException {
+        SNBTListCursor cursor = SNBTReader.seekList(slowReader(ITEMS), "data.items");
+        assertNotNull(cursor);
+        assertNull(cursor.getContentType());
+
+        assertTrue(cursor.hasNext());
+        assertEquals("stone", cursor.nextCompound().getString("id"));
+        assertEquals(TagType.COMPOUND, cursor.getContentType());
+        assertEquals(1, cursor.skip(1));
+
+        NBTCompound last = cursor.nextCompound();
+        assertEquals("sand", last.getString("id"));
+        assertEquals(2, last.getByte("Count", (byte) 0));
+
+        assertFalse(cursor.hasNext());
+        assertEquals(3, cursor.getIndex());
+        assertEquals(0, cursor.skip(5));
+        assertThrows(NoSuchElementException.class, cursor::next);
+    }
+
+    @Test
+    void seekList_shouldReadRootLists() throws IOException {
+        SNBTListCursor cursor = SNBTReader.seekList(new StringReader("  [1, 2 , 3,]"), "");
+        assertEquals(1, cursor.next());
+        assertEquals(2, cursor.next());
+        assertEquals(3, cursor.next());
+        assertFalse(cursor.hasNext());
+
+        assertFalse(SNBTReader.seekList(new StringReader("[]"), "").hasNext());
+    }
+
+    @Test
+    void seekList_shouldReturnNullForMissingLists() throws IOException {
+        assertNull(SNBTReader.seekList(new StringReader(ITEMS), "data.missing"));
+        assertNull(SNBTReader.seekList(new StringReader(ITEMS), "missing.items"));
+    }
+
+    @Test
+    void seekList_shouldThrowForNonLists() {
+        assertThrows(NBTParseException.class,
+            () -> SNBTReader.seekList(new StringReader(ITEMS), "version"));
+        assertThrows(NBTParseException.class,
+            () -> SNBTReader.seekList(new StringReader(ITEMS), "version.items"));
+        assertThrows(NBTParseException.class,
+            () -> SNBTReader.seekList(new StringReader("{a: [I; 1]}"), "a"));
+    }
+
+    @Test
+    void next_shouldThrowForMixedTypes() throws IOException {
+        SNBTListCursor cursor = SNBTReader.seekList(new StringReader("[1, 2s]"), "");
+        cursor.next();
+        assertThrows(NBTParseException.class, cursor::next);
+    }
+
+    @Test
+    void next_shouldReadListsLargerThanTheBuffer() throws IOException {
+        int size = 20_000;
+        StringBuilder snbt = new StringBuilder("{big: [");
+        for (int i = 0; i < size; i++) {
+            snbt.append(i == 0 ? "" : ", ").append("{i: ").append(i).append('}');
+        }
+        StringBuilder longString = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            longString.append((char) ('a' + i % 26));
+        }
+        snbt.append("], long: ['").append(longString).append("']}");
+
+        SNBTListCursor cursor = SNBTReader.seekList(slowReader(snbt.toString()), "big");
+        for (int i = 0; i < size; i++) {
+            assertEquals(i, cursor.nextCompound().getInt("i", -1));
+        }
+        assertFalse(cursor.hasNext());
+
+        cursor = SNBTReader.seekList(slowReader(snbt.toString()), "long");
+        assertEquals(longString.toString(), cursor.next());
+    }
+
+    /**
+     * @return A reader that returns at most a few characters at a time.
+     */
+    private static Reader slowReader(String text) {
+        return new FilterReader(new StringReader(text)) {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 7));
+            }
+        };
+    }
+}
@@ -0,0 +1,243 @@
+package me.nullicorn.nedit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import me.nullicorn.nedit.exception.NBTParseException;
+import me.nullicorn.nedit.filter.FilterMode;
+import me.nullicorn.nedit.filter.NBTFilter;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.NBTList;
+import me.nullicorn.nedit.type.TagType;
+import org.junit.jupiter.api.Test;
+
+class SNBTReaderTests {
+
+    private static final String ITEM = "{"
+                                       + "id: \"minecraft:diamond_sword\", Count: 1b, Damage: 0s, "
+                                       + "tag: {"
+                                       + "display: {Name: 'Sword', "
+                                       + "Lore: [\"Very sharp\", 'Very shiny']}, "
+                                       + "ench: [{id: 0s, lvl: 1s}, {id: 1s, lvl: 2s}], "
+                                       + "Data: [I; 1, 2, 3], HideFlags: 254"
+                                       + "}}";
+
+    @Test
+    void readCompound_shouldOnlyReadIncludedTags() throws IOException {
+        NBTFilter filter = NBTFilter.with("id", "tag.display.Name");
+        NBTCompound result = SNBTReader.readCompound(ITEM, filter);
+
+        assertEquals(2, result.size());
+        assertEquals("minecraft:diamond_sword", result.getString("id"));
+        assertEquals(1, result.getCompound("tag").size());
+        assertEquals(1, result.getCompound("tag.display").size());
+        assertEquals("Sword", result.getString("tag.display.Name"));
+    }
+
+    @Test
+    void readCompound_shouldFilterCharSequences() throws IOException {
+        NBTFilter filter = NBTFilter.with("id", "tag.display.Name");
+        assertEquals(SNBTReader.readCompound(ITEM, filter),
+            SNBTReader.readCompound(new StringBuilder(ITEM), filter));
+    }
+
+    @Test
+    void readCompound_shouldSkipExcludedTags() throws IOException {
+        NBTFilter filter = NBTFilter.without("Count", "tag.display", "tag.Data");
+        NBTCompound result = SNBTReader.readCompound(ITEM, filter);
+
+        NBTCompound expected = SNBTReader.readCompound(ITEM);
+        expected.remove("Count");
+        expected.getCompound("tag").remove("display");
+        expected.getCompound("tag").remove("Data");
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void readCompound_shouldMatchUnfilteredForEmptyExclusionFilter() throws IOException {
+        NBTFilter filter = new NBTFilter(FilterMode.EXCLUDE);
+        assertEquals(SNBTReader.readCompound(ITEM), SNBTReader.readCompound(ITEM, filter));
+    }
+
+    @Test
+    void readCompound_shouldApplyFilterToListElements() throws IOException {
+        NBTFilter filter = NBTFilter.with("tag.ench.lvl", "tag.Data");
+        NBTCompound result = SNBTReader.readCompound(ITEM, filter);
+
+        NBTList enchantments = result.getList("tag.ench");
+        assertEquals(2, enchantments.size());
+        assertEquals(1, enchantments.getCompound(0).size());
+        assertEquals(2, enchantments.getCompound(1).getShort("lvl", (short) 0));
+        assertArrayEquals(new int[]{1, 2, 3}, result.getIntArray("tag.Data"));
+    }
+
+    @Test
+    void readCompound_shouldNotKeepLeavesOfPartiallyIncludedLists() throws IOException {
+        NBTCompound result = SNBTReader.readCompound(ITEM, NBTFilter.with("tag.display.Lore.x"));
+
+        NBTList lore = result.getList("tag.display.Lore");
+        assertTrue(lore.isEmpty());
+        assertEquals(TagType.STRING, lore.getContentType());
+    }
+
+    @Test
+    void readCompound_shouldApplyPredicates() throws IOException {
+        NBTFilter filter = NBTFilter.with("tag.ench.id");
+        filter.addPredicate("tag.ench.lvl", lvl -> (short) lvl > 1);
+        NBTCompound result = SNBTReader.readCompound(ITEM, filter);
+
+        NBTList enchantments = result.getList("tag.ench");
+        assertEquals(1, enchantments.size());
+        assertEquals(1, enchantments.getCompound(0).size());
+        assertEquals(1, enchantments.getCompound(0).getShort("id", (short) 0));
+
+        filter.addPredicate("Count", count -> (byte) count > 1);
+        assertNull(SNBTReader.readCompound(ITEM, filter));
+    }
+
+    @Test
+    void readCompound_shouldOnlyReadSelectedListElements() throws IOException {
+        NBTFilter filter = NBTFilter.with("tag.ench[1].id", "tag.display.Lore[0]");
+        NBTCompound result = SNBTReader.readCompound(ITEM, filter);
+
+        NBTList enchantments = result.getList("tag.ench");
+        assertEquals(1, enchantments.size());
+        assertEquals(1, enchantments.getCompound(0).size());
+        assertEquals(1, enchantments.getCompound(0).getShort("id", (short) 0));
+
+        NBTList lore = result.getList("tag.display.Lore");
+        assertEquals(1, lore.size());
+        assertEquals("Very sharp", lore.get(0));
+    }
+
+    @Test
+    void readCompound_shouldParseNumericLiterals() throws IOException {
+        NBTCompound result = SNBTReader.readCompound("{"
+                                                     + "i: -2147483648, b: 127b, s: -32768S, "
+                                                     + "l: 9223372036854775807L, z: 007, "
+                                                     + "f: 3.14159f, d: -.1d, "
+                                                     + "e: 0.30000000000000004D, "
+                                                     + "h: 1234567.891f, n: -0f"
+                                                     + "}");
+
+        assertEquals(Integer.MIN_VALUE, result.get("i"));
+        assertEquals((byte) 127, result.get("b"));
+        assertEquals(Short.MIN_VALUE, result.get("s"));
+        assertEquals(Long.MAX_VALUE, result.get("l"));
+        assertEquals(7, result.get("z"));
+        assertEquals(3.14159f, result.get("f"));
+        assertEquals(-.1d, result.get("d"));
+        assertEquals(0.30000000000000004d, result.get("e"));
+        assertEquals(1234567.891f, result.get("h"));
+        assertEquals(-0f, result.get("n"));
+    }
+
+    @Test
+    void readCompound_shouldParseExponentsAndNonFiniteDecimals() throws IOException {
+        NBTCompound result = SNBTReader.readCompound("{"
+                                                     + "a: 1.0E20d, b: 1.0E-5f, c: 2e+3D, "
+                                                     + "d: NaNf, e: NaND, f: Infinityf, "
+                                                     + "g: -Infinityd, h: +Infinityd, "
+                                                     + "i: 1e5b, j: 1e, k: -NaNf, l: Infinity"
+                                                     + "}");
+
+        assertEquals(1e20d, result.get("a"));
+        assertEquals(1e-5f, result.get("b"));
+        assertEquals(2e3d, result.get("c"));
+        assertEquals(Float.NaN, result.get("d"));
+        assertEquals(Double.NaN, result.get("e"));
+        assertEquals(Float.POSITIVE_INFINITY, result.get("f"));
+        assertEquals(Double.NEGATIVE_INFINITY, result.get("g"));
+        assertEquals(Double.POSITIVE_INFINITY, result.get("h"));
+        assertEquals("1e5b", result.get("i"));
+        assertEquals("1e", result.get("j"));
+        assertEquals("-NaNf", result.get("k"));
+        assertEquals("Infinity", result.get("l"));
+    }
+
+    @Test
+    void readCompound_shouldReadNonNumericLiteralsAsStrings() throws IOException {
+        NBTCompound result = SNBTReader.readCompound("{"
+                                                     + "a: 1.5, b: 1e5, c: 1.f, d: +, e: 12bs, "
+                                                     + "f: \"42\", g: minecraft.stone"
+                                                     + "}");
+
+        assertEquals("1.5", result.get("a"));
+        assertEquals("1e5", result.get("b"));
+        assertEquals("1.f", result.get("c"));
+        assertEquals("+", result.get("d"));
+        assertEquals("12bs", result.get("e"));
+        assertEquals("42", result.get("f"));
+        assertEquals("minecraft.stone", result.get("g"));
+    }
+
+    @Test
+    void readCompound_shouldThrowForOutOfRangeLiterals() {
+        assertThrows(NumberFormatException.class, () -> SNBTReader.readCompound("{b: 128b}"));
+        assertThrows(NumberFormatException.class, () -> SNBTReader.readCompound("{i: 2147483648}"));
+    }
+
+    @Test
+    void readCompound_shouldReadCharactersAndBytesLikeStrings() throws IOException {
+        String snbt = "  {name: \"Épée\", tags: [a, ' b '], data: [I; 1, 2], n: 5s}\n";
+        NBTCompound expected = SNBTReader.readCompound(snbt);
+        assertEquals("Épée", expected.getString("name"));
+        assertEquals(" b ", expected.getList("tags").get(1));
+
+        assertEquals(expected, SNBTReader.readCompound(new StringBuilder(snbt), false, false));
+        assertEquals(expected, SNBTReader.readCompound(snbt.toCharArray(), false, false));
+        assertEquals(expected,
+            SNBTReader.readCompound(snbt.getBytes(StandardCharsets.UTF_8), false, false));
+    }
+
+    @Test
+    void read_shouldThrowForUnterminatedStrings() {
+        assertThrows(IOException.class, () -> SNBTReader.read(new StringBuilder("{a: \"b}"),
+            false, false));
+    }
+
+    @Test
+    void read_shouldReadTypedArrays() throws IOException {
+        assertArrayEquals(new byte[]{-128, 0, 127},
+            (byte[]) SNBTReader.read("[B; -128b, 0B, 127b]"));
+        assertArrayEquals(new int[0], (int[]) SNBTReader.read("[I;]"));
+        assertArrayEquals(new long[]{Long.MIN_VALUE, 1, 2},
+            (long[]) SNBTReader.read("[L; -9223372036854775808L, 1l, +2L]"));
+
+        int[] large = new int[1000];
+        StringBuilder snbt = new StringBuilder("[I;");
+        for (int i = 0; i < large.length; i++) {
+            large[i] = i * 31 - 5000;
+            snbt.append(i == 0 ? "" : ",").append(large[i]);
+        }
+        assertArrayEquals(large, (int[]) SNBTReader.read(snbt.append(']').toString()));
+    }
+
+    @Test
+    void read_shouldOnlyTreatByteIntAndLongHeadersAsArrays() throws IOException {
+        NBTList semicolons = new NBTList(TagType.STRING);
+        semicolons.add(";");
+        semicolons.add("x");
+        assertEquals(semicolons, SNBTReader.read("[';', x]"));
+        assertEquals(semicolons, SNBTReader.read(SNBTWriter.write(semicolons)));
+
+        NBTCompound compound = new NBTCompound();
+        compound.put("list", semicolons);
+        compound.put("after", 1);
+        assertEquals(compound, SNBTReader.readCompound(compound.toString()));
+
+        NBTFilter filter = NBTFilter.with("after");
+        assertEquals(1, SNBTReader.readCompound(compound.toString(), filter).getInt("after", 0));
+    }
+
+    @Test
+    void read_shouldThrowForMismatchedArrayElements() {
+        assertThrows(NBTParseException.class, () -> SNBTReader.read("[B; 1]"));
+        assertThrows(NBTParseException.class, () -> SNBTReader.read("[I; 1b]"));
+        assertThrows(NBTParseException.class, () -> SNBTReader.read("[L; 1.5d]"));
+        assertThrows(NBTParseException.class, () -> SNBTReader.read("[I; '1']"));
+        assertThrows(NumberFormatException.class, () -> SNBTReader.read("[B; 128b]"));
+        assertThrows(NumberFormatException.class, () -> SNBTReader.read("[I; 2147483648]"));
+    }
+}
@@ -0,0 +1,121 @@
+package me.nullicorn.nedit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.NBTList;
+import me.nullicorn.nedit.type.TagType;
+import org.junit.jupiter.api.Test;
+
+class SNBTWriterTests {
+
+    @Test
+    void write_shouldWriteEachTagType() {
+        NBTCompound compound = new NBTCompound();
+        compound.put("b", (byte) 1);
+        compound.put("s", (short) 2);
+        compound.put("i", 3);
+        compound.put("l", 4L);
+        compound.put("f", 5.5f);
+        compound.put("d", 6.5d);
+        compound.put("str", "text");
+        compound.put("ba", new byte[]{1, -2});
+        compound.put("ia", new int[]{3, 4});
+        compound.put("la", new long[]{5});
+
+        NBTCompound parsed = assertDoesNotThrow(() -> SNBTReader.readCompound(
+            SNBTWriter.write(compound)));
+        assertEquals(compound, parsed);
+        assertEquals("[B;1b,-2b]", SNBTWriter.write(new byte[]{1, -2}));
+        assertEquals("[L;5l]", SNBTWriter.write(new long[]{5}));
+    }
+
+    @Test
+    void write_shouldQuoteAndEscapeStrings() {
+        assertEquals("\"plain\"", SNBTWriter.write("plain"));
+        assertEquals("'say \"hi\"'", SNBTWriter.write("say \"hi\""));
+        assertEquals("\"it's \\\"both\\\"\"", SNBTWriter.write("it's \"both\""));
+        assertEquals("\"back\\\\slash\"", SNBTWriter.write("back\\slash"));
+    }
+
+    @Test
+    void toString_shouldBeReadableBySnbtReader() throws IOException {
+        NBTCompound compound = new NBTCompound();
+        compound.put("backslash", "back\\slash");
+        compound.put("both", "it's \"both\"");
+        compound.put("trailing", "ends with \\");
+        compound.put("quote\"name", "'single'");
+
+        assertEquals(compound, SNBTReader.readCompound(compound.toString()));
+        assertEquals("back\\slash", SNBTReader.readCompound("{s:\"back\\slash\"}").get("s"));
+    }
+
+    @Test
+    void write_shouldOnlyQuoteNamesWhenNeeded() {
+        NBTCompound compound = new NBTCompound();
+        compound.put("minecraft:id", 1);
+        compound.put("", 2);
+        compound.put("Plain_name.1", 3);
+
+        String snbt = SNBTWriter.write(compound);
+        assertTrue(snbt.contains("\"minecraft:id\":1"));
+        assertTrue(snbt.contains("\"\":2"));
+        assertTrue(snbt.contains("Plain_name.1:3"));
+    }
+
+    @Test
+    void write_shouldPrettyPrint() {
+        NBTList items = new NBTList(TagType.COMPOUND);
+        NBTCompound item = new NBTCompound();
+        item.put("id", "stone");
+        items.add(item);
+
+        NBTList numbers = new NBTList(TagType.INT);
+        numbers.add(1);
+        numbers.add(2);
+
+        NBTCompound compound = new NBTCompound();
+        compound.put("items", items);
+        compound.put("numbers", numbers);
+        compound.put("empty", new NBTCompound());
+
+        String expected = "{\n"
+                          + "    items: [\n"
+                          + "        {\n"
+                          + "            id: \"stone\"\n"
+                          + "        }\n"
+                          + "    ],\n"
+                          + "    numbers: [1, 2],\n"
+                          + "    empty: {}\n"
+                          + "}";
+        String actual = SNBTWriter.write(compound, true);
+        for (String line : expected.split("\n")) {
+            assertTrue(actual.contains(line), "Missing line: " + line);
+        }
+        assertEquals(expected.length(), actual.length());
+        assertEquals(compound, assertDoesNotThrow(() -> SNBTReader.readCompound(actual)));
+        assertEquals("[I; 1, 2]", SNBTWriter.write(new int[]{1, 2}, true));
+    }
+
+    @Test
+    void write_shouldAppendToExistingDestinations() throws IOException {
+        NBTCompound compound = new NBTCompound();
+        compound.put("name", "value");
+        compound.put("list", new NBTList(TagType.END));
+
+        StringBuilder builder = new StringBuilder("prefix ");
+        SNBTWriter.write(compound, builder, false);
+        assertEquals("prefix " + compound, builder.toString());
+
+        StringWriter writer = new StringWriter();
+        SNBTWriter.write(compound, writer, true);
+        assertEquals(SNBTWriter.write(compound, true), writer.toString());
+    }
+
+    @Test
+    void write_shouldRejectNull() {
+        assertThrows(IllegalArgumentException.class, () -> SNBTWriter.write(null));
+    }
+}
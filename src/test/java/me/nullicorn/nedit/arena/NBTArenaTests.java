@@ -0,0 +1,125 @@
+package me.nullicorn.nedit.arena;
+
+import static me.nullicorn.nedit.IOTestHelper.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.NBTList;
+import me.nullicorn.nedit.type.TagType;
+import org.junit.jupiter.api.Test;
+
+class NBTArenaTests {
+
+    @Test
+    void store_shouldPreserveAllTags() throws IOException {
+        NBTCompound original = createTestCompound(true);
+
+        try (NBTArena arena = NBTArena.allocateDirect()) {
+            ArenaCompound stored = arena.store(original);
+
+            assertEquals(original.size(), stored.size());
+            assertEquals(original.keySet(), stored.keySet());
+            assertEquals(original, stored.toCompound());
+        }
+    }
+
+    @Test
+    void store_shouldNotReflectLaterChanges() throws IOException {
+        NBTCompound original = createTestCompound(true);
+
+        try (NBTArena arena = NBTArena.allocateDirect()) {
+            ArenaCompound stored = arena.store(original);
+            original.put("byte", (byte) 2);
+
+            assertEquals(TEST_BYTE, stored.getByte("byte", (byte) 0));
+        }
+    }
+
+    @Test
+    void getters_shouldSupportDotNotation() throws IOException {
+        try (NBTArena arena = NBTArena.allocateDirect()) {
+            ArenaCompound stored = arena.store(createTestCompound(true));
+
+            assertEquals(TEST_STRING, stored.getString("compound.string"));
+            assertEquals(TEST_DOUBLE, stored.getDouble("compound.double", 0));
+            assertArrayEquals(createTestIntArray(), stored.getIntArray("compound.int_array"));
+            assertTrue(stored.containsTag("compound.list_double", TagType.LIST));
+            assertFalse(stored.containsKey("compound.missing"));
+            assertFalse(stored.containsKey("byte.child"));
+            assertNull(stored.getCompound("byte"));
+            assertEquals(-1, stored.getInt("compound.string", -1));
+        }
+    }
+
+    @Test
+    void list_shouldReturnEveryElement() throws IOException {
+        NBTList strings = new NBTList(TagType.STRING);
+        strings.add("a");
+        strings.add("b");
+        strings.add("c");
+        NBTCompound original = createTestCompound(true);
+        original.put("strings", strings);
+
+        try (NBTArena arena = NBTArena.allocateDirect()) {
+            ArenaCompound stored = arena.store(original);
+
+            ArenaList doubles = stored.getList("list_double");
+            assertEquals(TagType.DOUBLE, doubles.getContentType());
+            assertEquals(createTestDoubleList().size(), doubles.size());
+            assertEquals(createTestDoubleList().get(2), doubles.getDouble(2));
+
+            ArenaList storedStrings = stored.getList("strings");
+            assertEquals("b", storedStrings.getString(1));
+            assertEquals("c", storedStrings.get(2));
+            assertThrows(IllegalStateException.class, () -> storedStrings.getInt(0));
+            assertThrows(IndexOutOfBoundsException.class, () -> storedStrings.getString(3));
+
+            ArenaList compounds = stored.getList("compound.list_compound");
+            assertEquals("Entry #2", compounds.getCompound(1).getString("name"));
+        }
+    }
+
+    @Test
+    void store_shouldSupportCompoundsLargerThanChunkSize() throws IOException {
+        NBTCompound original = createTestCompound(true);
+
+        try (NBTArena arena = NBTArena.allocateDirect(16)) {
+            ArenaCompound first = arena.store(original);
+            ArenaCompound second = arena.store(original);
+
+            assertEquals(original, first.toCompound());
+            assertEquals(original, second.toCompound());
+            assertTrue(arena.getAllocatedBytes() >= arena.getUsedBytes());
+        }
+    }
+
+    @Test
+    void map_shouldStoreInFile() throws IOException {
+        Path file = Files.createTempFile("nedit-arena", ".bin");
+        try (NBTArena arena = NBTArena.map(file, 1024)) {
+            NBTCompound original = createTestCompound(true);
+            ArenaCompound stored = arena.store(original);
+
+            assertEquals(original, stored.toCompound());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void close_shouldPreventFurtherAccess() throws IOException {
+        NBTArena arena = NBTArena.allocateDirect();
+        ArenaCompound stored = arena.store(createTestCompound(true));
+        ArenaList list = stored.getList("list_double");
+        arena.close();
+
+        assertTrue(arena.isClosed());
+        assertThrows(IllegalStateException.class, stored::size);
+        assertThrows(IllegalStateException.class, () -> stored.get("byte"));
+        assertThrows(IllegalStateException.class, () -> list.get(0));
+        assertThrows(IllegalStateException.class, () -> arena.store(new NBTCompound()));
+    }
+}
@@ -0,0 +1,524 @@
+package me.nullicorn.nedit.filter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import me.nullicorn.nedit.NBTWriter;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.NBTList;
+import me.nullicorn.nedit.type.TagType;
+import org.junit.jupiter.api.Test;
+
+class FilteredNBTInputStreamTests {
+
+    @Test
+    void readFully_shouldOnlyReadIncludedTags() throws IOException {
+        NBTCompound result = readFiltered(NBTFilter.with("id", "tag.display.Name"));
+
+        NBTCompound expected = new NBTCompound();
+        expected.put("id", "minecraft:diamond_sword");
+        NBTCompound display = new NBTCompound();
+        display.put("Name", "Sword");
+        NBTCompound tag = new NBTCompound();
+        tag.put("display", display);
+        expected.put("tag", tag);
+
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void readFully_shouldSkipExcludedTags() throws IOException {
+        NBTCompound result = readFiltered(NBTFilter.without("Count", "tag.display.Lore"));
+
+        NBTCompound expected = createItem();
+        expected.remove("Count");
+        expected.getCompound("tag.display").remove("Lore");
+
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void readFully_shouldApplyFilterToListElements() throws IOException {
+        NBTCompound result = readFiltered(NBTFilter.with("tag.ench.id"));
+
+        NBTList enchantments = result.getList("tag.ench");
+        assertEquals(2, enchantments.size());
+        for (int i = 0; i < enchantments.size(); i++) {
+            NBTCompound enchantment = enchantments.getCompound(i);
+            assertEquals(1, enchantment.size());
+            assertTrue(enchantment.containsTag("id", TagType.SHORT));
+        }
+    }
+
+    @Test
+    void readFully_shouldReadNothingForEmptyInclusionFilter() throws IOException {
+        assertTrue(readFiltered(new NBTFilter(FilterMode.INCLUDE)).isEmpty());
+    }
+
+    @Test
+    void readFully_shouldReadEverythingForEmptyExclusionFilter() throws IOException {
+        assertEquals(createItem(), readFiltered(new NBTFilter(FilterMode.EXCLUDE)));
+    }
+
+    @Test
+    void readFully_shouldMatchAnyNameForSingleWildcard() throws IOException {
+        NBTCompound result = readFiltered(NBTFilter.with("tag.*.Name"));
+
+        assertEquals("Sword", result.getString("tag.display.Name"));
+        assertEquals(1, result.getCompound("tag.display").size());
+        assertFalse(result.containsKey("tag.HideFlags"));
+        assertFalse(result.containsKey("id"));
+    }
+
+    @Test
+    void readFully_shouldMatchAnyDepthForRecursiveWildcard() throws IOException {
+        NBTCompound result = readFiltered(NBTFilter.with("**.id"));
+
+        assertEquals("minecraft:diamond_sword", result.getString("id"));
+        NBTList enchantments = result.getList("tag.ench");
+        assertEquals(2, enchantments.size());
+        assertEquals(1, enchantments.getCompound(1).size());
+        assertEquals(1, enchantments.getCompound(1).getShort("id", (short) 0));
+
+        assertFalse(result.containsKey("Count"));
+        assertFalse(result.containsKey("tag.HideFlags"));
+        assertTrue(result.getList("tag.display.Lore").isEmpty());
+    }
+
+    @Test
+    void readFully_shouldExcludeWildcardMatches() throws IOException {
+        NBTCompound result = readFiltered(NBTFilter.without("**.lvl", "tag.*.Lore"));
+
+        NBTCompound expected = createItem();
+        expected.getCompound("tag.display").remove("Lore");
+        expected.getList("tag.ench").forEachCompound(enchantment -> enchantment.remove("lvl"));
+
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void readFully_shouldSkipFixedWidthListsAtOnce() throws IOException {
+        NBTList positions = new NBTList(TagType.INT);
+        for (int i = 0; i < 10000; i++) {
+            positions.add(i);
+        }
+        NBTCompound compound = new NBTCompound();
+        compound.put("Positions", positions);
+        compound.put("id", "minecraft:stone");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NBTWriter.write(compound, out, false);
+        CountingInputStream in = new CountingInputStream(out.toByteArray(), true);
+
+        NBTCompound result = new FilteredNBTInputStream(in).readFully(NBTFilter.with("id"));
+
+        assertEquals(1, result.size());
+        assertEquals("minecraft:stone", result.getString("id"));
+        assertEquals(1, in.skipCalls);
+    }
+
+    @Test
+    void readFully_shouldSkipWhenStreamCannotSkip() throws IOException {
+        NBTCompound item = createItem();
+        item.put("Data", new long[4096]);
+        item.put("Bytes", new byte[10000]);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NBTWriter.write(item, out, false);
+        CountingInputStream in = new CountingInputStream(out.toByteArray(), false);
+
+        NBTCompound result = new FilteredNBTInputStream(in)
+            .readFully(NBTFilter.without("Data", "Bytes", "tag.ench"));
+
+        NBTCompound expected = createItem();
+        expected.getCompound("tag").remove("ench");
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void readFully_shouldFailIfStreamEndsWhileSkipping() throws IOException {
+        NBTCompound compound = new NBTCompound();
+        compound.put("Data", new int[100]);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NBTWriter.write(compound, out, false);
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 50);
+
+        FilteredNBTInputStream in = new FilteredNBTInputStream(new ByteArrayInputStream(truncated));
+        assertThrows(EOFException.class, () -> in.readFully(NBTFilter.without("Data")));
+    }
+
+    @Test
+    void readFully_shouldStopOnceIncludedTagsAreRead() throws IOException {
+        // "a" is always written before "b", since names are stored in a HashMap.
+        NBTCompound compound = new NBTCompound();
+        compound.put("a", "value");
+        compound.put("b", new long[1000]);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NBTWriter.write(compound, out, false);
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+
+        NBTCompound result = new FilteredNBTInputStream(in).readFully(NBTFilter.with("a"), false);
+
+        assertEquals(1, result.size());
+        assertEquals("value", result.getString("a"));
+        assertTrue(in.available() > 1000 * Long.BYTES);
+    }
+
+    @Test
+    void readFully_shouldDrainOnceIncludedTagsAreRead() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NBTWriter.write(createItem(), out, false);
+        NBTWriter.write(createItem(), out, false);
+
+        FilteredNBTInputStream in = new FilteredNBTInputStream(
+            new ByteArrayInputStream(out.toByteArray()));
+        NBTFilter filter = NBTFilter.with("id", "Count");
+
+        for (int i = 0; i < 2; i++) {
+            NBTCompound result = in.readFully(filter);
+            assertEquals(2, result.size());
+            assertEquals("minecraft:diamond_sword", result.getString("id"));
+            assertEquals(1, result.getByte("Count", (byte) 0));
+        }
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void readFully_shouldNotReadMoreThanMatchLimit() throws IOException {
+        NBTFilter filter = NBTFilter.with("tag.ench.id");
+        filter.setMatchLimit(1);
+        NBTCompound result = readFiltered(filter);
+
+        NBTList enchantments = result.getList("tag.ench");
+        assertEquals(1, enchantments.size());
+        assertEquals(0, enchantments.getCompound(0).getShort("id", (short) -1));
+        assertEquals(1, result.size());
+        assertEquals(1, result.getCompound("tag").size());
+    }
+
+    @Test
+    void setMatchLimit_shouldRejectNegativeLimits() {
+        NBTFilter filter = NBTFilter.with("id");
+        assertThrows(IllegalArgumentException.class, () -> filter.setMatchLimit(-1));
+        assertEquals(0, filter.getMatchLimit());
+    }
+
+    @Test
+    void readFully_shouldLeaveOutListElementsThatFailPredicate() throws IOException {
+        NBTList inventory = new NBTList(TagType.COMPOUND);
+        String[] ids = {"minecraft:dirt", "minecraft:diamond_sword", "minecraft:stone"};
+        for (String id : ids) {
+            NBTCompound item = new NBTCompound();
+            item.put("id", id);
+            item.put("Count", (byte) 1);
+            inventory.add(item);
+        }
+        NBTCompound player = new NBTCompound();
+        player.put("Inventory", inventory);
+
+        NBTFilter filter = NBTFilter.with("Inventory.Count");
+        filter.addPredicate("Inventory.id", "minecraft:diamond_sword"::equals);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NBTWriter.write(player, out, false);
+        NBTCompound result = new FilteredNBTInputStream(new ByteArrayInputStream(out.toByteArray()))
+            .readFully(filter);
+
+        NBTList matches = result.getList("Inventory");
+        assertEquals(1, matches.size());
+        // The ID is tested, but not included by the filter.
+        assertEquals(1, matches.getCompound(0).size());
+        assertEquals(1, matches.getCompound(0).getByte("Count", (byte) 0));
+    }
+
+    @Test
+    void readFully_shouldApplyPredicatesInsideIncludedTags() throws IOException {
+        NBTFilter filter = NBTFilter.with("tag");
+        filter.addPredicate("tag.ench.lvl", lvl -> (short) lvl > 1);
+        NBTCompound result = readFiltered(filter);
+
+        NBTList enchantments = result.getList("tag.ench");
+        assertEquals(1, enchantments.size());
+        assertEquals(2, enchantments.getCompound(0).getShort("lvl", (short) 0));
+        assertEquals(createItem().getCompound("tag.display"), result.getCompound("tag.display"));
+    }
+
+    @Test
+    void readFully_shouldApplyPredicatesWithMatchLimit() throws IOException {
+        NBTList items = new NBTList(TagType.COMPOUND);
+        String[] ids = {"a", "b", "c"};
+        for (int i = 0; i < ids.length; i++) {
+            NBTCompound item = new NBTCompound();
+            item.put("id", ids[i]);
+            item.put("n", i + 1);
+            items.add(item);
+        }
+        NBTCompound compound = new NBTCompound();
+        compound.put("Items", items);
+
+        NBTFilter filter = NBTFilter.with("Items");
+        filter.addPredicate("Items.id", "b"::equals);
+        filter.setMatchLimit(1);
+        NBTCompound result = readFiltered(compound, filter);
+
+        NBTList matches = result.getList("Items");
+        assertEquals(1, matches.size());
+        assertEquals(items.getCompound(1), matches.getCompound(0));
+    }
+
+    @Test
+    void readFully_shouldReturnNullIfRootFailsPredicate() throws IOException {
+        NBTFilter filter = new NBTFilter(FilterMode.EXCLUDE);
+        filter.addPredicate("Count", count -> (byte) count > 1);
+        assertNull(readFiltered(filter));
+
+        filter.removePredicates("Count");
+        filter.addPredicate("tag.ench", enchantments -> ((NBTList) enchantments).size() == 2);
+        assertEquals(createItem(), readFiltered(filter));
+    }
+
+    @Test
+    void readFully_shouldLeaveOutCompoundsMissingPredicateTag() throws IOException {
+        NBTFilter filter = new NBTFilter(FilterMode.EXCLUDE);
+        filter.addPredicate("tag.display.color", color -> true);
+        NBTCompound result = readFiltered(filter);
+
+        NBTCompound expected = createItem();
+        expected.getCompound("tag").remove("display");
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void addPredicate_shouldRejectWildcardAtEnd() {
+        NBTFilter filter = NBTFilter.with("id");
+        assertThrows(IllegalArgumentException.class, () -> filter.addPredicate("tag.*", v -> true));
+        assertThrows(IllegalArgumentException.class, () -> filter.addPredicate("**", v -> true));
+    }
+
+    @Test
+    void readFully_shouldOnlyReadSelectedListElements() throws IOException {
+        NBTCompound player = createPlayer();
+
+        NBTCompound hotbar = readFiltered(player, NBTFilter.with("Inventory[0..8].id"));
+        NBTList items = hotbar.getList("Inventory");
+        assertEquals(9, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(1, items.getCompound(i).size());
+            assertEquals("item" + i, items.getCompound(i).getString("id"));
+        }
+
+        NBTCompound single = readFiltered(player, NBTFilter.with("Inventory[3]"));
+        assertEquals(1, single.getList("Inventory").size());
+        assertEquals(player.getList("Inventory").get(3), single.getList("Inventory").get(0));
+    }
+
+    @Test
+    void readFully_shouldSkipSelectedListElementsWhenExcluded() throws IOException {
+        NBTCompound result = readFiltered(createPlayer(), NBTFilter.without("Inventory[1..]"));
+
+        NBTList items = result.getList("Inventory");
+        assertEquals(1, items.size());
+        assertEquals("item0", items.getCompound(0).getString("id"));
+        assertEquals(createPlayer().getList("Position"), result.getList("Position"));
+    }
+
+    @Test
+    void readFully_shouldSelectElementsOfLeafLists() throws IOException {
+        NBTCompound result = readFiltered(createPlayer(), NBTFilter.with("Position[1..2]"));
+
+        NBTList position = result.getList("Position");
+        assertEquals(2, position.size());
+        assertEquals(64.0, position.get(0));
+        assertEquals(-8.5, position.get(1));
+    }
+
+    @Test
+    void readFully_shouldNotMatchListElementsWithNameWildcards() throws IOException {
+        NBTCompound player = createPlayer();
+
+        NBTCompound direct = readFiltered(player, NBTFilter.with("Inventory.id"));
+        assertEquals(direct, readFiltered(player, NBTFilter.with("Inventory[*].id")));
+        assertEquals(36, direct.getList("Inventory").size());
+
+        NBTCompound wildcard = readFiltered(player, NBTFilter.with("Inventory.*.id"));
+        wildcard.getList("Inventory").forEachCompound(item -> assertTrue(item.isEmpty()));
+    }
+
+    @Test
+    void readFully_shouldSelectAnyIndexOfNestedLists() throws IOException {
+        NBTList grid = new NBTList(TagType.LIST);
+        for (int row = 0; row < 3; row++) {
+            NBTList cells = new NBTList(TagType.INT);
+            cells.add(row * 10);
+            cells.add(row * 10 + 1);
+            grid.add(cells);
+        }
+        NBTCompound compound = new NBTCompound();
+        compound.put("Grid", grid);
+
+        NBTList result = readFiltered(compound, NBTFilter.with("Grid[*][0]")).getList("Grid");
+        assertEquals(3, result.size());
+        for (int row = 0; row < 3; row++) {
+            NBTList cells = result.getList(row);
+            assertEquals(1, cells.size());
+            assertEquals(row * 10, cells.get(0));
+        }
+    }
+
+    @Test
+    void seekList_shouldReadElementsOneAtATime() throws IOException {
+        NBTCompound data = new NBTCompound();
+        data.put("items", createPlayer().getList("Inventory"));
+        NBTCompound root = createItem();
+        root.put("data", data);
+
+        ListCursor cursor = openStream(root).seekList("data.items");
+        assertNotNull(cursor);
+        assertEquals(TagType.COMPOUND, cursor.getContentType());
+        assertEquals(36, cursor.size());
+
+        for (int i = 0; i < 36; i++) {
+            assertTrue(cursor.hasNext());
+            assertEquals(data.getList("items").get(i), cursor.nextCompound());
+        }
+        assertFalse(cursor.hasNext());
+        assertThrows(NoSuchElementException.class, cursor::next);
+    }
+
+    @Test
+    void seekList_shouldSkipAndFilterElements() throws IOException {
+        FilteredNBTInputStream in = openStream(createPlayer());
+        ListCursor cursor = in.seekList("Inventory", NBTFilter.with("id"));
+
+        assertEquals(30, cursor.skip(30));
+        assertEquals(6, cursor.remaining());
+
+        NBTCompound expected = new NBTCompound();
+        expected.put("id", "item30");
+        assertEquals(expected, cursor.nextCompound());
+
+        assertEquals(5, cursor.skip(10));
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test
+    void seekList_shouldReturnNullForMissingList() throws IOException {
+        assertNull(openStream(createItem()).seekList("tag.Enchantments"));
+        assertNull(openStream(createItem()).seekList("missing.ench"));
+    }
+
+    @Test
+    void seekList_shouldThrowIfTagIsNotList() {
+        assertThrows(IOException.class, () -> openStream(createItem()).seekList("tag.display"));
+        assertThrows(IOException.class, () -> openStream(createItem()).seekList("id.ench"));
+    }
+
+    @Test
+    void compile_shouldBeCachedUntilFilterChanges() {
+        NBTFilter filter = NBTFilter.with("id");
+        FilterNode compiled = filter.compile();
+        assertSame(compiled, filter.compile());
+        assertSame(FilterNode.ALL, compiled.child("id"));
+        assertSame(FilterNode.NONE, compiled.child("Count"));
+
+        filter.addTags("Count");
+        assertNotSame(compiled, filter.compile());
+        assertSame(FilterNode.ALL, filter.compile().child("Count"));
+
+        filter.removeFilteredTags("Count");
+        assertSame(FilterNode.NONE, filter.compile().child("Count"));
+    }
+
+    static NBTCompound readFiltered(NBTFilter filter) throws IOException {
+        return readFiltered(createItem(), filter);
+    }
+
+    static NBTCompound readFiltered(NBTCompound compound, NBTFilter filter) throws IOException {
+        return openStream(compound).readFully(filter);
+    }
+
+    static NBTCompound createItem() {
+        NBTList lore = new NBTList(TagType.STRING);
+        lore.add("Very sharp");
+        lore.add("Very shiny");
+
+        NBTCompound display = new NBTCompound();
+        display.put("Name", "Sword");
+        display.put("Lore", lore);
+
+        NBTList enchantments = new NBTList(TagType.COMPOUND);
+        for (short i = 0; i < 2; i++) {
+            NBTCompound enchantment = new NBTCompound();
+            enchantment.put("id", i);
+            enchantment.put("lvl", (short) (i + 1));
+            enchantments.add(enchantment);
+        }
+
+        NBTCompound tag = new NBTCompound();
+        tag.put("display", display);
+        tag.put("ench", enchantments);
+        tag.put("HideFlags", 254);
+
+        NBTCompound item = new NBTCompound();
+        item.put("id", "minecraft:diamond_sword");
+        item.put("Count", (byte) 1);
+        item.put("Damage", (short) 0);
+        item.put("tag", tag);
+        return item;
+    }
+
+    static FilteredNBTInputStream openStream(NBTCompound compound) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NBTWriter.write(compound, out, false);
+        return new FilteredNBTInputStream(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    static NBTCompound createPlayer() {
+        NBTList inventory = new NBTList(TagType.COMPOUND);
+        for (int i = 0; i < 36; i++) {
+            NBTCompound item = new NBTCompound();
+            item.put("id", "item" + i);
+            item.put("Slot", (byte) i);
+            item.put("Count", (byte) 1);
+            inventory.add(item);
+        }
+
+        NBTList position = new NBTList(TagType.DOUBLE);
+        position.add(12.5);
+        position.add(64.0);
+        position.add(-8.5);
+
+        NBTCompound player = new NBTCompound();
+        player.put("Inventory", inventory);
+        player.put("Position", position);
+        return player;
+    }
+
+    /**
+     * A stream that counts calls to {@link #skip(long)}, and can pretend that skipping is not
+     * supported.
+     */
+    private static final class CountingInputStream extends ByteArrayInputStream {
+
+        private final boolean canSkip;
+        private       int     skipCalls;
+
+        CountingInputStream(byte[] bytes, boolean canSkip) {
+            super(bytes);
+            this.canSkip = canSkip;
+        }
+
+        @Override
+        public synchronized long skip(long n) {
+            skipCalls++;
+            return canSkip ? super.skip(n) : 0;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package me.nullicorn.nedit.filter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import me.nullicorn.nedit.NBTWriter;
+import me.nullicorn.nedit.type.NBTCompound;
+import me.nullicorn.nedit.type.NBTList;
+import org.junit.jupiter.api.Test;
+
+class NBTProfileTests {
+
+    @Test
+    void read_shouldLearnFilterFromAccessedTags() throws IOException {
+        NBTProfile profile = new NBTProfile(2);
+        byte[] data = encodeItem();
+
+        for (int i = 0; i < 2; i++) {
+            NBTCompound item = profile.read(data);
+            assertFalse(profile.isWarmedUp());
+            assertNull(profile.getFilter());
+
+            assertEquals("minecraft:diamond_sword", item.getString("id"));
+            assertEquals("Sword", item.getCompound("tag").getCompound("display").getString("Name"));
+        }
+
+        NBTCompound item = profile.read(data);
+        assertTrue(profile.isWarmedUp());
+        assertEquals(filteredTags("id", "tag.display.Name"), filteredTags(profile.getFilter()));
+
+        assertEquals("minecraft:diamond_sword", item.getString("id"));
+        assertEquals("Sword", item.getString("tag.display.Name"));
+        assertEquals(0, profile.getFallbackCount());
+    }
+
+    @Test
+    void read_shouldFallBackForUnrecordedTags() throws IOException {
+        NBTProfile profile = new NBTProfile(0);
+        byte[] data = encodeItem();
+
+        NBTCompound item = profile.read(data);
+        assertEquals(1, item.getByte("Count", (byte) 0));
+        assertEquals(1, profile.getFallbackCount());
+
+        // Tags accessed after falling back are recorded without falling back again.
+        NBTList lore = item.getCompound("tag.display").getList("Lore");
+        assertEquals(2, lore.size());
+        assertEquals(1, profile.getFallbackCount());
+
+        NBTCompound next = profile.read(data);
+        assertEquals(1, next.getByte("Count", (byte) 0));
+        assertEquals("Very sharp", next.getList("tag.display.Lore").get(0));
+        assertEquals(1, profile.getFallbackCount());
+        assertEquals(filteredTags("Count", "tag.display.Lore"), filteredTags(profile.getFilter()));
+    }
+
+    @Test
+    void read_shouldFallBackForNestedTags() throws IOException {
+        NBTProfile profile = new NBTProfile(1);
+        byte[] data = encodeItem();
+        profile.read(data).getString("tag.display.Name");
+
+        NBTCompound item = profile.read(data);
+        NBTCompound display = item.getCompound("tag.display");
+        assertEquals(createItem().getList("tag.display.Lore"), item.getList("tag.display.Lore"));
+        assertEquals(createItem().getList("tag.display.Lore"), display.getList("Lore"));
+        assertEquals(1, profile.getFallbackCount());
+    }
+
+    @Test
+    void read_shouldFallBackWhenCompoundIsUsedWhole() throws IOException {
+        NBTProfile profile = new NBTProfile(1);
+        byte[] data = encodeItem();
+        profile.read(data).getString("id");
+
+        NBTCompound item = profile.read(data);
+        assertEquals(createItem(), item);
+        assertEquals(createItem().toString(), item.toString());
+        assertEquals(FilterMode.EXCLUDE, profile.getFilter().getMode());
+    }
+
+    @Test
+    void read_shouldFallBackWhenCompoundIsModified() throws IOException {
+        NBTProfile profile = new NBTProfile(1);
+        byte[] data = encodeItem();
+        profile.read(data).getCompound("tag").getInt("HideFlags", 0);
+
+        NBTCompound tag = profile.read(data).getCompound("tag");
+        tag.put("Unbreakable", (byte) 1);
+
+        NBTCompound expected = createItem().getCompound("tag");
+        expected.put("Unbreakable", (byte) 1);
+        assertEquals(expected, tag);
+    }
+
+    @Test
+    void constructor_shouldRejectNegativeWarmUp() {
+        assertThrows(IllegalArgumentException.class, () -> new NBTProfile(-1));
+    }
+
+    static Set<FilteredTag> filteredTags(String... names) {
+        return filteredTags(NBTFilter.with(names));
+    }
+
+    static Set<FilteredTag> filteredTags(NBTFilter filter) {
+        return new HashSet<>(filter.getFilteredTags());
+    }
+
+    static byte[] encodeItem() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NBTWriter.write(createItem(), out, false);
+        return out.toByteArray();
+    }
+
+    static NBTCompound createItem() {
+        return FilteredNBTInputStreamTests.createItem();
+    }
+}
@@ -0,0 +1,93 @@
+package me.nullicorn.nedit.filter;
+
+import static me.nullicorn.nedit.filter.FilteredNBTInputStreamTests.createItem;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import me.nullicorn.nedit.NBTWriter;
+import me.nullicorn.nedit.type.NBTList;
+import org.junit.jupiter.api.Test;
+
+class NBTProjectionTests {
+
+    @Test
+    void project_shouldPassPrimitivesToTheirOverloads() throws IOException {
+        List<String> received = new ArrayList<>();
+        ProjectionSink sink = new ProjectionSink() {
+            @Override
+            public void accept(int path, Object value) {
+                received.add(path + "=" + value);
+            }
+
+            @Override
+            public void accept(int path, byte value) {
+                received.add(path + "=" + value + "b");
+            }
+
+            @Override
+            public void accept(int path, short value) {
+                received.add(path + "=" + value + "s");
+            }
+        };
+
+        project(NBTProjection.of("id", "Count", "tag.ench.lvl"), sink);
+
+        assertEquals(4, received.size());
+        assertTrue(received.contains("0=minecraft:diamond_sword"));
+        assertTrue(received.contains("1=1b"));
+        assertTrue(received.contains("2=1s"));
+        assertTrue(received.indexOf("2=1s") < received.indexOf("2=2s"));
+    }
+
+    @Test
+    void project_shouldFillColumns() throws IOException {
+        NBTProjection projection = NBTProjection.of("tag.display.Name", "missing", "tag.*.Lore");
+        Object[] columns = {"stale", "stale", "stale", "untouched"};
+
+        project(projection, columns);
+
+        assertEquals("Sword", columns[0]);
+        assertNull(columns[1]);
+        assertEquals(2, ((NBTList) columns[2]).size());
+        assertEquals("untouched", columns[3]);
+    }
+
+    @Test
+    void project_shouldReportEachMatchingPath() throws IOException {
+        List<Integer> paths = new ArrayList<>();
+        project(NBTProjection.of("**.id", "id"), (path, value) -> paths.add(path));
+
+        // The root "id" matches both paths, and the two enchantment IDs only match the first.
+        assertEquals(4, paths.size());
+        assertEquals(3, paths.stream().filter(path -> path == 0).count());
+    }
+
+    @Test
+    void project_shouldRejectTooFewColumns() {
+        NBTProjection projection = NBTProjection.of("id", "Count");
+        assertThrows(IllegalArgumentException.class, () -> project(projection, new Object[1]));
+    }
+
+    @Test
+    void of_shouldRejectNullPaths() {
+        assertThrows(NullPointerException.class, () -> NBTProjection.of("id", null));
+    }
+
+    private static void project(NBTProjection projection, ProjectionSink sink) throws IOException {
+        createStream().project(projection, sink);
+    }
+
+    private static void project(NBTProjection projection, Object[] columns) throws IOException {
+        createStream().project(projection, columns);
+    }
+
+    private static FilteredNBTInputStream createStream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NBTWriter.write(createItem(), out, false);
+        return new FilteredNBTInputStream(new ByteArrayInputStream(out.toByteArray()));
+    }
+}
@@ -0,0 +1,104 @@
+package me.nullicorn.nedit.type;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentNBTCompoundTests {
+
+    private static final int THREADS    = 8;
+    private static final int INCREMENTS = 10_000;
+
+    @Test
+    void merge_shouldBeAtomicAcrossThreads() throws Exception {
+        ConcurrentNBTCompound compound = new ConcurrentNBTCompound();
+
+        runOnManyThreads(() -> {
+            for (int i = 0; i < INCREMENTS; i++) {
+                compound.merge("count", 1, (a, b) -> (Integer) a + (Integer) b);
+            }
+        });
+
+        assertEquals(THREADS * INCREMENTS, compound.getInt("count", 0));
+    }
+
+    @Test
+    void compute_shouldBeAtomicAcrossThreads() throws Exception {
+        ConcurrentNBTCompound compound = new ConcurrentNBTCompound();
+
+        runOnManyThreads(() -> {
+            for (int i = 0; i < INCREMENTS; i++) {
+                compound.compute("count", (name, value) -> value == null
+                    ? 1L
+                    : (Long) value + 1);
+            }
+        });
+
+        assertEquals(THREADS * INCREMENTS, compound.getLong("count", 0));
+    }
+
+    @Test
+    void compute_shouldThrowIfResultIsInvalid() {
+        ConcurrentNBTCompound compound = new ConcurrentNBTCompound();
+        compound.put("value", 1);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> compound.compute("value", (name, value) -> new Object())
+        );
+        assertEquals(1, compound.getInt("value", 0));
+    }
+
+    @Test
+    void iterator_shouldNotThrowIfModifiedConcurrently() {
+        ConcurrentNBTCompound compound = new ConcurrentNBTCompound();
+        for (int i = 0; i < 100; i++) {
+            compound.put("tag" + i, i);
+        }
+
+        assertDoesNotThrow(() -> {
+            for (Map.Entry<String, Object> entry : compound.entrySet()) {
+                compound.remove(entry.getKey());
+                compound.put(entry.getKey() + "_new", entry.getValue());
+            }
+        });
+    }
+
+    @Test
+    void deepCopy_shouldBeConcurrentAndIndependent() {
+        NBTCompound nested = new NBTCompound();
+        nested.put("value", "original");
+
+        ConcurrentNBTCompound compound = new ConcurrentNBTCompound();
+        compound.put("nested", nested);
+
+        ConcurrentNBTCompound copy = compound.deepCopy();
+        assertEquals(compound, copy);
+
+        copy.getCompound("nested").put("value", "changed");
+        assertEquals("original", compound.getString("nested.value"));
+        assertEquals("changed", copy.getString("nested.value"));
+    }
+
+    private static void runOnManyThreads(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(task));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -536,6 +536,172 @@ class NBTCompoundTests {
         });
     }
 
+    // hashCode() & equals()
+
+    @Test
+    void hashCode_shouldChangeWhenCompoundIsModified() {
+        NBTCompound compound = createNestedCompound();
+        NBTCompound copy = createNestedCompound();
+        assertEquals(compound.hashCode(), copy.hashCode());
+
+        compound.put("top", 2);
+        assertNotEquals(compound.hashCode(), copy.hashCode());
+        assertNotEquals(compound, copy);
+
+        compound.put("top", 1);
+        assertEquals(compound.hashCode(), copy.hashCode());
+        assertEquals(compound, copy);
+    }
+
+    @Test
+    void hashCode_shouldChangeWhenNestedTagIsModified() {
+        NBTCompound compound = createNestedCompound();
+        NBTCompound copy = createNestedCompound();
+        assertEquals(compound.hashCode(), copy.hashCode());
+
+        compound.getCompound("child").put("inner", "changed");
+        assertNotEquals(compound.hashCode(), copy.hashCode());
+        assertNotEquals(compound, copy);
+
+        compound.getCompound("child").put("inner", "value");
+        compound.getByteArray("child.bytes")[0] = 9;
+        assertNotEquals(compound.hashCode(), copy.hashCode());
+        assertNotEquals(compound, copy);
+    }
+
+    @Test
+    void hashCode_shouldMatchMapContract() {
+        NBTCompound compound = new NBTCompound();
+        compound.put("string", "value");
+        compound.put("int", 5);
+        compound.put("list", new NBTList(TagType.STRING));
+
+        Map<String, Object> map = new HashMap<>(compound);
+        assertEquals(map.hashCode(), compound.hashCode());
+    }
+
+    // deepCopy()
+
+    @Test
+    void deepCopy_shouldBeEqualToOriginal() {
+        NBTCompound original = createNestedCompound();
+        NBTCompound copy = original.deepCopy();
+
+        assertEquals(original, copy);
+        assertEquals(original.hashCode(), copy.hashCode());
+    }
+
+    @Test
+    void deepCopy_shouldBeEqualToFrozenOriginalUntilModified() {
+        NBTCompound original = new NBTCompound();
+        original.put("name", "value");
+        original.put("number", 1);
+        original.freeze();
+
+        NBTCompound copy = original.deepCopy();
+        assertEquals(original, copy);
+        assertEquals(copy, original);
+
+        copy.put("number", 2);
+        assertNotEquals(original, copy);
+        assertEquals(1, original.getInt("number", 0));
+    }
+
+    @Test
+    void deepCopy_shouldNotReflectChangesToOriginal() {
+        NBTCompound original = createNestedCompound();
+        NBTCompound copy = original.deepCopy();
+
+        original.put("top", 2);
+        original.getCompound("child").put("inner", "changed");
+        original.getList("child.list").add(4);
+        original.getByteArray("child.bytes")[0] = 9;
+
+        assertEquals(1, copy.getInt("top", 0));
+        assertEquals("value", copy.getString("child.inner"));
+        assertEquals(3, copy.getList("child.list").size());
+        assertEquals(1, copy.getByteArray("child.bytes")[0]);
+    }
+
+    @Test
+    void deepCopy_shouldNotReflectChangesToCopy() {
+        NBTCompound original = createNestedCompound();
+        NBTCompound copy = original.deepCopy();
+
+        copy.remove("top");
+        copy.getCompound("child").clear();
+        copy.entrySet().removeIf(entry -> true);
+
+        assertEquals(1, original.getInt("top", 0));
+        assertEquals("value", original.getString("child.inner"));
+        assertEquals(3, original.getList("child.list").size());
+        assertEquals(1, original.getByteArray("child.bytes")[0]);
+    }
+
+    @Test
+    void deepCopy_shouldNotReflectChangesMadeThroughIterators() {
+        NBTCompound original = createNestedCompound();
+        NBTCompound copy = original.deepCopy();
+
+        for (Map.Entry<String, Object> entry : copy.entrySet()) {
+            if (entry.getValue() instanceof NBTCompound) {
+                ((NBTCompound) entry.getValue()).put("inner", "changed");
+            } else {
+                entry.setValue(2);
+            }
+        }
+
+        assertEquals(1, original.getInt("top", 0));
+        assertEquals("value", original.getString("child.inner"));
+        assertEquals(2, copy.getInt("top", 0));
+        assertEquals("changed", copy.getString("child.inner"));
+    }
+
+    @Test
+    void deepCopy_shouldKeepChildrenRetrievedBeforeCopying() {
+        NBTCompound original = createNestedCompound();
+        NBTCompound child = original.getCompound("child");
+        NBTList list = original.getList("child.list");
+        byte[] bytes = original.getByteArray("child.bytes");
+
+        NBTCompound copy = original.deepCopy();
+        assertSame(child, original.getCompound("child"));
+        assertSame(list, original.getList("child.list"));
+        assertSame(bytes, original.getByteArray("child.bytes"));
+
+        child.put("inner", "changed");
+        list.add(4);
+        bytes[0] = 9;
+
+        assertEquals("changed", original.getString("child.inner"));
+        assertEquals(4, original.getList("child.list").size());
+        assertEquals(9, original.getByteArray("child.bytes")[0]);
+        assertEquals("value", copy.getString("child.inner"));
+        assertEquals(3, copy.getList("child.list").size());
+        assertEquals(1, copy.getByteArray("child.bytes")[0]);
+    }
+
+    /**
+     * Creates a compound with a few layers of nested compounds, lists and arrays, for testing
+     * {@link NBTCompound#deepCopy()}.
+     */
+    private static NBTCompound createNestedCompound() {
+        NBTList list = new NBTList(TagType.INT);
+        list.add(1);
+        list.add(2);
+        list.add(3);
+
+        NBTCompound child = new NBTCompound();
+        child.put("inner", "value");
+        child.put("list", list);
+        child.put("bytes", new byte[]{1, 2, 3});
+
+        NBTCompound root = new NBTCompound();
+        root.put("top", 1);
+        root.put("child", child);
+        return root;
+    }
+
     /**
      * Generates unique names for each NBT tag supplied, and puts each value into a new map under
      * its generated name.
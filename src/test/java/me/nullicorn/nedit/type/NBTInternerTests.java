@@ -0,0 +1,107 @@
+package me.nullicorn.nedit.type;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class NBTInternerTests {
+
+    @Test
+    void intern_shouldReturnEqualCompound() {
+        NBTCompound item = createItem("Sword", "Sharp");
+
+        assertEquals(item, new NBTInterner().intern(item));
+    }
+
+    @Test
+    void intern_shouldReturnSameInstanceForEqualCompounds() {
+        NBTInterner interner = new NBTInterner();
+
+        NBTCompound first = interner.intern(createItem("Sword", "Sharp"));
+        NBTCompound second = interner.intern(createItem("Sword", "Sharp"));
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void intern_shouldShareEqualNestedTags() {
+        NBTInterner interner = new NBTInterner();
+
+        NBTCompound first = interner.intern(createItem("Sword", "Sharp"));
+        NBTCompound second = interner.intern(createItem("Axe", "Sharp"));
+
+        assertNotEquals(first, second);
+        assertSame(first.getList("tag.display.Lore"), second.getList("tag.display.Lore"));
+        assertNotSame(first.getCompound("tag.display"), second.getCompound("tag.display"));
+    }
+
+    @Test
+    void intern_shouldNotBeAffectedByChangesToOriginal() {
+        NBTCompound item = createItem("Sword", "Sharp");
+        item.put("bytes", new byte[]{1, 2, 3});
+        NBTCompound interned = new NBTInterner().intern(item);
+
+        item.getCompound("tag.display").put("Name", "Axe");
+        item.getByteArray("bytes")[0] = 9;
+
+        assertEquals("Sword", interned.getString("tag.display.Name"));
+        assertEquals(1, interned.getByteArray("bytes")[0]);
+    }
+
+    @Test
+    void intern_shouldReturnImmutableTags() {
+        NBTCompound interned = new NBTInterner().intern(createItem("Sword", "Sharp"));
+
+        assertThrows(UnsupportedOperationException.class, () -> interned.put("Count", 2));
+        assertThrows(UnsupportedOperationException.class, () -> interned.remove("Count"));
+        assertThrows(UnsupportedOperationException.class, interned::clear);
+        assertThrows(UnsupportedOperationException.class,
+            () -> interned.getCompound("tag").put("Unbreakable", 1)
+        );
+        assertThrows(UnsupportedOperationException.class,
+            () -> interned.getList("tag.display.Lore").add("Heavy")
+        );
+    }
+
+    @Test
+    void deepCopy_shouldMakeInternedTagsModifiable() {
+        NBTCompound interned = new NBTInterner().intern(createItem("Sword", "Sharp"));
+        NBTCompound copy = interned.deepCopy();
+
+        copy.put("Count", 2);
+        copy.getList("tag.display.Lore").add("Heavy");
+
+        assertEquals(1, interned.getInt("Count", 0));
+        assertEquals(1, interned.getList("tag.display.Lore").size());
+        assertEquals(2, copy.getList("tag.display.Lore").size());
+    }
+
+    @Test
+    void clear_shouldForgetInternedTags() {
+        NBTInterner interner = new NBTInterner();
+        NBTCompound first = interner.intern(createItem("Sword", "Sharp"));
+        assertNotEquals(0, interner.size());
+
+        interner.clear();
+        assertEquals(0, interner.size());
+        assertNotSame(first, interner.intern(createItem("Sword", "Sharp")));
+    }
+
+    private static NBTCompound createItem(String name, String lore) {
+        NBTList loreList = new NBTList(TagType.STRING);
+        loreList.add(lore);
+
+        NBTCompound display = new NBTCompound();
+        display.put("Name", name);
+        display.put("Lore", loreList);
+
+        NBTCompound tag = new NBTCompound();
+        tag.put("display", display);
+
+        NBTCompound item = new NBTCompound();
+        item.put("id", "minecraft:diamond_sword");
+        item.put("Count", 1);
+        item.put("tag", tag);
+        return item;
+    }
+}
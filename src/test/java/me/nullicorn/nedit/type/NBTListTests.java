@@ -16,6 +16,7 @@ import me.nullicorn.nedit.provider.TagTypesProvider;
 import me.nullicorn.nedit.provider.annotation.AllTagsProviderArgs;
 import me.nullicorn.nedit.provider.annotation.TagTypesProviderArgs;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 import org.junit.jupiter.params.provider.NullSource;
@@ -410,6 +411,87 @@ class NBTListTests {
         assertEquals(0, list.size());
     }
 
+    @Test
+    void equals_shouldCompareArrayContents() {
+        NBTList list = new NBTList(TagType.LONG_ARRAY);
+        list.add(new long[]{1, 2, 3});
+        NBTList other = new NBTList(TagType.LONG_ARRAY);
+        other.add(new long[]{1, 2, 3});
+
+        assertEquals(list, other);
+        assertEquals(list.hashCode(), other.hashCode());
+
+        other.getLongArray(0)[2] = 4;
+        assertNotEquals(list, other);
+    }
+
+    @Test
+    void hashCode_shouldChangeWhenListIsModified() {
+        NBTList list = new NBTList(TagType.STRING);
+        list.add("a");
+        NBTList other = new NBTList(TagType.STRING);
+        other.add("a");
+        assertEquals(list.hashCode(), other.hashCode());
+
+        list.set(0, "b");
+        assertNotEquals(list.hashCode(), other.hashCode());
+        assertNotEquals(list, other);
+
+        Iterator<Object> iterator = list.iterator();
+        iterator.next();
+        iterator.remove();
+        other.clear();
+        assertEquals(list.hashCode(), other.hashCode());
+        assertEquals(list, other);
+    }
+
+    @Test
+    void deepCopy_shouldNotShareChangesWithOriginal() {
+        NBTList original = new NBTList(TagType.COMPOUND);
+        NBTCompound element = new NBTCompound();
+        element.put("value", 1);
+        original.add(element);
+
+        NBTList copy = original.deepCopy();
+        assertEquals(original, copy);
+
+        copy.getCompound(0).put("value", 2);
+        copy.add(new NBTCompound());
+        original.iterator().next();
+        original.clear();
+
+        assertEquals(0, original.size());
+        assertEquals(2, copy.size());
+        assertEquals(2, copy.getCompound(0).getInt("value", 0));
+        assertEquals(1, element.getInt("value", 0));
+    }
+
+    @Test
+    void deepCopy_shouldCopyArrayElements() {
+        NBTList original = new NBTList(TagType.INT_ARRAY);
+        original.add(new int[]{1, 2, 3});
+
+        NBTList copy = original.deepCopy();
+        copy.getIntArray(0)[0] = 9;
+
+        assertEquals(1, original.getIntArray(0)[0]);
+        assertEquals(9, copy.getIntArray(0)[0]);
+    }
+
+    @Test
+    void deepCopy_shouldKeepElementsRetrievedBeforeCopying() {
+        NBTList original = new NBTList(TagType.COMPOUND);
+        original.add(new NBTCompound());
+        NBTCompound element = original.getCompound(0);
+
+        NBTList copy = original.deepCopy();
+        assertSame(element, original.getCompound(0));
+
+        element.put("value", 1);
+        assertEquals(1, original.getCompound(0).getInt("value", 0));
+        assertFalse(copy.getCompound(0).containsKey("value"));
+    }
+
     private interface Getter {
 
         Object get(NBTList list, int index);